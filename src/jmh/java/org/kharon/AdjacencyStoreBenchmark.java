@@ -0,0 +1,97 @@
+package org.kharon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Builds the adjacency of a random graph in the store and in the per node maps
+ * the graph used before it. Run with {@code -prof gc} to compare the bytes
+ * allocated by both layouts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AdjacencyStoreBenchmark {
+
+  @Param({ "10000", "100000" })
+  private int nodeCount;
+
+  private List<Node> nodes;
+  private List<Edge> edges;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    Random random = new Random(SyntheticGraphs.DEFAULT_SEED);
+    nodes = new ArrayList<>(nodeCount);
+    for (int i = 0; i < nodeCount; i++) {
+      nodes.add(new Node(Integer.toString(i)));
+    }
+    edges = new ArrayList<>(nodeCount * 4);
+    for (int i = 0; i < nodeCount * 4; i++) {
+      edges.add(new Edge("e" + i, nodes.get(random.nextInt(nodeCount)), nodes.get(random.nextInt(nodeCount))));
+    }
+  }
+
+  @Benchmark
+  public AdjacencyStore store() {
+    AdjacencyStore store = new AdjacencyStore();
+    for (Node node : nodes) {
+      store.addNode(node);
+    }
+    for (Edge edge : edges) {
+      store.addEdge(edge);
+    }
+    return store;
+  }
+
+  @Benchmark
+  public Map<String, MapNodeHolder> maps() {
+    Map<String, MapNodeHolder> holders = new HashMap<>();
+    Map<String, Edge> edgeMap = new HashMap<>();
+    for (Node node : nodes) {
+      holders.put(node.getId(), new MapNodeHolder(node));
+    }
+    for (Edge edge : edges) {
+      edgeMap.put(edge.getId(), edge);
+      holders.get(edge.getSource()).outcoming.put(edge.getId(), edge);
+      holders.get(edge.getTarget()).incoming.put(edge.getId(), edge);
+    }
+    return holders;
+  }
+
+  /**
+   * A node with its incoming and outcoming edges, as the graph kept them
+   * before the store.
+   */
+  public static class MapNodeHolder {
+
+    private final Node node;
+    private final Map<String, Edge> incoming = new ConcurrentHashMap<>();
+    private final Map<String, Edge> outcoming = new ConcurrentHashMap<>();
+
+    MapNodeHolder(Node node) {
+      this.node = node;
+    }
+
+    public Node getNode() {
+      return node;
+    }
+
+  }
+
+}
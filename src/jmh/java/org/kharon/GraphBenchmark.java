@@ -0,0 +1,64 @@
+package org.kharon;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GraphBenchmark {
+
+  @Param({ "1000", "10000", "100000" })
+  private int nodeCount;
+
+  private Graph graph;
+  private List<Node> nodes;
+  private List<Edge> extraEdges;
+  private List<String> nodeIds;
+  private Random random;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    graph = SyntheticGraphs.scaleFree(nodeCount, 2, SyntheticGraphs.DEFAULT_SEED);
+    nodes = new ArrayList<>(graph.getNodes());
+    extraEdges = SyntheticGraphs.randomEdges(graph, 1000, "extra", SyntheticGraphs.DEFAULT_SEED);
+    random = new Random(SyntheticGraphs.DEFAULT_SEED);
+
+    nodeIds = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      nodeIds.add(nodes.get(random.nextInt(nodes.size())).getId());
+    }
+  }
+
+  @Benchmark
+  public Graph addAndRemoveEdges() {
+    graph.addEdges(extraEdges);
+    graph.removeEdges(extraEdges);
+    return graph;
+  }
+
+  @Benchmark
+  public Set<Node> getNeighbours() {
+    return graph.getNeighbours(nodes.get(random.nextInt(nodes.size())));
+  }
+
+  @Benchmark
+  public Collection<OverlappedEdges> getNodesOverlappedEdges() {
+    return graph.getNodesOverlappedEdges(nodeIds);
+  }
+
+}
@@ -0,0 +1,68 @@
+package org.kharon;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Paints a headless {@link GraphPane} fitted to a synthetic graph, either from
+ * scratch or from its cached idle layer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GraphPanePaintBenchmark {
+
+  private static final int WIDTH = 1280;
+  private static final int HEIGHT = 800;
+
+  @Param({ "1000", "10000", "50000" })
+  private int nodeCount;
+
+  private GraphPane graphPane;
+  private BufferedImage image;
+  private Graphics2D graphics;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    System.setProperty("java.awt.headless", "true");
+    Graph graph = SyntheticGraphs.scaleFree(nodeCount, 2, SyntheticGraphs.DEFAULT_SEED);
+    graphPane = new GraphPane(graph);
+    graphPane.setSize(WIDTH, HEIGHT);
+    graphPane.fitToScreen();
+
+    image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+    graphics.setClip(0, 0, WIDTH, HEIGHT);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  @Benchmark
+  public BufferedImage paintFromScratch() {
+    graphPane.resetBuffer();
+    graphPane.paintComponent(graphics);
+    return image;
+  }
+
+  @Benchmark
+  public BufferedImage paintCached() {
+    graphPane.paintComponent(graphics);
+    return image;
+  }
+
+}
@@ -0,0 +1,86 @@
+package org.kharon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded graph generators, so benchmark inputs are the same on every machine.
+ */
+public class SyntheticGraphs {
+
+  public static final long DEFAULT_SEED = 42L;
+
+  private SyntheticGraphs() {
+    super();
+  }
+
+  /**
+   * Nodes spread over a square sized for the given density, with uniformly
+   * random edges between them.
+   */
+  public static Graph random(int nodeCount, int edgeCount, long seed) {
+    Random random = new Random(seed);
+    List<Node> nodes = newNodes(nodeCount, random);
+    List<Edge> edges = new ArrayList<>(edgeCount);
+    for (int i = 0; i < edgeCount; i++) {
+      Node source = nodes.get(random.nextInt(nodeCount));
+      Node target = nodes.get(random.nextInt(nodeCount));
+      edges.add(new Edge("e" + i, source, target));
+    }
+    return newGraph(nodes, edges);
+  }
+
+  /**
+   * Preferential attachment: every new node links to {@code edgesPerNode}
+   * existing nodes picked proportionally to their degree, giving the few hubs
+   * and many leaves of real networks.
+   */
+  public static Graph scaleFree(int nodeCount, int edgesPerNode, long seed) {
+    Random random = new Random(seed);
+    List<Node> nodes = newNodes(nodeCount, random);
+    List<Edge> edges = new ArrayList<>(nodeCount * edgesPerNode);
+    int[] endpoints = new int[nodeCount * edgesPerNode * 2];
+    int endpointCount = 0;
+    for (int i = 1; i < nodeCount; i++) {
+      for (int e = 0; e < Math.min(i, edgesPerNode); e++) {
+        int target = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+        edges.add(new Edge("e" + edges.size(), nodes.get(i), nodes.get(target)));
+        endpoints[endpointCount++] = i;
+        endpoints[endpointCount++] = target;
+      }
+    }
+    return newGraph(nodes, edges);
+  }
+
+  public static List<Edge> randomEdges(Graph graph, int edgeCount, String prefix, long seed) {
+    Random random = new Random(seed);
+    List<Node> nodes = new ArrayList<>(graph.getNodes());
+    List<Edge> edges = new ArrayList<>(edgeCount);
+    for (int i = 0; i < edgeCount; i++) {
+      Node source = nodes.get(random.nextInt(nodes.size()));
+      Node target = nodes.get(random.nextInt(nodes.size()));
+      edges.add(new Edge(prefix + i, source, target));
+    }
+    return edges;
+  }
+
+  private static List<Node> newNodes(int nodeCount, Random random) {
+    int side = (int) Math.ceil(Math.sqrt(nodeCount) * 60);
+    List<Node> nodes = new ArrayList<>(nodeCount);
+    for (int i = 0; i < nodeCount; i++) {
+      Node node = new Node("n" + i, random.nextInt(side), random.nextInt(side));
+      node.setLabel("Node " + i);
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  private static Graph newGraph(List<Node> nodes, List<Edge> edges) {
+    Graph graph = new Graph();
+    graph.addNodes(nodes);
+    graph.addEdges(edges);
+    return graph;
+  }
+
+}
@@ -0,0 +1,48 @@
+package org.kharon.layout;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kharon.Graph;
+import org.kharon.SyntheticGraphs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Every invocation lays out a fresh copy of the same synthetic graph, as
+ * layouts depend on the starting positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LayoutBenchmark {
+
+  @Param({ "100", "1000", "10000" })
+  private int nodeCount;
+
+  private Graph graph;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    graph = SyntheticGraphs.scaleFree(nodeCount, 1, SyntheticGraphs.DEFAULT_SEED);
+  }
+
+  @Benchmark
+  public Graph hierarquicalLayout() {
+    new HierarquicalLayout().performLayout(graph);
+    return graph;
+  }
+
+  @Benchmark
+  public Graph forceDirectedLayout() {
+    new ForceDirectedLayout().performLayout(graph);
+    return graph;
+  }
+
+}
@@ -0,0 +1,66 @@
+package org.kharon.renderers;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+import org.kharon.GraphShape;
+import org.kharon.Node;
+import org.kharon.SyntheticGraphs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RendererBenchmark {
+
+  private DefaultEdgeRenderer edgeRenderer = new DefaultEdgeRenderer();
+  private DefaultLabelRenderer labelRenderer = new DefaultLabelRenderer();
+
+  private RenderContext renderContext;
+  private Graphics2D graphics;
+  private List<Edge> edges;
+  private List<Node> nodes;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    System.setProperty("java.awt.headless", "true");
+    Graph graph = SyntheticGraphs.random(1000, 2000, SyntheticGraphs.DEFAULT_SEED);
+    renderContext = new RenderContext(new GraphPane(graph), graph);
+    graphics = new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    edges = new ArrayList<>(graph.getEdges());
+    nodes = new ArrayList<>(graph.getNodes());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    graphics.dispose();
+  }
+
+  @Benchmark
+  public GraphShape renderEdge() {
+    next = (next + 1) % edges.size();
+    return edgeRenderer.render(graphics, edges.get(next), renderContext);
+  }
+
+  @Benchmark
+  public GraphShape renderLabel() {
+    next = (next + 1) % nodes.size();
+    return labelRenderer.render(graphics, nodes.get(next), renderContext);
+  }
+
+}
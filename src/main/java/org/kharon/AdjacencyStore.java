@@ -0,0 +1,540 @@
+package org.kharon;
+
+import java.awt.Rectangle;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Storage engine behind {@link Graph}. Every node and edge gets a dense int
+ * slot; adjacency is kept as doubly linked incoming and outcoming lists laid
+ * out in primitive arrays, so there is no per node map and removals are O(1).
+ * Slots of removed elements are recycled.
+ * <p>
+ * The arrays are chunked and copy-on-write: {@link #clone()} and
+ * {@link #snapshot()} only copy the chunk tables, and whichever side writes
+ * to a shared chunk copies that chunk first.
+ */
+public class AdjacencyStore implements Cloneable {
+
+  public static final int NONE = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private boolean readOnly;
+
+  private IdIndex nodeIds = new IdIndex();
+  private ChunkedArray<Node> nodes = new ChunkedArray<>(INITIAL_CAPACITY);
+  private ChunkedIntArray firstOut = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private ChunkedIntArray firstIn = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private int nodeHighMark;
+  private int nodeCount;
+  private int[] freeNodes = new int[INITIAL_CAPACITY];
+  private int freeNodeCount;
+
+  private IdIndex edgeIds = new IdIndex();
+  private ChunkedArray<Edge> edges = new ChunkedArray<>(INITIAL_CAPACITY);
+  private ChunkedIntArray sources = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private ChunkedIntArray targets = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private ChunkedIntArray nextOut = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private ChunkedIntArray prevOut = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private ChunkedIntArray nextIn = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private ChunkedIntArray prevIn = new ChunkedIntArray(INITIAL_CAPACITY, NONE);
+  private int edgeHighMark;
+  private int edgeCount;
+  private int[] freeEdges = new int[INITIAL_CAPACITY];
+  private int freeEdgeCount;
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Upper bound (exclusive) of the node slots in use. Free slots below it hold
+   * {@code null}.
+   */
+  public int getNodeCapacity() {
+    return nodeHighMark;
+  }
+
+  /**
+   * Upper bound (exclusive) of the edge slots in use. Free slots below it hold
+   * {@code null}.
+   */
+  public int getEdgeCapacity() {
+    return edgeHighMark;
+  }
+
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  public int indexOfNode(String id) {
+    return nodeIds.get(id);
+  }
+
+  public int indexOfEdge(String id) {
+    return edgeIds.get(id);
+  }
+
+  public boolean containsNode(String id) {
+    return nodeIds.get(id) != IdIndex.MISSING;
+  }
+
+  public boolean containsEdge(String id) {
+    return edgeIds.get(id) != IdIndex.MISSING;
+  }
+
+  public Node getNode(String id) {
+    int index = nodeIds.get(id);
+    return index != IdIndex.MISSING ? nodes.get(index) : null;
+  }
+
+  public Edge getEdge(String id) {
+    int index = edgeIds.get(id);
+    return index != IdIndex.MISSING ? edges.get(index) : null;
+  }
+
+  public Node nodeAt(int index) {
+    return nodes.get(index);
+  }
+
+  public Edge edgeAt(int index) {
+    return edges.get(index);
+  }
+
+  public int sourceOf(int edge) {
+    return sources.get(edge);
+  }
+
+  public int targetOf(int edge) {
+    return targets.get(edge);
+  }
+
+  public int firstOutcoming(int node) {
+    return firstOut.get(node);
+  }
+
+  public int nextOutcoming(int edge) {
+    return nextOut.get(edge);
+  }
+
+  public int firstIncoming(int node) {
+    return firstIn.get(node);
+  }
+
+  public int nextIncoming(int edge) {
+    return nextIn.get(edge);
+  }
+
+  /**
+   * Adds the edges attached to the node slot, if any, to the given collection.
+   */
+  public <C extends Collection<Edge>> C collectEdges(int node, boolean incoming, boolean outcoming, C result) {
+    if (node != NONE) {
+      if (incoming) {
+        for (int edge = firstIn.get(node); edge != NONE; edge = nextIn.get(edge)) {
+          result.add(edges.get(edge));
+        }
+      }
+      if (outcoming) {
+        for (int edge = firstOut.get(node); edge != NONE; edge = nextOut.get(edge)) {
+          result.add(edges.get(edge));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds the nodes at the other end of the edges attached to the node slot,
+   * the node itself included when it has loops.
+   */
+  public <C extends Collection<Node>> C collectNeighbours(int node, boolean incoming, boolean outcoming, C result) {
+    if (node != NONE) {
+      if (incoming) {
+        for (int edge = firstIn.get(node); edge != NONE; edge = nextIn.get(edge)) {
+          result.add(nodes.get(sources.get(edge)));
+        }
+      }
+      if (outcoming) {
+        for (int edge = firstOut.get(node); edge != NONE; edge = nextOut.get(edge)) {
+          result.add(nodes.get(targets.get(edge)));
+        }
+      }
+    }
+    return result;
+  }
+
+  public Rectangle getBoundingBox() {
+    Rectangle box = null;
+    for (int index = 0; index < nodeHighMark; index++) {
+      Node node = nodes.get(index);
+      if (node != null) {
+        if (box == null) {
+          box = node.getBoundingBox();
+        } else {
+          box.add(node.getBoundingBox());
+        }
+      }
+    }
+    return box;
+  }
+
+  /**
+   * Live view of the stored nodes.
+   */
+  public Collection<Node> nodes() {
+    return new AbstractCollection<Node>() {
+
+      @Override
+      public Iterator<Node> iterator() {
+        return new SlotIterator<>(nodes, nodeHighMark);
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof Node && getNode(((Node) o).getId()) == o;
+      }
+
+      @Override
+      public int size() {
+        return nodeCount;
+      }
+
+    };
+  }
+
+  /**
+   * Live view of the stored node ids.
+   */
+  public Set<String> nodeIds() {
+    return new AbstractSet<String>() {
+
+      @Override
+      public Iterator<String> iterator() {
+        Iterator<Node> iterator = new SlotIterator<>(nodes, nodeHighMark);
+        return new Iterator<String>() {
+
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public String next() {
+            return iterator.next().getId();
+          }
+
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && containsNode((String) o);
+      }
+
+      @Override
+      public int size() {
+        return nodeCount;
+      }
+
+    };
+  }
+
+  /**
+   * Live view of the stored edges.
+   */
+  public Collection<Edge> edges() {
+    return new AbstractCollection<Edge>() {
+
+      @Override
+      public Iterator<Edge> iterator() {
+        return new SlotIterator<>(edges, edgeHighMark);
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof Edge && containsEdge(((Edge) o).getId());
+      }
+
+      @Override
+      public int size() {
+        return edgeCount;
+      }
+
+    };
+  }
+
+  /**
+   * Adds a node, replacing the instance stored under the same id while keeping
+   * its edges, whose count becomes the degree of the new instance.
+   */
+  public int addNode(Node node) {
+    checkWritable();
+    String id = node.getId();
+    int index = nodeIds.get(id);
+    if (index != IdIndex.MISSING) {
+      if (nodes.get(index) != node) {
+        nodes.set(index, node);
+        node.setDegrees(count(firstIn.get(index), nextIn), count(firstOut.get(index), nextOut));
+      }
+      return index;
+    }
+
+    if (freeNodeCount > 0) {
+      index = freeNodes[--freeNodeCount];
+    } else {
+      index = nodeHighMark++;
+      ensureNodeCapacity(nodeHighMark);
+    }
+    nodes.set(index, node);
+    firstOut.set(index, NONE);
+    firstIn.set(index, NONE);
+    nodeIds.put(id, index);
+    nodeCount++;
+    return index;
+  }
+
+  /**
+   * Removes a node and unlinks any edge still attached to it.
+   */
+  public Node removeNode(String id) {
+    checkWritable();
+    int index = nodeIds.remove(id);
+    if (index == IdIndex.MISSING) {
+      return null;
+    }
+    while (firstOut.get(index) != NONE) {
+      removeEdgeAt(firstOut.get(index));
+    }
+    while (firstIn.get(index) != NONE) {
+      removeEdgeAt(firstIn.get(index));
+    }
+
+    Node node = nodes.get(index);
+    nodes.set(index, null);
+    if (freeNodeCount == freeNodes.length) {
+      freeNodes = Arrays.copyOf(freeNodes, freeNodes.length * 2);
+    }
+    freeNodes[freeNodeCount++] = index;
+    nodeCount--;
+    return node;
+  }
+
+  public int addEdge(Edge edge) {
+    checkWritable();
+    int source = nodeIds.get(edge.getSource());
+    if (source == IdIndex.MISSING) {
+      throw new IllegalArgumentException("Node " + edge.getSource() + " not found.");
+    }
+    int target = nodeIds.get(edge.getTarget());
+    if (target == IdIndex.MISSING) {
+      throw new IllegalArgumentException("Node " + edge.getTarget() + " not found.");
+    }
+    if (edgeIds.get(edge.getId()) != IdIndex.MISSING) {
+      throw new IllegalArgumentException("Edge " + edge.getId() + " already exists.");
+    }
+
+    int index;
+    if (freeEdgeCount > 0) {
+      index = freeEdges[--freeEdgeCount];
+    } else {
+      index = edgeHighMark++;
+      ensureEdgeCapacity(edgeHighMark);
+    }
+    edges.set(index, edge);
+    sources.set(index, source);
+    targets.set(index, target);
+
+    int out = firstOut.get(source);
+    prevOut.set(index, NONE);
+    nextOut.set(index, out);
+    if (out != NONE) {
+      prevOut.set(out, index);
+    }
+    firstOut.set(source, index);
+
+    int in = firstIn.get(target);
+    prevIn.set(index, NONE);
+    nextIn.set(index, in);
+    if (in != NONE) {
+      prevIn.set(in, index);
+    }
+    firstIn.set(target, index);
+
+    edgeIds.put(edge.getId(), index);
+    edgeCount++;
+    return index;
+  }
+
+  public Edge removeEdge(String id) {
+    checkWritable();
+    int index = edgeIds.get(id);
+    if (index == IdIndex.MISSING) {
+      return null;
+    }
+    return removeEdgeAt(index);
+  }
+
+  private Edge removeEdgeAt(int index) {
+    Edge edge = edges.get(index);
+    edgeIds.remove(edge.getId());
+
+    int prev = prevOut.get(index);
+    int next = nextOut.get(index);
+    if (prev != NONE) {
+      nextOut.set(prev, next);
+    } else {
+      firstOut.set(sources.get(index), next);
+    }
+    if (next != NONE) {
+      prevOut.set(next, prev);
+    }
+
+    prev = prevIn.get(index);
+    next = nextIn.get(index);
+    if (prev != NONE) {
+      nextIn.set(prev, next);
+    } else {
+      firstIn.set(targets.get(index), next);
+    }
+    if (next != NONE) {
+      prevIn.set(next, prev);
+    }
+
+    edges.set(index, null);
+    if (freeEdgeCount == freeEdges.length) {
+      freeEdges = Arrays.copyOf(freeEdges, freeEdges.length * 2);
+    }
+    freeEdges[freeEdgeCount++] = index;
+    edgeCount--;
+    return edge;
+  }
+
+  private static int count(int first, ChunkedIntArray next) {
+    int count = 0;
+    for (int edge = first; edge != NONE; edge = next.get(edge)) {
+      count++;
+    }
+    return count;
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Store is read only.");
+    }
+  }
+
+  private void ensureNodeCapacity(int capacity) {
+    if (capacity > nodes.length()) {
+      nodes.ensureCapacity(capacity);
+      firstOut.ensureCapacity(capacity);
+      firstIn.ensureCapacity(capacity);
+    }
+  }
+
+  private void ensureEdgeCapacity(int capacity) {
+    if (capacity > edges.length()) {
+      edges.ensureCapacity(capacity);
+      sources.ensureCapacity(capacity);
+      targets.ensureCapacity(capacity);
+      nextOut.ensureCapacity(capacity);
+      prevOut.ensureCapacity(capacity);
+      nextIn.ensureCapacity(capacity);
+      prevIn.ensureCapacity(capacity);
+    }
+  }
+
+  /**
+   * Read only copy of the current state, sharing every chunk with this store.
+   * Later writes to this store are not visible through it.
+   */
+  public AdjacencyStore snapshot() {
+    AdjacencyStore snapshot = share();
+    snapshot.readOnly = true;
+    snapshot.freeNodes = new int[0];
+    snapshot.freeNodeCount = 0;
+    snapshot.freeEdges = new int[0];
+    snapshot.freeEdgeCount = 0;
+    return snapshot;
+  }
+
+  @Override
+  public AdjacencyStore clone() {
+    AdjacencyStore clone = share();
+    clone.readOnly = false;
+    clone.freeNodes = freeNodes.clone();
+    clone.freeEdges = freeEdges.clone();
+    return clone;
+  }
+
+  private AdjacencyStore share() {
+    try {
+      AdjacencyStore copy = (AdjacencyStore) super.clone();
+
+      copy.nodeIds = nodeIds.clone();
+      copy.nodes = nodes.share();
+      copy.firstOut = firstOut.share();
+      copy.firstIn = firstIn.share();
+
+      copy.edgeIds = edgeIds.clone();
+      copy.edges = edges.share();
+      copy.sources = sources.share();
+      copy.targets = targets.share();
+      copy.nextOut = nextOut.share();
+      copy.prevOut = prevOut.share();
+      copy.nextIn = nextIn.share();
+      copy.prevIn = prevIn.share();
+
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static class SlotIterator<E> implements Iterator<E> {
+
+    private final ChunkedArray<E> slots;
+    private final int highMark;
+    private int index;
+
+    SlotIterator(ChunkedArray<E> slots, int highMark) {
+      this.slots = slots;
+      this.highMark = highMark;
+      this.index = advance(0);
+    }
+
+    private int advance(int from) {
+      while (from < highMark && slots.get(from) == null) {
+        from++;
+      }
+      return from;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < highMark;
+    }
+
+    @Override
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      E element = slots.get(index);
+      index = advance(index + 1);
+      return element;
+    }
+
+  }
+
+}
@@ -0,0 +1,89 @@
+package org.kharon;
+
+import java.util.Arrays;
+
+/**
+ * Growable int array split in fixed size chunks that can be shared between
+ * copies. {@link #share()} hands out a copy pointing to the same chunks and
+ * marks them as shared, so the next write to a chunk from either side copies
+ * only that chunk.
+ */
+final class ChunkedIntArray {
+
+  static final int CHUNK_BITS = 10;
+  static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private int[][] chunks;
+  private boolean[] shared;
+  private int length;
+  private final int fill;
+
+  ChunkedIntArray(int length, int fill) {
+    this.fill = fill;
+    this.chunks = new int[0][];
+    this.shared = new boolean[0];
+    ensureCapacity(length);
+  }
+
+  private ChunkedIntArray(ChunkedIntArray other) {
+    this.fill = other.fill;
+    this.length = other.length;
+    this.chunks = other.chunks.clone();
+    this.shared = new boolean[chunks.length];
+    Arrays.fill(this.shared, true);
+  }
+
+  int length() {
+    return length;
+  }
+
+  int get(int index) {
+    return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+  }
+
+  void set(int index, int value) {
+    int chunk = index >>> CHUNK_BITS;
+    if (shared[chunk]) {
+      chunks[chunk] = chunks[chunk].clone();
+      shared[chunk] = false;
+    }
+    chunks[chunk][index & CHUNK_MASK] = value;
+  }
+
+  void ensureCapacity(int capacity) {
+    if (capacity <= length) {
+      return;
+    }
+    if (capacity <= CHUNK_SIZE) {
+      // A single chunk grows in place, so small graphs stay small.
+      int newLength = Math.min(CHUNK_SIZE, Math.max(capacity, length + (length >> 1)));
+      int[] chunk = new int[newLength];
+      Arrays.fill(chunk, fill);
+      if (chunks.length > 0) {
+        System.arraycopy(chunks[0], 0, chunk, 0, length);
+      }
+      chunks = new int[][] { chunk };
+      shared = new boolean[1];
+      length = newLength;
+    } else {
+      ensureCapacity(CHUNK_SIZE);
+      int count = (capacity + CHUNK_MASK) >>> CHUNK_BITS;
+      int oldCount = chunks.length;
+      chunks = Arrays.copyOf(chunks, Math.max(count, oldCount + (oldCount >> 1)));
+      shared = Arrays.copyOf(shared, chunks.length);
+      for (int index = oldCount; index < chunks.length; index++) {
+        int[] chunk = new int[CHUNK_SIZE];
+        Arrays.fill(chunk, fill);
+        chunks[index] = chunk;
+      }
+      length = chunks.length << CHUNK_BITS;
+    }
+  }
+
+  ChunkedIntArray share() {
+    Arrays.fill(shared, true);
+    return new ChunkedIntArray(this);
+  }
+
+}
@@ -13,6 +13,8 @@ public class Edge implements Cloneable {
   private String type = "default";
   private Color color;
 
+  protected int version;
+
   protected Edge() {
     super();
   }
@@ -52,6 +54,7 @@ public class Edge implements Cloneable {
 
   public void setColor(Color color) {
     this.color = color;
+    this.version++;
   }
 
   public String getLabel() {
@@ -60,6 +63,15 @@ public class Edge implements Cloneable {
 
   public void setLabel(String label) {
     this.label = label;
+    this.version++;
+  }
+
+  /**
+   * Counter bumped by every setter, so whatever is derived from the edge can
+   * tell whether it is still up to date.
+   */
+  public int getVersion() {
+    return version;
   }
 
   @Override
@@ -0,0 +1,376 @@
+package org.kharon;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import org.kharon.renderers.EdgeRenderer;
+import org.kharon.renderers.LabelRenderer;
+import org.kharon.renderers.NodeRenderer;
+import org.kharon.renderers.RenderContext;
+import org.kharon.renderers.Renderers;
+
+/**
+ * Renders the idle layer of a {@link GraphPane} on a thread of its own, from a
+ * snapshot of the graph. Every request carries copies of the nodes and edges
+ * in view, found through the spatial indexes of the graph, so a frame costs
+ * what is visible and never reads a node being moved on the event dispatch
+ * thread. Frames are rendered into a back image and swapped with the front one
+ * when complete, so the event dispatch thread only ever blits a finished
+ * frame. Requests superseded by a newer one are dropped, before starting or
+ * while rendering.
+ */
+class FrameRenderer {
+
+  private static final int STALE_CHECK_INTERVAL = 256;
+
+  private final ExecutorService executor;
+  private final Consumer<Frame> listener;
+  private final AtomicLong latestSequence = new AtomicLong();
+
+  // Only touched by the render thread.
+  private final ShapeCache shapeCache = new ShapeCache();
+
+  private final Object lock = new Object();
+  private Frame front;
+  private BufferedImage back;
+
+  private final AtomicLong renderedCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /**
+   * @param listener called on the event dispatch thread with every finished
+   *          frame.
+   */
+  FrameRenderer(Consumer<Frame> listener) {
+    this.listener = listener;
+    this.executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "kharon-frame-renderer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  void request(FrameRequest request) {
+    request.sequence = this.latestSequence.incrementAndGet();
+    this.executor.execute(() -> render(request));
+  }
+
+  /**
+   * Draws the latest finished frame at the given position, mapped from the
+   * view it was rendered for to the given stage transform.
+   *
+   * @return false if no frame was finished yet.
+   */
+  boolean drawTo(Graphics2D g2d, AffineTransform transform, int x, int y) {
+    synchronized (this.lock) {
+      if (this.front == null) {
+        return false;
+      }
+      AffineTransform blit = AffineTransform.getTranslateInstance(x, y);
+      blit.concatenate(transform);
+      try {
+        blit.concatenate(this.front.request.view.transform.createInverse());
+      } catch (NoninvertibleTransformException e) {
+        throw new RuntimeException(e);
+      }
+      g2d.drawImage(this.front.image, blit, null);
+      return true;
+    }
+  }
+
+  void shutdown() {
+    this.latestSequence.incrementAndGet();
+    this.executor.shutdown();
+  }
+
+  /**
+   * Waits until every request made so far is rendered or dropped. Finished
+   * frames still reach the listener later, on the event dispatch thread.
+   */
+  void awaitRequests() throws InterruptedException, ExecutionException {
+    this.executor.submit(() -> {
+    }).get();
+  }
+
+  long getRenderedCount() {
+    return renderedCount.get();
+  }
+
+  long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Shapes of the render thread, to be read once it rendered the frames it was
+   * asked for.
+   */
+  ShapeCache getShapeCache() {
+    return shapeCache;
+  }
+
+  private boolean isStale(FrameRequest request) {
+    return request.sequence != this.latestSequence.get();
+  }
+
+  private void render(FrameRequest request) {
+    if (isStale(request)) {
+      this.droppedCount.incrementAndGet();
+      return;
+    }
+
+    FrameView view = request.view;
+    BufferedImage image;
+    synchronized (this.lock) {
+      image = this.back;
+      this.back = null;
+    }
+    if (image == null || image.getWidth() != view.width || image.getHeight() != view.height) {
+      image = new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    Graphics2D g2d = image.createGraphics();
+    if (view.background != null) {
+      g2d.setBackground(view.background);
+      g2d.clearRect(0, 0, view.width, view.height);
+    } else {
+      g2d.setComposite(AlphaComposite.Clear);
+      g2d.fillRect(0, 0, view.width, view.height);
+      g2d.setComposite(AlphaComposite.SrcOver);
+    }
+    g2d.setRenderingHints(request.renderingHints);
+    g2d.setFont(view.font);
+
+    Rectangle2D clipBounds = view.getStageBounds();
+
+    Map<String, NodeBoundingBox> boxes = new HashMap<>();
+    double boxMargin = 0d;
+    boolean complete = false;
+    try {
+      RenderContext renderContext = request.renderContext;
+      Renderers renderers = request.renderers;
+      int count = 0;
+
+      for (OverlappedEdges edge : request.edges) {
+        if (++count % STALE_CHECK_INTERVAL == 0 && isStale(request)) {
+          return;
+        }
+        EdgeRenderer renderer = renderers.getEdgeRenderer(edge.getType());
+        draw(g2d, this.shapeCache.getEdgeShape(g2d, edge, renderer, renderContext), view.transform, clipBounds);
+      }
+
+      for (Node node : request.nodes.values()) {
+        if (++count % STALE_CHECK_INTERVAL == 0 && isStale(request)) {
+          return;
+        }
+        NodeBoundingBox box = new NodeBoundingBox(1.4d);
+
+        NodeRenderer renderer = renderers.getNodeRenderer(node.getType());
+        GraphShape nodeGraphShape = this.shapeCache.getNodeShape(g2d, node, renderer, renderContext);
+        if (draw(g2d, nodeGraphShape, view.transform, clipBounds)) {
+          box.addBox(nodeGraphShape.getShape());
+        }
+
+        LabelRenderer labelRenderer = renderers.getLabelRenderer(node.getLabelType());
+        GraphShape labelGraphShape = this.shapeCache.getLabelShape(g2d, node, labelRenderer, renderContext);
+        if (draw(g2d, labelGraphShape, view.transform, clipBounds)) {
+          box.addBox(labelGraphShape.getShape());
+        }
+
+        boxes.put(node.getId(), box);
+        boxMargin = Math.max(boxMargin, box.getMargin(node));
+      }
+      complete = true;
+    } finally {
+      g2d.dispose();
+      if (!complete) {
+        this.droppedCount.incrementAndGet();
+        synchronized (this.lock) {
+          this.back = image;
+        }
+      }
+    }
+
+    Frame frame = new Frame(request, image, boxes, boxMargin);
+    synchronized (this.lock) {
+      if (this.front != null) {
+        this.back = this.front.image;
+      }
+      this.front = frame;
+    }
+    this.renderedCount.incrementAndGet();
+    SwingUtilities.invokeLater(() -> this.listener.accept(frame));
+  }
+
+  /**
+   * Draws the shape if it is visible in the frame.
+   *
+   * @return false if there was no shape.
+   */
+  private static boolean draw(Graphics2D g2d, GraphShape graphShape, AffineTransform tx, Rectangle2D clipBounds) {
+    if (graphShape == null) {
+      return false;
+    }
+    if (graphShape.getShape().intersects(clipBounds)) {
+      graphShape.draw(g2d, tx);
+    }
+    return true;
+  }
+
+  /**
+   * What a frame looks like: when a new paint has the same view as the last
+   * requested frame, no new frame is needed.
+   */
+  static class FrameView {
+
+    private final AffineTransform transform;
+    private final int width;
+    private final int height;
+    private final Color background;
+    private final Font font;
+    private final LevelOfDetail levelOfDetail;
+    private final long contentVersion;
+
+    FrameView(AffineTransform transform, int width, int height, Color background, Font font,
+        LevelOfDetail levelOfDetail, long contentVersion) {
+      this.transform = new AffineTransform(transform);
+      this.width = Math.max(width, 1);
+      this.height = Math.max(height, 1);
+      this.background = background;
+      this.font = font;
+      this.levelOfDetail = levelOfDetail;
+      this.contentVersion = contentVersion;
+    }
+
+    /**
+     * Stage area shown by the frame.
+     */
+    Rectangle2D getStageBounds() {
+      try {
+        return this.transform.createInverse()
+            .createTransformedShape(new Rectangle2D.Double(0, 0, this.width, this.height)).getBounds2D();
+      } catch (NoninvertibleTransformException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(transform, width, height, background, font, levelOfDetail, contentVersion);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (!(obj instanceof FrameView))
+        return false;
+      FrameView other = (FrameView) obj;
+      return width == other.width && height == other.height && contentVersion == other.contentVersion
+          && levelOfDetail == other.levelOfDetail && transform.equals(other.transform)
+          && Objects.equals(background, other.background) && Objects.equals(font, other.font);
+    }
+
+  }
+
+  static class FrameRequest {
+
+    private final FrameView view;
+    private final Map<String, Node> nodes;
+    private final Collection<OverlappedEdges> edges;
+    private final Set<String> liveNodes;
+    private final Renderers renderers;
+    private final RenderContext renderContext;
+    private final RenderingHints renderingHints;
+    private long sequence;
+
+    /**
+     * @param nodes copies of the idle nodes in view and at the ends of the
+     *          edges, by id.
+     * @param edges copies of the idle pairs of edges in view.
+     * @param liveNodes nodes left out of the frame, painted by the pane itself.
+     */
+    FrameRequest(FrameView view, GraphSnapshot snapshot, Map<String, Node> nodes, Collection<OverlappedEdges> edges,
+        Set<String> liveNodes, Renderers renderers, GraphPane graphPane, RenderingHints renderingHints) {
+      this.view = view;
+      this.nodes = nodes;
+      this.edges = edges;
+      this.liveNodes = liveNodes;
+      this.renderers = renderers;
+      this.renderContext = new FrameContext(graphPane, snapshot, nodes);
+      this.renderContext.setLevelOfDetail(view.levelOfDetail);
+      this.renderingHints = renderingHints;
+    }
+
+  }
+
+  /**
+   * Resolves the nodes at the ends of the edges to the copies of the request.
+   */
+  private static class FrameContext extends RenderContext {
+
+    private final Map<String, Node> nodes;
+
+    FrameContext(GraphPane graphPane, GraphSnapshot snapshot, Map<String, Node> nodes) {
+      super(graphPane, graphPane.getGraph(), snapshot);
+      this.nodes = nodes;
+    }
+
+    @Override
+    public Node getNode(String id) {
+      Node node = this.nodes.get(id);
+      return node != null ? node : super.getNode(id);
+    }
+
+  }
+
+  static class Frame {
+
+    private final FrameRequest request;
+    private final BufferedImage image;
+    private final Map<String, NodeBoundingBox> boxes;
+    private final double boxMargin;
+
+    Frame(FrameRequest request, BufferedImage image, Map<String, NodeBoundingBox> boxes, double boxMargin) {
+      this.request = request;
+      this.image = image;
+      this.boxes = boxes;
+      this.boxMargin = boxMargin;
+    }
+
+    /**
+     * Bounding boxes of the nodes drawn in the frame.
+     */
+    Map<String, NodeBoundingBox> getBoxes() {
+      return boxes;
+    }
+
+    double getBoxMargin() {
+      return boxMargin;
+    }
+
+    Set<String> getLiveNodes() {
+      return request.liveNodes;
+    }
+
+  }
+
+}
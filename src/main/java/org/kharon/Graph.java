@@ -1,19 +1,17 @@
 package org.kharon;
 
 import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import org.kharon.layout.Layout;
 
@@ -23,22 +21,31 @@ public class Graph implements Cloneable {
 
   private GraphSettings settings = new GraphSettings();
 
-  private Map<String, NodeHolder> nodeIndex = new HashMap<>();
-  private Map<String, Edge> edgeIndex = new HashMap<>();
+  private AdjacencyStore store = new AdjacencyStore();
 
   private List<GraphListener> listeners = new ArrayList<>();
 
   private GroupPositioner groupPositioner = new RandomGroupPositioner();
-  
-  private Map<String, Collection<OverlappedEdges>> overlappedEdgesCache = Collections.synchronizedMap(new LinkedHashMap<String, Collection<OverlappedEdges>>(16, 0.75f, true) {
 
-    private static final long serialVersionUID = 1L;
+  private OverlappedEdgesIndex overlappedEdgesIndex = new OverlappedEdgesIndex();
+  private List<Edge> pendingIndexEdges = new ArrayList<>();
 
-    @Override
-      protected boolean removeEldestEntry(Map.Entry<String, Collection<OverlappedEdges>> eldest) {
-          return size() > 100;
-      }
-  });
+  private long version;
+
+  private boolean observingNodes;
+  private final NodeObserver nodeObserver = this::nodeBoundsChanged;
+  private QuadTree<Node> nodeIndex;
+  private SegmentGrid<OverlappedEdges> edgeIndex;
+  private Set<Node> movedNodes = new HashSet<>();
+  private Set<Node> movedIndexNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+  private Set<OverlappedEdges> changedPairs = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private int batchDepth = 0;
+  private Object batchOriginator;
+  private Set<Node> batchAddedNodes;
+  private Set<Edge> batchAddedEdges;
+  private Set<Node> batchRemovedNodes;
+  private Set<Edge> batchRemovedEdges;
 
   public String getType() {
     return type;
@@ -49,21 +56,21 @@ public class Graph implements Cloneable {
   }
 
   public int getSize() {
-    return nodeIndex.size();
+    return store.getNodeCount();
   }
 
   public boolean isEmpty() {
-    return nodeIndex.isEmpty();
+    return store.getNodeCount() == 0;
   }
 
   public Set<Node> getNodes() {
-    return nodeIndex.values().stream().map(s -> s.getNode()).collect(Collectors.toSet());
+    return new HashSet<>(store.nodes());
   }
 
   public Set<Node> getNodes(Collection<String> ids) {
     Set<Node> nodes = new HashSet<>(ids.size());
     for (String id : ids) {
-      Node node = this.nodeIndex.get(id).getNode();
+      Node node = this.store.getNode(id);
       if (node != null) {
         nodes.add(node);
       } else {
@@ -74,7 +81,7 @@ public class Graph implements Cloneable {
   }
 
   public boolean containsNode(String id) {
-    return this.nodeIndex.containsKey(id);
+    return this.store.containsNode(id);
   }
 
   public void applyLayout(Layout layout) {
@@ -82,60 +89,63 @@ public class Graph implements Cloneable {
   }
 
   public Collection<Edge> getEdges() {
-    return edgeIndex.values();
+    return store.edges();
   }
 
   public Set<Edge> getNodesEdges(Collection<String> nodeIds) {
     Set<Edge> result = new HashSet<>();
 
     for (String nodeId : nodeIds) {
-      NodeHolder nodeHolder = this.nodeIndex.get(nodeId);
-      result.addAll(nodeHolder.getEdges());
+      store.collectEdges(store.indexOfNode(nodeId), true, true, result);
     }
 
     return result;
   }
   
   public Collection<OverlappedEdges> getNodesOverlappedEdges(Collection<String> nodeIds) {
-      
-      String ids = nodeIds.stream().sorted().collect(Collectors.joining("-"));
-      
-      Collection<OverlappedEdges> result = overlappedEdgesCache.get(ids);
-      if(result != null) return result;
-      
-      result = new ArrayList<>();
-      Set<Edge> addedEdges = new HashSet<>();
-
-      //toArray() decrease chance of ConcurrentModificationException
-      for (String nodeId : nodeIds.toArray(new String[nodeIds.size()])) {
-        NodeHolder nodeHolder = this.nodeIndex.get(nodeId);
-        HashMap<String, OverlappedEdges> overlapsPerNode = new HashMap<>();
-        for(Edge edge : nodeHolder.getEdges()) {
-            if(addedEdges.contains(edge)) {
-                continue;
-            }
-            String pairNode = edge.getSource();
-            if(pairNode.equals(nodeId)) {
-                pairNode = edge.getTarget();
-            }
-            OverlappedEdges overlapEdge = overlapsPerNode.get(pairNode);
-            if(overlapEdge == null){
-                overlapEdge = new OverlappedEdges(nodeId, pairNode);
-                overlapsPerNode.put(pairNode, overlapEdge);
-            }
-            if(edge.getSource().equals(overlapEdge.getSource())) {
-                overlapEdge.addOutcomingEdge(edge);
-            }else {
-                overlapEdge.addIncomingEdge(edge);
-            }
-            addedEdges.add(edge);
+    flushPendingIndexes();
+
+    Set<OverlappedEdges> result = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    //toArray() decrease chance of ConcurrentModificationException
+    for (String nodeId : nodeIds.toArray(new String[nodeIds.size()])) {
+      int node = store.indexOfNode(nodeId);
+      if (node != AdjacencyStore.NONE) {
+        for (int edge = store.firstOutcoming(node); edge != AdjacencyStore.NONE; edge = store.nextOutcoming(edge)) {
+          result.add(overlappedEdgesIndex.get(edge));
+        }
+        for (int edge = store.firstIncoming(node); edge != AdjacencyStore.NONE; edge = store.nextIncoming(edge)) {
+          result.add(overlappedEdgesIndex.get(edge));
         }
-        result.addAll(overlapsPerNode.values());
       }
-      
-      overlappedEdgesCache.put(ids, result);
+    }
 
-      return result;
+    return result;
+  }
+
+  /**
+   * The pair of overlapped edges with the given id, or the pair the edge with
+   * the given id belongs to, or null if there is neither.
+   */
+  public OverlappedEdges getOverlappedEdges(String id) {
+    flushPendingIndexes();
+    int edge = store.indexOfEdge(id);
+    if (edge != AdjacencyStore.NONE) {
+      return overlappedEdgesIndex.get(edge);
+    }
+    // pair ids join the ids of their nodes with a dash, which node ids may
+    // contain as well
+    for (int dash = id.indexOf('-'); dash != -1; dash = id.indexOf('-', dash + 1)) {
+      int source = store.indexOfNode(id.substring(0, dash));
+      int target = store.indexOfNode(id.substring(dash + 1));
+      if (source != AdjacencyStore.NONE && target != AdjacencyStore.NONE) {
+        OverlappedEdges pair = overlappedEdgesIndex.get(source, target);
+        if (pair != null && pair.getId().equals(id)) {
+          return pair;
+        }
+      }
+    }
+    return null;
   }
 
   public void addNodes(Collection<Node> nodes) {
@@ -149,7 +159,25 @@ public class Graph implements Cloneable {
 
   private void addNodesToGraph(Collection<Node> nodes) {
     for (Node node : nodes) {
-      this.nodeIndex.put(node.getId(), new NodeHolder(node));
+      if (observingNodes) {
+        Node replaced = this.store.getNode(node.getId());
+        if (replaced != node) {
+          if (replaced != null) {
+            replaced.removeObserver(nodeObserver);
+            movedNodes.remove(replaced);
+            movedIndexNodes.remove(replaced);
+            if (nodeIndex != null) {
+              nodeIndex.remove(replaced);
+            }
+          }
+          node.addObserver(nodeObserver);
+        }
+      }
+      this.store.addNode(node);
+      version++;
+      if (observingNodes) {
+        nodeBoundsChanged(node);
+      }
     }
   }
 
@@ -179,11 +207,7 @@ public class Graph implements Cloneable {
   private Set<Edge> getEdges(Collection<Node> nodes) {
     Set<Edge> edges = new HashSet<>();
     for (Node node : nodes) {
-      String id = node.getId();
-      if (this.nodeIndex.containsKey(id)) {
-        NodeHolder nodeHolder = getNodeHolder(id);
-        edges.addAll(nodeHolder.getEdges());
-      }
+      store.collectEdges(store.indexOfNode(node.getId()), true, true, edges);
     }
     return edges;
   }
@@ -191,11 +215,7 @@ public class Graph implements Cloneable {
   private Set<Edge> getIncomingEdges(Collection<Node> nodes) {
     Set<Edge> edges = new HashSet<>();
     for (Node node : nodes) {
-      String id = node.getId();
-      if (this.nodeIndex.containsKey(id)) {
-        NodeHolder nodeHolder = getNodeHolder(id);
-        edges.addAll(nodeHolder.getIncomingEdges());
-      }
+      store.collectEdges(store.indexOfNode(node.getId()), true, false, edges);
     }
     return edges;
   }
@@ -203,9 +223,17 @@ public class Graph implements Cloneable {
   private Set<Node> removeNodesFromGraph(Collection<Node> nodes) {
     Set<Node> removed = new HashSet<>(nodes.size());
     for (Node node : nodes) {
-      String id = node.getId();
-      if (this.nodeIndex.containsKey(id)) {
-        this.nodeIndex.remove(id);
+      Node removedNode = this.store.removeNode(node.getId());
+      if (removedNode != null) {
+        if (observingNodes) {
+          removedNode.removeObserver(nodeObserver);
+          movedNodes.remove(removedNode);
+          movedIndexNodes.remove(removedNode);
+          if (nodeIndex != null) {
+            nodeIndex.remove(removedNode);
+          }
+        }
+        version++;
         removed.add(node);
       }
     }
@@ -227,19 +255,42 @@ public class Graph implements Cloneable {
 
   private void addEdgesToGraph(Collection<Edge> edges) {
     for (Edge edge : edges) {
-      this.edgeIndex.put(edge.getId(), edge);
+      if (this.store.containsEdge(edge.getId())) {
+        removeEdgeFromGraph(edge);
+      }
+      int index = this.store.addEdge(edge);
+      version++;
+      int source = store.sourceOf(index);
+      int target = store.targetOf(index);
+      if (isBatchInProgress()) {
+        pendingIndexEdges.add(edge);
+      } else {
+        indexOverlappedEdge(index, edge);
+      }
 
-      String source = edge.getSource();
-      NodeHolder sourceHolder = getNodeHolder(source);
-      sourceHolder.addEdge(edge);
-      sourceHolder.getNode().increaseOutcomingDegree();
+      store.nodeAt(source).increaseOutcomingDegree();
+      store.nodeAt(target).increaseIncomingDegree();
+    }
+  }
 
-      String target = edge.getTarget();
-      NodeHolder targetHolder = getNodeHolder(target);
-      targetHolder.getNode().increaseIncomingDegree();
-      targetHolder.addEdge(edge);
+  private void flushPendingIndexes() {
+    if (!pendingIndexEdges.isEmpty()) {
+      for (Edge edge : pendingIndexEdges) {
+        int index = store.indexOfEdge(edge.getId());
+        // Edges removed or replaced later in the same batch are skipped.
+        if (index != AdjacencyStore.NONE && store.edgeAt(index) == edge && overlappedEdgesIndex.get(index) == null) {
+          indexOverlappedEdge(index, edge);
+        }
+      }
+      pendingIndexEdges.clear();
+    }
+  }
+
+  private void indexOverlappedEdge(int index, Edge edge) {
+    overlappedEdgesIndex.add(index, edge, store.sourceOf(index), store.targetOf(index));
+    if (edgeIndex != null) {
+      changedPairs.add(overlappedEdgesIndex.get(index));
     }
-    overlappedEdgesCache.clear();
   }
 
   public void addEdge(Edge edge) {
@@ -258,25 +309,35 @@ public class Graph implements Cloneable {
   private Set<Edge> removeEdgesFromGraph(Collection<Edge> edges) {
     Set<Edge> removedEdges = new HashSet<>();
     for (Edge edge : edges) {
-      Edge removed = this.edgeIndex.remove(edge.getId());
+      Edge removed = removeEdgeFromGraph(edge);
       if (removed != null) {
-        String source = edge.getSource();
-        NodeHolder sourceHolder = getNodeHolder(source);
-        sourceHolder.removeEdge(edge);
-        sourceHolder.getNode().decreaseOutcomingDegree();
-
-        String target = edge.getTarget();
-        NodeHolder targetHolder = getNodeHolder(target);
-        targetHolder.removeEdge(edge);
-        targetHolder.getNode().decreaseIncomingDegree();
-
         removedEdges.add(removed);
       }
     }
-    overlappedEdgesCache.clear();
     return removedEdges;
   }
 
+  private Edge removeEdgeFromGraph(Edge edge) {
+    int index = this.store.indexOfEdge(edge.getId());
+    if (index == AdjacencyStore.NONE) {
+      return null;
+    }
+    int source = store.sourceOf(index);
+    int target = store.targetOf(index);
+    Edge removed = this.store.edgeAt(index);
+    OverlappedEdges pair = overlappedEdgesIndex.get(index);
+    overlappedEdgesIndex.remove(index, removed, source, target);
+    if (edgeIndex != null && pair != null && pair.getEdgeCount() == 0) {
+      edgeIndex.remove(pair);
+      changedPairs.remove(pair);
+    }
+
+    store.nodeAt(source).decreaseOutcomingDegree();
+    store.nodeAt(target).decreaseIncomingDegree();
+    version++;
+    return this.store.removeEdge(edge.getId());
+  }
+
   public void removeEdge(Edge edge) {
     removeEdges(Arrays.asList(edge));
   }
@@ -304,7 +365,7 @@ public class Graph implements Cloneable {
   }
 
   public boolean containsEdge(String id) {
-    return this.edgeIndex.containsKey(id);
+    return this.store.containsEdge(id);
   }
 
   public GraphSettings getSettings() {
@@ -312,116 +373,285 @@ public class Graph implements Cloneable {
   }
 
   public Node getNode(String id) {
-    return nodeIndex.get(id).getNode();
-  }
-
-  private NodeHolder getNodeHolder(String id) {
-    return nodeIndex.get(id);
+    return store.getNode(id);
   }
 
   public Set<String> getNodeIds() {
-    return this.nodeIndex.keySet();
+    return store.nodeIds();
+  }
+
+  /**
+   * Returns an immutable view of the current structure that can be read from
+   * any thread while this graph keeps changing. Taking a snapshot costs a copy
+   * of the chunk tables of the store; the chunks themselves are shared until
+   * the graph writes to them. Node and edge instances are shared too, so their
+   * attributes (positions, colors, labels) are read live.
+   */
+  public GraphSnapshot snapshot() {
+    return new GraphSnapshot(type, settings, store.snapshot(), version);
+  }
+
+  /**
+   * Number of structural changes made to this graph so far.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Nodes whose bounds contain the point.
+   */
+  public List<Node> getNodesAt(double x, double y) {
+    return getNodeIndex().query(x, y);
+  }
+
+  /**
+   * Nodes whose bounds intersect the area.
+   */
+  public List<Node> getNodesIn(Rectangle2D area) {
+    return getNodeIndex().query(area);
+  }
+
+  /**
+   * Up to {@code count} nodes, nearest to the point first.
+   */
+  public List<Node> getNearestNodes(double x, double y, int count) {
+    return getNodeIndex().nearest(x, y, count);
+  }
+
+  /**
+   * Pairs of connected nodes whose segment, between the node centers,
+   * intersects the area.
+   */
+  public List<OverlappedEdges> getOverlappedEdgesIn(Rectangle2D area) {
+    SegmentGrid<OverlappedEdges> index = getEdgeIndex();
+    return index.query(area);
+  }
+
+  /**
+   * The spatial indexes are only built once they are queried, so graphs that
+   * are never queried (like the sub graphs of layouts sharing nodes with the
+   * main graph) do not register on their nodes.
+   */
+  private QuadTree<Node> getNodeIndex() {
+    if (nodeIndex == null) {
+      observeNodes();
+      nodeIndex = new QuadTree<>();
+      for (Node node : store.nodes()) {
+        nodeBoundsChanged(node);
+      }
+    }
+    flushNodeIndex();
+    return nodeIndex;
+  }
+
+  /**
+   * Moved nodes are only put back in the node index before the next query or
+   * commit, once however many times they moved, so layouts and drags do not
+   * update the tree for every coordinate they set.
+   */
+  private void flushNodeIndex() {
+    if (nodeIndex != null && !movedIndexNodes.isEmpty()) {
+      for (Node node : movedIndexNodes) {
+        nodeIndex.put(node, node.getX(), node.getY(), node.getSize(), node.getSize());
+      }
+      movedIndexNodes.clear();
+    }
   }
 
-  public void addListener(GraphListener listener) {
-    this.listeners.add(listener);
-  }
+  /**
+   * Segments of moved nodes are only updated before the next query, so drags
+   * do not pay for edge index updates nobody reads.
+   */
+  private SegmentGrid<OverlappedEdges> getEdgeIndex() {
+    flushPendingIndexes();
+    if (edgeIndex == null) {
+      observeNodes();
+      edgeIndex = new SegmentGrid<>();
+      for (int index = 0; index < store.getEdgeCapacity(); index++) {
+        if (store.edgeAt(index) != null) {
+          changedPairs.add(overlappedEdgesIndex.get(index));
+        }
+      }
+    }
 
-  public void removeListener(GraphListener listener) {
-    this.listeners.remove(listener);
+    for (Node node : movedNodes) {
+      int slot = store.indexOfNode(node.getId());
+      for (int edge = store.firstOutcoming(slot); edge != AdjacencyStore.NONE; edge = store.nextOutcoming(edge)) {
+        changedPairs.add(overlappedEdgesIndex.get(edge));
+      }
+      for (int edge = store.firstIncoming(slot); edge != AdjacencyStore.NONE; edge = store.nextIncoming(edge)) {
+        changedPairs.add(overlappedEdgesIndex.get(edge));
+      }
+    }
+    movedNodes.clear();
+
+    for (OverlappedEdges pair : changedPairs) {
+      if (pair.getEdgeCount() > 0) {
+        Node source = store.getNode(pair.getSource());
+        Node target = store.getNode(pair.getTarget());
+        edgeIndex.put(pair, source.getX() + source.getSize() / 2, source.getY() + source.getSize() / 2,
+            target.getX() + target.getSize() / 2, target.getY() + target.getSize() / 2);
+      }
+    }
+    changedPairs.clear();
+    return edgeIndex;
   }
 
-  private void notifyElementsAdded(Object originator, Collection<Node> nodes, Collection<Edge> edges) {
-    if (!nodes.isEmpty() || !edges.isEmpty()) {
-      for (GraphListener listener : this.listeners) {
-        listener.elementsAdded(new GraphEvent(originator, nodes, edges));
+  private void observeNodes() {
+    if (!observingNodes) {
+      observingNodes = true;
+      for (Node node : store.nodes()) {
+        node.addObserver(nodeObserver);
       }
     }
   }
 
-  private void notifyElementsRemoved(Object originator, Collection<Node> nodes, Collection<Edge> edges) {
-    if (!nodes.isEmpty() || !edges.isEmpty()) {
-      for (GraphListener listener : this.listeners) {
-        listener.elementsRemoved(new GraphEvent(originator, nodes, edges));
-      }
+  private void nodeBoundsChanged(Node node) {
+    if (nodeIndex != null) {
+      movedIndexNodes.add(node);
+    }
+    if (edgeIndex != null) {
+      movedNodes.add(node);
     }
   }
 
-  private static class NodeHolder implements Cloneable {
+  public void addListener(GraphListener listener) {
+    this.listeners.add(listener);
+  }
 
-    private Node node;
+  public void removeListener(GraphListener listener) {
+    this.listeners.remove(listener);
+  }
 
-    private Map<String, Edge> incoming = new ConcurrentHashMap<>();
-    private Map<String, Edge> outcoming = new ConcurrentHashMap<>();
+  /**
+   * Starts a batch. Until the matching {@link #commit()}, mutations update the
+   * graph structure right away but index maintenance is deferred and no
+   * listener is notified. Batches may be nested; only the outermost commit
+   * notifies.
+   */
+  public void beginBatch() {
+    beginBatch(null);
+  }
 
-    private NodeHolder() {
-      super();
+  public void beginBatch(Object eventOriginator) {
+    if (batchDepth++ == 0) {
+      this.batchOriginator = eventOriginator;
+      this.batchAddedNodes = new LinkedHashSet<>();
+      this.batchAddedEdges = new LinkedHashSet<>();
+      this.batchRemovedNodes = new LinkedHashSet<>();
+      this.batchRemovedEdges = new LinkedHashSet<>();
     }
+  }
 
-    public NodeHolder(Node node) {
-      super();
-      this.node = node;
+  /**
+   * Ends the current batch. The outermost commit brings the indexes up to date
+   * and fires one event with every element removed by the batch, then one with
+   * every element added. Elements added and removed inside the same batch are
+   * not reported. Both events share the same {@link GraphEvent#getBatch()}, so
+   * history can record the whole batch as a single step.
+   */
+  public void commit() {
+    if (batchDepth == 0) {
+      throw new IllegalStateException("No batch in progress.");
     }
-
-    public void removeEdge(Edge edge) {
-      this.incoming.remove(edge.getId());
-      this.outcoming.remove(edge.getId());
+    if (--batchDepth == 0) {
+      flushPendingIndexes();
+      flushNodeIndex();
+
+      Object originator = this.batchOriginator;
+      Set<Node> addedNodes = this.batchAddedNodes;
+      Set<Edge> addedEdges = this.batchAddedEdges;
+      Set<Node> removedNodes = this.batchRemovedNodes;
+      Set<Edge> removedEdges = this.batchRemovedEdges;
+
+      this.batchOriginator = null;
+      this.batchAddedNodes = null;
+      this.batchAddedEdges = null;
+      this.batchRemovedNodes = null;
+      this.batchRemovedEdges = null;
+
+      Object batch = new Object();
+      fireElementsRemoved(new GraphEvent(originator, removedNodes, removedEdges, batch));
+      fireElementsAdded(new GraphEvent(originator, addedNodes, addedEdges, batch));
     }
+  }
 
-    public void addEdge(Edge edge) {
-      String source = edge.getSource();
-      String target = edge.getTarget();
-      String id = node.getId();
-      if (id.equals(source)) {
-        outcoming.put(edge.getId(), edge);
-      } else if (id.equals(target)) {
-        incoming.put(edge.getId(), edge);
-      }
-    }
+  public boolean isBatchInProgress() {
+    return batchDepth > 0;
+  }
 
-    public Set<Edge> getEdges() {
-      Set<Edge> edges = new HashSet<>(incoming.values());
-      edges.addAll(outcoming.values());
-      return edges;
-    }
+  /**
+   * Runs the mutation inside a batch, committing it even if the mutation
+   * fails.
+   */
+  public void mutate(Consumer<Graph> mutation) {
+    mutate(null, mutation);
+  }
 
-    public Set<Edge> getIncomingEdges() {
-      Set<Edge> edges = new HashSet<>(incoming.values());
-      return edges;
+  public void mutate(Object eventOriginator, Consumer<Graph> mutation) {
+    beginBatch(eventOriginator);
+    try {
+      mutation.accept(this);
+    } finally {
+      commit();
     }
+  }
 
-    public Set<Edge> getOutcomingEdges() {
-      Set<Edge> edges = new HashSet<>(outcoming.values());
-      return edges;
+  private void notifyElementsAdded(Object originator, Collection<Node> nodes, Collection<Edge> edges) {
+    if (isBatchInProgress()) {
+      batchAddedNodes.addAll(nodes);
+      batchAddedEdges.addAll(edges);
+    } else {
+      fireElementsAdded(new GraphEvent(originator, nodes, edges));
     }
+  }
 
-    public Node getNode() {
-      return node;
+  private void notifyElementsRemoved(Object originator, Collection<Node> nodes, Collection<Edge> edges) {
+    if (isBatchInProgress()) {
+      for (Node node : nodes) {
+        if (!batchAddedNodes.remove(node)) {
+          batchRemovedNodes.add(node);
+        }
+      }
+      for (Edge edge : edges) {
+        if (!batchAddedEdges.remove(edge)) {
+          batchRemovedEdges.add(edge);
+        }
+      }
+    } else {
+      fireElementsRemoved(new GraphEvent(originator, nodes, edges));
     }
+  }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    protected Object clone() throws CloneNotSupportedException {
-      NodeHolder clone = new NodeHolder();
-
-      clone.node = (Node) node.clone();
-
-      clone.incoming = (Map<String, Edge>) ((HashMap<String, Edge>) incoming).clone();
-      clone.outcoming = (Map<String, Edge>) ((HashMap<String, Edge>) incoming).clone();
-
-      return clone;
+  private void fireElementsAdded(GraphEvent event) {
+    if (!event.getNodes().isEmpty() || !event.getEdges().isEmpty()) {
+      for (GraphListener listener : this.listeners) {
+        listener.elementsAdded(event);
+      }
     }
+  }
 
+  private void fireElementsRemoved(GraphEvent event) {
+    if (!event.getNodes().isEmpty() || !event.getEdges().isEmpty()) {
+      for (GraphListener listener : this.listeners) {
+        listener.elementsRemoved(event);
+      }
+    }
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public Object clone() throws CloneNotSupportedException {
     Graph clone = new Graph();
     clone.type = type;
     clone.settings = (GraphSettings) settings.clone();
-    clone.edgeIndex = (Map<String, Edge>) ((HashMap<String, Edge>) edgeIndex).clone();
-    clone.nodeIndex = (Map<String, NodeHolder>) ((HashMap<String, NodeHolder>) nodeIndex).clone();
+    clone.store = store.clone();
+    for (int index = 0; index < clone.store.getEdgeCapacity(); index++) {
+      Edge edge = clone.store.edgeAt(index);
+      if (edge != null) {
+        clone.overlappedEdgesIndex.add(index, edge, clone.store.sourceOf(index), clone.store.targetOf(index));
+      }
+    }
     return clone;
   }
 
@@ -434,46 +664,19 @@ public class Graph implements Cloneable {
   }
 
   public Set<Node> getNeighbours(Node node) {
-    NodeHolder nodeHolder = this.nodeIndex.get(node.getId());
-    Set<Edge> edges = nodeHolder.getEdges();
-    return getNeighbours(node, edges);
+    Set<Node> neighbours = store.collectNeighbours(store.indexOfNode(node.getId()), true, true, new HashSet<>());
+    neighbours.remove(node);
+    return neighbours;
   }
 
   public Set<Node> getOutcomingNeighbours(Node node) {
-    NodeHolder nodeHolder = this.nodeIndex.get(node.getId());
-    Set<Edge> edges = nodeHolder.getOutcomingEdges();
-    return getNeighbours(node, edges);
-  }
-
-  private Set<Node> getNeighbours(Node node, Set<Edge> edges) {
-
-    Set<Node> neighbours = new HashSet<>();
-    for (Edge edge : edges) {
-      String source = edge.getSource();
-      String target = edge.getTarget();
-
-      neighbours.add(this.nodeIndex.get(source).node);
-      neighbours.add(this.nodeIndex.get(target).node);
-    }
+    Set<Node> neighbours = store.collectNeighbours(store.indexOfNode(node.getId()), false, true, new HashSet<>());
     neighbours.remove(node);
     return neighbours;
   }
 
   public Rectangle getBoundingBox() {
-    Collection<NodeHolder> holders = nodeIndex.values();
-    if (!holders.isEmpty()) {
-      Iterator<NodeHolder> iterator = holders.iterator();
-
-      Node first = iterator.next().node;
-      Rectangle box = first.getBoundingBox();
-
-      while (iterator.hasNext()) {
-        box.add(iterator.next().node.getBoundingBox());
-      }
-      return box;
-    } else {
-      return null;
-    }
+    return store.getBoundingBox();
   }
 
   public void ungroup(NodeGroup group) {
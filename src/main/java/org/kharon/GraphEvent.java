@@ -7,12 +7,18 @@ public class GraphEvent {
   private Object originator;
   private Collection<Node> nodes;
   private Collection<Edge> edges;
+  private Object batch;
 
   GraphEvent(Object originator, Collection<Node> nodes, Collection<Edge> edges) {
+    this(originator, nodes, edges, null);
+  }
+
+  GraphEvent(Object originator, Collection<Node> nodes, Collection<Edge> edges, Object batch) {
     super();
     this.originator = originator;
     this.nodes = nodes;
     this.edges = edges;
+    this.batch = batch;
   }
 
   public Collection<Node> getNodes() {
@@ -27,4 +33,12 @@ public class GraphEvent {
     return originator;
   }
 
+  /**
+   * Token shared by the events fired by the same {@link Graph#commit()}, or
+   * {@code null} when the event does not come from a batch.
+   */
+  public Object getBatch() {
+    return batch;
+  }
+
 }
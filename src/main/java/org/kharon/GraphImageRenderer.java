@@ -0,0 +1,227 @@
+package org.kharon;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.kharon.renderers.EdgeRenderer;
+import org.kharon.renderers.GraphRenderer;
+import org.kharon.renderers.LabelRenderer;
+import org.kharon.renderers.NodeRenderer;
+import org.kharon.renderers.RenderContext;
+import org.kharon.renderers.Renderers;
+
+/**
+ * Draws a {@link Graph} to an image or a graphics without a {@link GraphPane},
+ * the way the pane draws its idle elements: edges first, then every node
+ * followed by its label. Works in headless environments.
+ * <p>
+ * Each call renders a snapshot of the graph taken on the calling thread and
+ * keeps no state of its own, so once configured a renderer can be shared by
+ * threads rendering different graphs at once, as long as its
+ * {@link Renderers} are thread safe, which the default ones are.
+ */
+public class GraphImageRenderer {
+
+  private final Renderers renderers;
+  private Color background;
+  private Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+  private boolean antialiasing = true;
+
+  public GraphImageRenderer() {
+    this(new Renderers());
+  }
+
+  public GraphImageRenderer(Renderers renderers) {
+    super();
+    this.renderers = renderers;
+  }
+
+  /**
+   * Renders into a new image of the given size.
+   */
+  public BufferedImage render(Graph graph, AffineTransform transform, int width, int height) {
+    BufferedImage image = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+    render(graph, transform, image);
+    return image;
+  }
+
+  /**
+   * Renders over the whole image, cleared to the background first.
+   */
+  public void render(Graph graph, AffineTransform transform, BufferedImage image) {
+    Graphics2D g2d = image.createGraphics();
+    try {
+      if (this.background != null) {
+        g2d.setBackground(this.background);
+        g2d.clearRect(0, 0, image.getWidth(), image.getHeight());
+      } else {
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.setComposite(AlphaComposite.SrcOver);
+      }
+      render(graph, transform, g2d, image.getWidth(), image.getHeight());
+    } finally {
+      g2d.dispose();
+    }
+  }
+
+  /**
+   * Renders over the area from the origin to the given size of the graphics,
+   * leaving what is already there. The stage transform is applied on top of
+   * the transform of the graphics, and elements outside the area are skipped.
+   */
+  public void render(Graph graph, AffineTransform transform, Graphics2D g2d, int width, int height) {
+    GraphSnapshot snapshot = graph.snapshot();
+    AffineTransform stageTx = new AffineTransform(g2d.getTransform());
+    stageTx.concatenate(transform);
+
+    Rectangle2D clipBounds;
+    try {
+      // one extra pixel for antialiasing bleeding over the shape bounds
+      Rectangle area = new Rectangle(-1, -1, width + 2, height + 2);
+      clipBounds = transform.createInverse().createTransformedShape(area).getBounds2D();
+    } catch (NoninvertibleTransformException e) {
+      throw new RuntimeException(e);
+    }
+
+    Graphics2D g = createGraphics(g2d);
+    try {
+      RenderContext renderContext = createRenderContext(graph, snapshot, stageTx);
+      GraphRenderer graphRenderer = this.renderers.getGraphRenderer(snapshot.getType());
+      graphRenderer.render(g, graph);
+
+      for (OverlappedEdges edge : getEdgesInOrder(snapshot)) {
+        drawEdge(g, edge, renderContext, stageTx, clipBounds);
+      }
+      for (Node node : snapshot.getNodes()) {
+        drawNode(g, node, renderContext, stageTx, clipBounds);
+      }
+    } finally {
+      g.dispose();
+    }
+  }
+
+  /**
+   * Copy of the graphics set up for drawing shapes, which are drawn with the
+   * stage transform on their own.
+   */
+  Graphics2D createGraphics(Graphics2D g2d) {
+    Graphics2D g = (Graphics2D) g2d.create();
+    g.setTransform(new AffineTransform());
+    g.setFont(this.font);
+    if (this.antialiasing) {
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+    return g;
+  }
+
+  RenderContext createRenderContext(Graph graph, GraphSnapshot snapshot, AffineTransform stageTx) {
+    RenderContext renderContext = new RenderContext(null, graph, snapshot);
+    double scale = Math.sqrt(Math.abs(stageTx.getDeterminant()));
+    LevelOfDetail levelOfDetail = snapshot.getSettings().getLevelOfDetail(getMeanNodeSize(snapshot) * scale);
+    renderContext.setLevelOfDetail(levelOfDetail == LevelOfDetail.FULL ? LevelOfDetail.FULL : LevelOfDetail.SHAPES);
+    return renderContext;
+  }
+
+  /**
+   * Edges in a stable order, as overlapping translucent edges blend
+   * differently.
+   */
+  static List<OverlappedEdges> getEdgesInOrder(GraphSnapshot snapshot) {
+    List<OverlappedEdges> edges = new ArrayList<>(snapshot.getNodesOverlappedEdges(snapshot.getNodeIds()));
+    edges.sort(Comparator.comparing(Edge::getId));
+    return edges;
+  }
+
+  void drawEdge(Graphics2D g2d, Edge edge, RenderContext renderContext, AffineTransform stageTx,
+      Rectangle2D clipBounds) {
+    EdgeRenderer renderer = this.renderers.getEdgeRenderer(edge.getType());
+    draw(g2d, renderer.render(g2d, edge, renderContext), stageTx, clipBounds);
+  }
+
+  void drawNode(Graphics2D g2d, Node node, RenderContext renderContext, AffineTransform stageTx,
+      Rectangle2D clipBounds) {
+    NodeRenderer renderer = this.renderers.getNodeRenderer(node.getType());
+    draw(g2d, renderer.render(g2d, node, renderContext), stageTx, clipBounds);
+    LabelRenderer labelRenderer = this.renderers.getLabelRenderer(node.getLabelType());
+    draw(g2d, labelRenderer.render(g2d, node, renderContext), stageTx, clipBounds);
+  }
+
+  /**
+   * Stage transform showing the whole graph centered in an area of the given
+   * size, with a margin in pixels around it, at zoom 1 at most.
+   */
+  public static AffineTransform fit(Graph graph, int width, int height, int margin) {
+    Rectangle bounds = graph.getBoundingBox();
+    AffineTransform transform = new AffineTransform();
+    if (bounds == null || bounds.isEmpty()) {
+      return transform;
+    }
+    double scale = Math.min(1d, Math.min((width - 2d * margin) / bounds.getWidth(),
+        (height - 2d * margin) / bounds.getHeight()));
+    scale = Math.max(scale, Double.MIN_VALUE);
+    transform.translate(width / 2d, height / 2d);
+    transform.scale(scale, scale);
+    transform.translate(-bounds.getCenterX(), -bounds.getCenterY());
+    return transform;
+  }
+
+  private static void draw(Graphics2D g2d, GraphShape graphShape, AffineTransform tx, Rectangle2D clipBounds) {
+    if (graphShape != null && graphShape.getShape().intersects(clipBounds)) {
+      graphShape.draw(g2d, tx);
+    }
+  }
+
+  private static double getMeanNodeSize(GraphSnapshot snapshot) {
+    long total = 0;
+    int count = 0;
+    for (Node node : snapshot.getNodes()) {
+      total += node.getSize();
+      count++;
+    }
+    return count > 0 ? (double) total / count : 0d;
+  }
+
+  public Renderers getRenderers() {
+    return renderers;
+  }
+
+  public Color getBackground() {
+    return background;
+  }
+
+  /**
+   * Color images are cleared to, or null for transparent images.
+   */
+  public void setBackground(Color background) {
+    this.background = background;
+  }
+
+  public Font getFont() {
+    return font;
+  }
+
+  public void setFont(Font font) {
+    this.font = font;
+  }
+
+  public boolean isAntialiasing() {
+    return antialiasing;
+  }
+
+  public void setAntialiasing(boolean antialiasing) {
+    this.antialiasing = antialiasing;
+  }
+
+}
@@ -1,12 +1,17 @@
 package org.kharon;
 
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.event.ComponentEvent;
@@ -29,20 +34,32 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.swing.JComponent;
 import javax.swing.SwingUtilities;
 
+import org.kharon.FrameRenderer.Frame;
+import org.kharon.FrameRenderer.FrameRequest;
+import org.kharon.FrameRenderer.FrameView;
 import org.kharon.history.GraphAction;
 import org.kharon.history.GraphHistory;
+import org.kharon.layout.AbstractHistoryEnabledLayout;
 import org.kharon.layout.HistoryEnabledLayout;
+import org.kharon.layout.LayoutListener;
+import org.kharon.layout.LayoutRunner;
+import org.kharon.layout.LayoutTask;
 import org.kharon.renderers.EdgeRenderer;
 import org.kharon.renderers.GraphRenderer;
 import org.kharon.renderers.LabelRenderer;
@@ -73,6 +90,7 @@ public class GraphPane extends JComponent
 
   private boolean historyEnabled = false;
   private GraphHistory history;
+  private LayoutRunner layoutRunner;
 
   private boolean showBoundingBoxes = false;
 
@@ -81,6 +99,11 @@ public class GraphPane extends JComponent
   private static final double MIN_ZOOM = 1d / 4d;
   private static final double MAX_ZOOM = 5d;
 
+  private static final long TILE_FRAME_BUDGET_NANOS = 20L * 1000L * 1000L;
+  // idle edges below idle nodes, each in the order they were rendered
+  private static final Comparator<IdleShape> IDLE_SHAPE_ORDER = Comparator
+      .comparing((IdleShape idleShape) -> !idleShape.edge).thenComparingInt(idleShape -> idleShape.order);
+
   private boolean isDragging = false;
   private Node nodeUnderMouse = null;
   private Edge edgeUnderMouse = null;
@@ -96,21 +119,58 @@ public class GraphPane extends JComponent
 
   private Set<String> selectedNodes = new HashSet<>();
   private Set<String> selectedEdges = new HashSet<>();
+  // Pairs of the selected edges, looked up again once the selection or the
+  // graph changes.
+  private Set<OverlappedEdges> selectedPairs;
+  private long selectedPairsVersion;
   private Map<String, NodeBoundingBox> boxesIndex = new HashMap<>();
+  private double boxMargin;
 
   private Set<String> idleNodes = new HashSet<>();
   private Set<String> liveNodes = new HashSet<>();
+  // Edges touching a live node, collected when the live nodes change.
+  private List<Edge> liveEdges = Collections.emptyList();
 
   private Double selectionBox;
 
-  private BufferedImage idleBuffer;
-  private Graphics2D idleGraphics;
+  private TileCache tileCache = new TileCache(TileCache.DEFAULT_MEMORY_BUDGET);
+  private PaintBuffer liveBuffer = new PaintBuffer();
+  private PaintBuffer idleBuffer = new PaintBuffer();
+  private boolean acceleratedBuffers = false;
+
+  private static final int DENSITY_CELL_SIZE = 4;
+  private LevelOfDetail levelOfDetail = LevelOfDetail.FULL;
 
-  private int lastBufferX;
-  private int lastBufferY;
+  private ShapeCache shapeCache = new ShapeCache();
+  private LevelOfDetail idleShapesDetail;
+  private double meanNodeSize = -1;
+  // Idle shapes of every idle node and edge, also found by area in the index.
+  private Map<Object, List<IdleShape>> idleShapes;
+  private QuadTree<IdleShape> idleShapeIndex;
+  private int idleShapeCount;
+  private Color tileBackground;
 
   private boolean isPrinting;
 
+  private FrameRenderer frameRenderer;
+  private FrameView frameView;
+  private long contentVersion;
+
+  private static final int MIN_BAND_HEIGHT = 32;
+  private ForkJoinPool paintPool;
+
+  private static final Color METRICS_OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+  private RenderMetrics renderMetrics = RenderMetrics.NONE;
+  private boolean renderMetricsOverlay;
+
+  // Pixels around repainted areas, for strokes and antialiasing.
+  private static final int REPAINT_MARGIN = 3;
+
+  private static final double SHIFT_TOLERANCE = 1e-6;
+  private AffineTransform idleBufferTransform;
+  private Color idleBufferBackground;
+  private long idleBufferVersion;
+
   public GraphPane(Graph graph) {
     super();
     this.graph = graph;
@@ -130,11 +190,30 @@ public class GraphPane extends JComponent
   protected void paintComponent(Graphics g) {
     Graphics2D g2d = (Graphics2D) g;
     paintGraph(g, this.transform, g2d.getClipBounds());
+    if (this.renderMetricsOverlay && this.renderMetrics instanceof RenderStatistics) {
+      paintRenderMetrics(g2d, (RenderStatistics) this.renderMetrics);
+    }
+  }
+
+  @Override
+  public void repaint(long tm, int x, int y, int width, int height) {
+    // also called by the component constructors, before the metrics are set
+    if (this.renderMetrics != null) {
+      this.renderMetrics.count(RenderCounter.REPAINT_REQUESTS, 1);
+    }
+    super.repaint(tm, x, y, width, height);
   }
 
   private void paintGraph(Graphics g, AffineTransform tx, Rectangle2D clipBounds) {
     Graphics2D g2d = (Graphics2D) g;
 
+    RenderMetrics metrics = this.renderMetrics;
+    metrics.frameStarted();
+    long frameStart = System.nanoTime();
+    long hits = this.shapeCache.getHitCount();
+    long misses = this.shapeCache.getMissCount();
+    long allocations = this.liveBuffer.getAllocationCount() + this.idleBuffer.getAllocationCount();
+
     AffineTransform currentTransform = g2d.getTransform();
     AffineTransform graphTransformation = (AffineTransform) currentTransform.clone();
     graphTransformation.concatenate(tx);
@@ -156,49 +235,109 @@ public class GraphPane extends JComponent
     int imageWidth = this.getWidth() + Math.abs(originX);
     int imageHeight = this.getHeight() + Math.abs(originY);
 
-    BufferedImage liveBuffer = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D liveGraphics = liveBuffer.createGraphics();
-    liveGraphics.setRenderingHints(rh);
-    
-    //resetBuffer from other thread could cause NPE because it nulls attributes below
-    BufferedImage idleBuffer = this.idleBuffer;
-    Graphics2D idleGraphics = this.idleGraphics;
-
-    boolean paintIdleNodes = idleBuffer == null || idleBuffer.getHeight() != imageHeight
-        || idleBuffer.getWidth() != imageWidth || this.lastBufferX != originX || this.lastBufferY != originY;
-    if (paintIdleNodes) {
-      idleBuffer = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
-      idleGraphics = idleBuffer.createGraphics();
-      idleGraphics.setRenderingHints(rh);
+    boolean paintTiles = !isPrinting && this.tileCache.getMemoryBudget() > 0
+        && (currentTransform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE)) == 0;
+    double screenScale = getZoom() * Math.sqrt(Math.abs(currentTransform.getDeterminant()));
+    this.levelOfDetail = graph.getSettings().getLevelOfDetail(getMeanNodeSize() * screenScale);
+    renderContext.setLevelOfDetail(levelOfDetail == LevelOfDetail.FULL ? LevelOfDetail.FULL : LevelOfDetail.SHAPES);
 
-      idleGraphics.setBackground(getBackground());
-      idleGraphics.clearRect(0, 0, imageWidth, imageHeight);
-
-      this.lastBufferX = originX;
-      this.lastBufferY = originY;
-    }
+    GraphicsConfiguration bufferConfiguration = acceleratedBuffers && !isPrinting ? getGraphicsConfiguration() : null;
+    Graphics2D liveGraphics = this.liveBuffer.begin(bufferConfiguration, imageWidth, imageHeight, null);
+    liveGraphics.setRenderingHints(rh);
 
     GraphRenderer graphRenderer = renderers.getGraphRenderer(this.graph.getType());
     graphRenderer.render(liveGraphics, this.graph);
 
-    Collection<Edge> liveEdges = new ArrayList<>(graph.getNodesOverlappedEdges(this.liveNodes));
-    paintEdges(liveGraphics, graphTransformation, clipBounds, liveEdges);
+    paintEdges(liveGraphics, graphTransformation, clipBounds, this.liveEdges);
+    long mark = phaseCompleted(RenderPhase.LIVE_EDGES, frameStart);
     paintNodes(liveGraphics, graphTransformation, currentTransform, clipBounds, graph.getNodes(this.liveNodes));
-    
-    HashSet<Edge> overlappedEdges = new HashSet<>(liveEdges);
+    mark = phaseCompleted(RenderPhase.LIVE_NODES, mark);
+
+    if (this.frameRenderer != null && !isPrinting) {
+      FrameView view = new FrameView(graphTransformation, imageWidth, imageHeight, getBackground(), g2d.getFont(),
+          renderContext.getLevelOfDetail(), this.contentVersion);
+      if (!view.equals(this.frameView)) {
+        this.frameView = view;
+        this.frameRenderer.request(createFrameRequest(view, rh));
+      }
+      mark = phaseCompleted(RenderPhase.IDLE_LAYER, mark);
+      this.frameRenderer.drawTo(g2d, graphTransformation, originX, originY);
+      mark = phaseCompleted(RenderPhase.BLIT, mark);
+    } else if (paintTiles) {
+      if (!Objects.equals(this.tileBackground, getBackground())) {
+        this.tileBackground = getBackground();
+        this.tileCache.clear();
+      }
+      // dots and density are drawn straight from the spatial indexes of the
+      // graph, so only the tiers with shapes render the whole idle layer
+      boolean shapes = this.levelOfDetail == LevelOfDetail.FULL || this.levelOfDetail == LevelOfDetail.SHAPES;
+      if (shapes && (this.idleShapes == null || this.idleShapesDetail != renderContext.getLevelOfDetail())) {
+        // tiles only depend on the zoom, so they survive a change of detail
+        createIdleShapes(rh, getIdleEdges(), graph.getNodes(this.idleNodes));
+        this.idleShapesDetail = renderContext.getLevelOfDetail();
+      } else if (!shapes && this.idleShapes == null) {
+        // the boxes of idle nodes are out of date, and no idle node is hovered
+        // until shapes are rendered again
+        this.boxesIndex.keySet().retainAll(this.liveNodes);
+        this.idleShapes = Collections.emptyMap();
+        this.idleShapesDetail = null;
+      }
+      paintTiles(g2d, rh);
+      mark = phaseCompleted(RenderPhase.IDLE_LAYER, mark);
+    } else {
+      // Without tiles, for lack of a memory budget or for a device transform
+      // that rotates or shears them, the idle layer is one buffer the size of
+      // the pane: panning shifts it and only paints the strips it exposes.
+      Graphics2D idleGraphics = null;
+      Point shift = getIdleBufferShift(graphTransformation, isPrinting);
+      if (shift != null) {
+        idleGraphics = this.idleBuffer.beginShifted(bufferConfiguration, imageWidth, imageHeight, getBackground(),
+            shift.x, shift.y);
+      }
 
-    Collection<Edge> idleEdges = new ArrayList<>(graph.getNodesOverlappedEdges(this.idleNodes));
-    overlappedEdges.addAll(idleEdges);
-    if (paintIdleNodes) {
-      idleEdges.removeAll(liveEdges);
-      paintEdges(idleGraphics, graphTransformation, clipBounds, idleEdges);
-      paintNodes(idleGraphics, graphTransformation, currentTransform, clipBounds, graph.getNodes(this.idleNodes));
-    }
+      boolean shifted = idleGraphics != null;
+      if (shifted) {
+        idleGraphics.setRenderingHints(rh);
+        List<Rectangle> strips = PaintBuffer.getExposedStrips(imageWidth, imageHeight, shift.x, shift.y);
+        // a buffer reused as it is, as during a node drag, needs no idle edges
+        Collection<Edge> idleEdges = strips.isEmpty() ? Collections.emptyList() : getIdleEdges();
+        for (Rectangle strip : strips) {
+          Graphics2D stripGraphics = (Graphics2D) idleGraphics.create();
+          stripGraphics.clipRect(strip.x, strip.y, strip.width, strip.height);
+          paintIdleLayer(stripGraphics, graphTransformation, invert(graphTransformation, strip), idleEdges);
+          stripGraphics.dispose();
+        }
+      } else {
+        idleGraphics = this.idleBuffer.begin(bufferConfiguration, imageWidth, imageHeight, getBackground());
+        idleGraphics.setRenderingHints(rh);
+        Collection<Edge> idleEdges = getIdleEdges();
+        if (this.paintPool != null) {
+          List<GraphShape> shapes = collectIdleShapes(idleGraphics, clipBounds, graphTransformation, idleEdges);
+          paintBands(idleGraphics, graphTransformation, shapes, imageWidth, imageHeight, getBackground(), rh);
+        } else {
+          paintIdleLayer(idleGraphics, graphTransformation, clipBounds, idleEdges);
+        }
+      }
+      idleGraphics.dispose();
+
+      // Only a buffer painted whole can be shifted on the next paint.
+      boolean complete = shifted
+          || clipBounds.contains(invert(graphTransformation, new Rectangle(0, 0, imageWidth, imageHeight)));
+      this.idleBufferTransform = complete && !isPrinting ? graphTransformation : null;
+      this.idleBufferBackground = getBackground();
+      this.idleBufferVersion = this.contentVersion;
+      mark = phaseCompleted(RenderPhase.IDLE_LAYER, mark);
 
-    g2d.drawImage(idleBuffer, originX, originY, null);
+      if (!this.idleBuffer.drawTo(g2d, originX, originY)) {
+        repaint();
+      }
+      mark = phaseCompleted(RenderPhase.BLIT, mark);
+    }
     
-    Set<String> nodesOfSelectedEdges = paintSelectedEdges(liveGraphics, graphTransformation, clipBounds, overlappedEdges);
+    Set<String> nodesOfSelectedEdges = paintSelectedEdges(liveGraphics, graphTransformation, clipBounds,
+        getHighlightedEdgeCandidates());
     paintNodes(liveGraphics, graphTransformation, currentTransform, clipBounds, graph.getNodes(nodesOfSelectedEdges));
+    mark = phaseCompleted(RenderPhase.SELECTED_EDGES, mark);
 
     Node hoveredNode = getHoveredNode();
     if (hoveredNode != null && !isPrinting) {
@@ -210,6 +349,7 @@ public class GraphPane extends JComponent
         paintNodes(liveGraphics, graphTransformation, currentTransform, clipBounds, Arrays.asList(hoveredNode));
       }
     }
+    mark = phaseCompleted(RenderPhase.HOVER, mark);
 
     if (!isPrinting) {
       paintSelections(liveGraphics, graphTransformation, clipBounds);
@@ -218,6 +358,7 @@ public class GraphPane extends JComponent
     if (this.selectionBox != null && !isPrinting) {
       paintSelectionBox(liveGraphics, graphTransformation);
     }
+    mark = phaseCompleted(RenderPhase.SELECTIONS, mark);
 
     Color color = liveGraphics.getColor();
     liveGraphics.setColor(Color.BLUE);
@@ -226,16 +367,701 @@ public class GraphPane extends JComponent
     liveGraphics.fill(new Rectangle2D.Double(-2, -2, 4, 4));
 
     liveGraphics.setColor(color);
-    g2d.drawImage(liveBuffer, originX, originY, null);
-
     liveGraphics.dispose();
+
+    if (!this.liveBuffer.drawTo(g2d, originX, originY)) {
+      repaint();
+    }
+    long frameEnd = phaseCompleted(RenderPhase.BLIT, mark);
+
+    metrics.count(RenderCounter.SHAPE_CACHE_HITS, this.shapeCache.getHitCount() - hits);
+    metrics.count(RenderCounter.SHAPE_CACHE_MISSES, this.shapeCache.getMissCount() - misses);
+    metrics.count(RenderCounter.BUFFER_ALLOCATIONS,
+        this.liveBuffer.getAllocationCount() + this.idleBuffer.getAllocationCount() - allocations);
+    metrics.frameCompleted(frameEnd - frameStart);
+  }
+
+  /**
+   * Reports the time since {@code start} as spent in the phase.
+   *
+   * @return the end of the phase.
+   */
+  private long phaseCompleted(RenderPhase phase, long start) {
+    long now = System.nanoTime();
+    this.renderMetrics.phaseCompleted(phase, now - start);
+    return now;
+  }
+
+  private void paintRenderMetrics(Graphics2D g2d, RenderStatistics statistics) {
+    List<String> lines = new ArrayList<>();
+    lines.add(String.format(Locale.ROOT, "%.1f fps", statistics.getFramesPerSecond()));
+    lines.add(String.format(Locale.ROOT, "frame %.2f / %.2f ms", toMillis(statistics.getFrameTime(50)),
+        toMillis(statistics.getFrameTime(95))));
+    for (RenderPhase phase : RenderPhase.values()) {
+      lines.add(String.format(Locale.ROOT, "%s %.2f / %.2f ms", phase.name().toLowerCase(Locale.ROOT).replace('_', ' '),
+          toMillis(statistics.getPhaseTime(phase, 50)), toMillis(statistics.getPhaseTime(phase, 95))));
+    }
+
+    FontMetrics fontMetrics = g2d.getFontMetrics();
+    int width = 0;
+    for (String line : lines) {
+      width = Math.max(width, fontMetrics.stringWidth(line));
+    }
+    int lineHeight = fontMetrics.getHeight();
+    Color color = g2d.getColor();
+    g2d.setColor(METRICS_OVERLAY_BACKGROUND);
+    g2d.fillRect(0, 0, width + 8, lines.size() * lineHeight + 8);
+    g2d.setColor(Color.WHITE);
+    for (int line = 0; line < lines.size(); line++) {
+      g2d.drawString(lines.get(line), 4, 4 + line * lineHeight + fontMetrics.getAscent());
+    }
+    g2d.setColor(color);
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1e6d;
+  }
+
+  /**
+   * Edges of the idle layer: the edges of idle nodes that do not touch a live
+   * node.
+   */
+  private Collection<Edge> getIdleEdges() {
+    Collection<Edge> idleEdges = new ArrayList<>(graph.getNodesOverlappedEdges(this.idleNodes));
+    if (!this.liveEdges.isEmpty()) {
+      Set<Edge> liveEdgeSet = new HashSet<>(this.liveEdges);
+      idleEdges.removeIf(liveEdgeSet::contains);
+    }
+    return idleEdges;
+  }
+
+  /**
+   * Edges that may be painted as selected or hovered: the pairs of the
+   * selected edges and the hovered pair, if still in the graph.
+   */
+  private Collection<? extends Edge> getHighlightedEdgeCandidates() {
+    Edge edge = this.edgeUnderMouse;
+    boolean hovered = edge != null && graph.getOverlappedEdges(edge.getId()) == edge;
+    if (this.selectedEdges.isEmpty()) {
+      return hovered ? Collections.singletonList(edge) : Collections.emptyList();
+    }
+    Set<OverlappedEdges> selected = getSelectedPairs();
+    if (!hovered || selected.contains(edge)) {
+      return selected;
+    }
+    List<Edge> candidates = new ArrayList<>(selected);
+    candidates.add(edge);
+    return candidates;
+  }
+
+  /**
+   * Pairs of overlapped edges the selected ids stand for, found through the
+   * edge indexes of the graph.
+   */
+  private Set<OverlappedEdges> getSelectedPairs() {
+    if (this.selectedPairs == null || this.selectedPairsVersion != this.graph.getVersion()) {
+      Set<OverlappedEdges> pairs = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (String id : this.selectedEdges) {
+        OverlappedEdges pair = this.graph.getOverlappedEdges(id);
+        if (pair != null) {
+          pairs.add(pair);
+        }
+      }
+      this.selectedPairs = pairs;
+      this.selectedPairsVersion = this.graph.getVersion();
+    }
+    return this.selectedPairs;
+  }
+
+  private void paintIdleLayer(Graphics2D g2d, AffineTransform stageTx, Rectangle2D clipBounds,
+      Collection<Edge> idleEdges) {
+    for (GraphShape graphShape : collectIdleShapes(g2d, clipBounds, stageTx, idleEdges)) {
+      graphShape.draw(g2d, stageTx);
+    }
+  }
+
+  private List<GraphShape> collectIdleShapes(Graphics2D g2d, Rectangle2D clipBounds, AffineTransform stageTx,
+      Collection<Edge> idleEdges) {
+    // One extra pixel for antialiasing bleeding over the shape bounds.
+    double margin = 1d / Math.sqrt(Math.abs(stageTx.getDeterminant()));
+    clipBounds = new Rectangle2D.Double(clipBounds.getX() - margin, clipBounds.getY() - margin,
+        clipBounds.getWidth() + 2 * margin, clipBounds.getHeight() + 2 * margin);
+
+    List<GraphShape> shapes = new ArrayList<>();
+    collectEdgeShapes(g2d, clipBounds, idleEdges, shapes);
+    List<Node> visibleNodes = getNodesNear(clipBounds);
+    visibleNodes.removeIf(node -> !this.idleNodes.contains(node.getId()));
+    collectNodeShapes(g2d, clipBounds, visibleNodes, shapes);
+    return shapes;
+  }
+
+  /**
+   * Rasterizes the shapes on the paint pool, in horizontal bands of their own
+   * images that are copied to the target once all are done. Shapes are built on
+   * the calling thread; bands only draw them, in the same order, so the result
+   * does not differ from drawing them on the target.
+   */
+  private void paintBands(Graphics2D g2d, AffineTransform stageTx, List<GraphShape> shapes, int width, int height,
+      Color background, RenderingHints rh) {
+    int bandCount = Math.max(1, Math.min(2 * this.paintPool.getParallelism(), height / MIN_BAND_HEIGHT));
+    int bandHeight = (height + bandCount - 1) / bandCount;
+
+    List<List<GraphShape>> bandShapes = new ArrayList<>(bandCount);
+    for (int band = 0; band < bandCount; band++) {
+      bandShapes.add(new ArrayList<>());
+    }
+    for (GraphShape graphShape : shapes) {
+      Rectangle2D bounds = stageTx.createTransformedShape(graphShape.getShape().getBounds2D()).getBounds2D();
+      int first = Math.max(0, (int) Math.floor((bounds.getMinY() - 1) / bandHeight));
+      int last = Math.min(bandCount - 1, (int) Math.floor((bounds.getMaxY() + 1) / bandHeight));
+      for (int band = first; band <= last; band++) {
+        bandShapes.get(band).add(graphShape);
+      }
+    }
+
+    List<ForkJoinTask<BufferedImage>> tasks = new ArrayList<>(bandCount);
+    this.renderMetrics.count(RenderCounter.BUFFER_ALLOCATIONS, bandCount);
+    for (int band = 0; band < bandCount; band++) {
+      int top = band * bandHeight;
+      int bottom = Math.min(height, top + bandHeight);
+      List<GraphShape> visible = bandShapes.get(band);
+      tasks.add(this.paintPool.submit(() -> {
+        BufferedImage image = new BufferedImage(width, Math.max(1, bottom - top), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D bandGraphics = image.createGraphics();
+        if (background != null) {
+          bandGraphics.setBackground(background);
+          bandGraphics.clearRect(0, 0, width, bottom - top);
+        }
+        bandGraphics.setRenderingHints(rh);
+        bandGraphics.translate(0, -top);
+        for (GraphShape graphShape : visible) {
+          graphShape.draw(bandGraphics, stageTx);
+        }
+        bandGraphics.dispose();
+        return image;
+      }));
+    }
+
+    Composite composite = g2d.getComposite();
+    g2d.setComposite(AlphaComposite.Src);
+    for (int band = 0; band < bandCount; band++) {
+      g2d.drawImage(tasks.get(band).join(), 0, band * bandHeight, null);
+    }
+    g2d.setComposite(composite);
+  }
+
+  /**
+   * Pixels the idle buffer has to be moved by to match the given stage
+   * transform, or null if it has to be painted again: when it changed other
+   * than by a whole pixel translation, or when its content did.
+   */
+  private Point getIdleBufferShift(AffineTransform stageTx, boolean isPrinting) {
+    AffineTransform previous = this.idleBufferTransform;
+    if (previous == null || isPrinting || this.idleBufferVersion != this.contentVersion
+        || !Objects.equals(this.idleBufferBackground, getBackground()) || previous.getScaleX() != stageTx.getScaleX()
+        || previous.getScaleY() != stageTx.getScaleY() || previous.getShearX() != stageTx.getShearX()
+        || previous.getShearY() != stageTx.getShearY()) {
+      return null;
+    }
+    double dx = stageTx.getTranslateX() - previous.getTranslateX();
+    double dy = stageTx.getTranslateY() - previous.getTranslateY();
+    long shiftX = Math.round(dx);
+    long shiftY = Math.round(dy);
+    if (Math.abs(dx - shiftX) > SHIFT_TOLERANCE || Math.abs(dy - shiftY) > SHIFT_TOLERANCE
+        || Math.abs(shiftX) > getWidth() || Math.abs(shiftY) > getHeight()) {
+      return null;
+    }
+    return new Point((int) shiftX, (int) shiftY);
+  }
+
+  private static Rectangle2D invert(AffineTransform tx, Rectangle area) {
+    try {
+      return tx.createInverse().createTransformedShape(area).getBounds2D();
+    } catch (NoninvertibleTransformException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Draws the idle layer from the tile pyramid. Tiles are rendered at the exact
+   * zoom and drawn unscaled, so they look the same as an untiled paint, and
+   * panning only renders the tiles it exposes. Missing tiles are rendered, as
+   * many at a time as the paint pool has threads, until the frame budget runs
+   * out; after that, tiles that can be covered by tiles of another zoom are
+   * drawn scaled from them until they are rendered on a later paint.
+   */
+  private void paintTiles(Graphics2D g2d, RenderingHints rh) {
+    AffineTransform deviceTransform = g2d.getTransform();
+    double deviceScale = deviceTransform.getScaleX();
+    double zoom = getZoom() * deviceScale;
+    int offsetX = (int) Math.floor(deviceTransform.getTranslateX() + deviceScale * getTranslateX());
+    int offsetY = (int) Math.floor(deviceTransform.getTranslateY() + deviceScale * getTranslateY());
+
+    Rectangle clip = g2d.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    clip = deviceTransform.createTransformedShape(clip).getBounds();
+
+    int firstX = Math.floorDiv(clip.x - offsetX, TileCache.TILE_SIZE);
+    int lastX = Math.floorDiv(clip.x + clip.width - 1 - offsetX, TileCache.TILE_SIZE);
+    int firstY = Math.floorDiv(clip.y - offsetY, TileCache.TILE_SIZE);
+    int lastY = Math.floorDiv(clip.y + clip.height - 1 - offsetY, TileCache.TILE_SIZE);
+
+    Graphics2D deviceGraphics = (Graphics2D) g2d.create();
+    deviceGraphics.setTransform(new AffineTransform());
+    deviceGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+    List<Point> missing = new ArrayList<>();
+    for (int tileY = firstY; tileY <= lastY; tileY++) {
+      for (int tileX = firstX; tileX <= lastX; tileX++) {
+        BufferedImage tile = this.tileCache.get(zoom, tileX, tileY);
+        if (tile == null) {
+          missing.add(new Point(tileX, tileY));
+        } else {
+          drawTile(deviceGraphics, tile, getTileBounds(1d, tileX, tileY, offsetX, offsetY));
+        }
+      }
+    }
+
+    // with a paint pool, missing tiles are rendered as many at a time as it
+    // has threads
+    int batchSize = this.paintPool != null ? this.paintPool.getParallelism() : 1;
+    long deadline = System.nanoTime() + TILE_FRAME_BUDGET_NANOS;
+    boolean pending = false;
+    List<Point> batch = new ArrayList<>(batchSize);
+    for (Point tile : missing) {
+      Rectangle bounds = getTileBounds(1d, tile.x, tile.y, offsetX, offsetY);
+      if (System.nanoTime() > deadline && paintPlaceholder(deviceGraphics, zoom, bounds, offsetX, offsetY)) {
+        pending = true;
+        continue;
+      }
+      batch.add(tile);
+      if (batch.size() == batchSize) {
+        renderTiles(deviceGraphics, rh, zoom, batch, offsetX, offsetY);
+        batch.clear();
+      }
+    }
+    renderTiles(deviceGraphics, rh, zoom, batch, offsetX, offsetY);
+    deviceGraphics.dispose();
+
+    if (pending) {
+      repaint();
+    }
+  }
+
+  /**
+   * Renders the tiles, on the paint pool if there is more than one, then caches
+   * and draws them. What every tile shows is gathered here first, so the pool
+   * never queries the spatial indexes, which update themselves when queried.
+   */
+  private void renderTiles(Graphics2D g2d, RenderingHints rh, double level, List<Point> tiles,
+      int offsetX, int offsetY) {
+    LevelOfDetail detail = this.levelOfDetail;
+    Color background = this.tileBackground;
+    List<BufferedImage> images = new ArrayList<>(tiles.size());
+    if (tiles.size() == 1) {
+      images.add(renderTile(rh, background, gatherTile(level, tiles.get(0).x, tiles.get(0).y, detail)));
+    } else if (tiles.size() > 1) {
+      List<ForkJoinTask<BufferedImage>> tasks = new ArrayList<>(tiles.size());
+      for (Point tile : tiles) {
+        TileContent content = gatherTile(level, tile.x, tile.y, detail);
+        tasks.add(this.paintPool.submit(() -> renderTile(rh, background, content)));
+      }
+      for (ForkJoinTask<BufferedImage> task : tasks) {
+        images.add(task.join());
+      }
+    }
+    this.renderMetrics.count(RenderCounter.BUFFER_ALLOCATIONS, images.size());
+    for (int i = 0; i < images.size(); i++) {
+      Point tile = tiles.get(i);
+      this.tileCache.put(level, tile.x, tile.y, images.get(i));
+      drawTile(g2d, images.get(i), getTileBounds(1d, tile.x, tile.y, offsetX, offsetY));
+    }
+  }
+
+  /**
+   * Draws the tiles of the nearest other zoom covering the bounds of a missing
+   * tile, scaled to the zoom.
+   *
+   * @return false if no level has all the tiles needed.
+   */
+  private boolean paintPlaceholder(Graphics2D g2d, double zoom, Rectangle bounds, int offsetX, int offsetY) {
+    for (double neighbour : this.tileCache.getNeighbourLevels(zoom)) {
+      double ratio = zoom / neighbour;
+      double tileSize = TileCache.TILE_SIZE * ratio;
+      int firstX = (int) Math.floor((bounds.x - offsetX) / tileSize);
+      int lastX = (int) Math.floor((bounds.x + bounds.width - 1 - offsetX) / tileSize);
+      int firstY = (int) Math.floor((bounds.y - offsetY) / tileSize);
+      int lastY = (int) Math.floor((bounds.y + bounds.height - 1 - offsetY) / tileSize);
+
+      List<BufferedImage> covering = new ArrayList<>();
+      for (int y = firstY; y <= lastY && covering != null; y++) {
+        for (int x = firstX; x <= lastX; x++) {
+          BufferedImage tile = this.tileCache.peek(neighbour, x, y);
+          if (tile == null) {
+            covering = null;
+            break;
+          }
+          covering.add(tile);
+        }
+      }
+
+      if (covering != null) {
+        Graphics2D clipped = (Graphics2D) g2d.create();
+        clipped.clipRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        Iterator<BufferedImage> tiles = covering.iterator();
+        for (int y = firstY; y <= lastY; y++) {
+          for (int x = firstX; x <= lastX; x++) {
+            drawTile(clipped, tiles.next(), getTileBounds(ratio, x, y, offsetX, offsetY));
+          }
+        }
+        clipped.dispose();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Device pixels a tile covers once its level is scaled to the zoom by the
+   * ratio. Neighbouring tiles share their edges, so no seam shows between them.
+   */
+  private static Rectangle getTileBounds(double ratio, int tileX, int tileY, int offsetX, int offsetY) {
+    int x = offsetX + (int) Math.floor(tileX * TileCache.TILE_SIZE * ratio);
+    int y = offsetY + (int) Math.floor(tileY * TileCache.TILE_SIZE * ratio);
+    int right = offsetX + (int) Math.floor((tileX + 1) * TileCache.TILE_SIZE * ratio);
+    int bottom = offsetY + (int) Math.floor((tileY + 1) * TileCache.TILE_SIZE * ratio);
+    return new Rectangle(x, y, right - x, bottom - y);
+  }
+
+  private static void drawTile(Graphics2D g2d, BufferedImage tile, Rectangle bounds) {
+    if (bounds.width == tile.getWidth() && bounds.height == tile.getHeight()) {
+      g2d.drawImage(tile, bounds.x, bounds.y, null);
+    } else {
+      g2d.drawImage(tile, bounds.x, bounds.y, bounds.width, bounds.height, null);
+    }
+  }
+
+  /**
+   * Collects what a tile shows: the idle shapes it crosses or, at the dots and
+   * density tiers, the idle nodes and edges found in the spatial indexes of the
+   * graph.
+   */
+  private TileContent gatherTile(double level, int tileX, int tileY, LevelOfDetail detail) {
+    // One extra pixel for antialiasing bleeding over the shape bounds.
+    double margin = 1d / level;
+    double size = TileCache.TILE_SIZE / level;
+    Rectangle2D stageBounds = new Rectangle2D.Double(tileX * size - margin, tileY * size - margin, size + 2 * margin,
+        size + 2 * margin);
+    TileContent content = new TileContent(level, tileX, tileY, detail);
+
+    if (detail == LevelOfDetail.DOTS) {
+      for (OverlappedEdges pair : this.graph.getOverlappedEdgesIn(stageBounds)) {
+        if (!this.liveNodes.contains(pair.getSource()) && !this.liveNodes.contains(pair.getTarget())) {
+          content.pairs.add(pair);
+          content.ends.add(this.graph.getNode(pair.getSource()));
+          content.ends.add(this.graph.getNode(pair.getTarget()));
+        }
+      }
+      double dotMargin = this.graph.getSettings().getShapesMinNodeSize() / level;
+      stageBounds = new Rectangle2D.Double(stageBounds.getX() - dotMargin, stageBounds.getY() - dotMargin,
+          stageBounds.getWidth() + 2 * dotMargin, stageBounds.getHeight() + 2 * dotMargin);
+    }
+    if (detail == LevelOfDetail.DOTS || detail == LevelOfDetail.DENSITY) {
+      for (Node node : this.graph.getNodesIn(stageBounds)) {
+        if (this.idleNodes.contains(node.getId())) {
+          content.nodes.add(node);
+        }
+      }
+    } else {
+      content.shapes.addAll(this.idleShapeIndex.query(stageBounds));
+      content.shapes.sort(IDLE_SHAPE_ORDER);
+    }
+    return content;
+  }
+
+  /**
+   * Renders a tile from what was gathered for it. Only reads the content and
+   * the graph settings, so tiles can be rendered on several threads.
+   */
+  private BufferedImage renderTile(RenderingHints rh, Color background, TileContent content) {
+    BufferedImage tile = new BufferedImage(TileCache.TILE_SIZE, TileCache.TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D tileGraphics = tile.createGraphics();
+    tileGraphics.setRenderingHints(rh);
+    if (background != null) {
+      tileGraphics.setBackground(background);
+      tileGraphics.clearRect(0, 0, TileCache.TILE_SIZE, TileCache.TILE_SIZE);
+    }
+
+    double level = content.level;
+    AffineTransform tx = AffineTransform.getTranslateInstance(-content.x * TileCache.TILE_SIZE,
+        -content.y * TileCache.TILE_SIZE);
+    tx.scale(level, level);
+
+    if (content.detail == LevelOfDetail.DOTS) {
+      renderDots(tileGraphics, tx, content);
+    } else if (content.detail == LevelOfDetail.DENSITY) {
+      renderDensity(tileGraphics, tx, content);
+    } else {
+      for (IdleShape idleShape : content.shapes) {
+        idleShape.graphShape.draw(tileGraphics, tx);
+      }
+    }
+    tileGraphics.dispose();
+    return tile;
+  }
+
+  /**
+   * Draws the idle nodes as dots of at least one pixel and the edges between
+   * them as hairlines.
+   */
+  private void renderDots(Graphics2D tileGraphics, AffineTransform tx, TileContent content) {
+    GraphSettings settings = this.graph.getSettings();
+    tileGraphics.setStroke(new BasicStroke(0f));
+    Line2D line = new Line2D.Double();
+    for (int index = 0; index < content.pairs.size(); index++) {
+      OverlappedEdges pair = content.pairs.get(index);
+      Node source = content.ends.get(2 * index);
+      Node target = content.ends.get(2 * index + 1);
+      line.setLine(source.getX() + source.getSize() / 2, source.getY() + source.getSize() / 2,
+          target.getX() + target.getSize() / 2, target.getY() + target.getSize() / 2);
+      tileGraphics.setColor(pair.getColor() != null ? pair.getColor() : settings.getDefaultEdgeColor());
+      tileGraphics.draw(tx.createTransformedShape(line));
+    }
+
+    double level = content.level;
+    Rectangle2D.Double dot = new Rectangle2D.Double();
+    for (Node node : content.nodes) {
+      double size = Math.max(1d, node.getSize() * level);
+      dot.setRect((node.getX() + node.getSize() / 2d) * level + tx.getTranslateX() - size / 2,
+          (node.getY() + node.getSize() / 2d) * level + tx.getTranslateY() - size / 2, size, size);
+      tileGraphics.setColor(node.getColor() != null ? node.getColor() : settings.getDefaultNodeColor());
+      tileGraphics.fill(dot);
+    }
+  }
+
+  /**
+   * Draws how many idle nodes fall in every cell of the tile, as the opacity of
+   * the default node color.
+   */
+  private void renderDensity(Graphics2D tileGraphics, AffineTransform tx, TileContent content) {
+    int cells = TileCache.TILE_SIZE / DENSITY_CELL_SIZE;
+    int[] counts = new int[cells * cells];
+    double level = content.level;
+    for (Node node : content.nodes) {
+      double x = (node.getX() + node.getSize() / 2d) * level + tx.getTranslateX();
+      double y = (node.getY() + node.getSize() / 2d) * level + tx.getTranslateY();
+      int cellX = (int) Math.floor(x / DENSITY_CELL_SIZE);
+      int cellY = (int) Math.floor(y / DENSITY_CELL_SIZE);
+      if (cellX >= 0 && cellX < cells && cellY >= 0 && cellY < cells) {
+        counts[cellY * cells + cellX]++;
+      }
+    }
+
+    Color color = this.graph.getSettings().getDefaultNodeColor();
+    for (int index = 0; index < counts.length; index++) {
+      if (counts[index] > 0) {
+        int alpha = (int) Math.round(255 * (1d - Math.pow(0.75d, counts[index])));
+        tileGraphics.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
+        tileGraphics.fillRect((index % cells) * DENSITY_CELL_SIZE, (index / cells) * DENSITY_CELL_SIZE,
+            DENSITY_CELL_SIZE, DENSITY_CELL_SIZE);
+      }
+    }
+  }
+
+  private double getMeanNodeSize() {
+    if (this.meanNodeSize < 0) {
+      long total = 0;
+      int count = 0;
+      for (Node node : this.graph.getNodes()) {
+        total += node.getSize();
+        count++;
+      }
+      this.meanNodeSize = count > 0 ? (double) total / count : 0d;
+    }
+    return this.meanNodeSize;
+  }
+
+  /**
+   * Renders the idle edges and nodes once, in stage coordinates, updating the
+   * bounding boxes of the idle nodes on the way.
+   */
+  private void createIdleShapes(RenderingHints rh, Collection<? extends Edge> edges, Collection<Node> nodes) {
+    this.idleShapes = new IdentityHashMap<>();
+    this.idleShapeIndex = new QuadTree<>();
+    this.idleShapeCount = 0;
+    this.boxMargin = 0d;
+    addIdleShapes(rh, edges, nodes);
+  }
+
+  /**
+   * Renders idle edges and nodes into the idle shapes and their index.
+   *
+   * @return the shapes added.
+   */
+  private List<IdleShape> addIdleShapes(RenderingHints rh, Collection<? extends Edge> edges, Collection<Node> nodes) {
+    Graphics2D g2d = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    g2d.setRenderingHints(rh);
+
+    List<IdleShape> shapes = new ArrayList<>(edges.size() + 2 * nodes.size());
+    for (Edge edge : edges) {
+      EdgeRenderer renderer = renderers.getEdgeRenderer(edge.getType());
+      addIdleShape(shapes, edge, this.shapeCache.getEdgeShape(g2d, edge, renderer, renderContext));
+    }
+
+    for (Node node : nodes) {
+      NodeBoundingBox nodeBoundingBox = this.boxesIndex.get(node.getId());
+      if (nodeBoundingBox == null) {
+        nodeBoundingBox = new NodeBoundingBox(1.4d);
+        this.boxesIndex.put(node.getId(), nodeBoundingBox);
+      } else {
+        nodeBoundingBox.clear();
+      }
+
+      NodeRenderer renderer = renderers.getNodeRenderer(node.getType());
+      GraphShape nodeGraphShape = this.shapeCache.getNodeShape(g2d, node, renderer, renderContext);
+      if (addIdleShape(shapes, node, nodeGraphShape)) {
+        Rectangle2D bounds = nodeBoundingBox.addBox(nodeGraphShape.getShape());
+        if (this.showBoundingBoxes) {
+          addIdleShape(shapes, node, new GraphShape(bounds));
+        }
+      }
+
+      LabelRenderer labelRenderer = renderers.getLabelRenderer(node.getLabelType());
+      GraphShape labelGraphShape = this.shapeCache.getLabelShape(g2d, node, labelRenderer, renderContext);
+      if (addIdleShape(shapes, node, labelGraphShape)) {
+        Rectangle2D bounds = nodeBoundingBox.addBox(labelGraphShape.getShape());
+        if (this.showBoundingBoxes) {
+          addIdleShape(shapes, node, new GraphShape(bounds));
+        }
+      }
+      updateBoxMargin(node, nodeBoundingBox);
+    }
+    g2d.dispose();
+
+    for (IdleShape idleShape : shapes) {
+      this.idleShapes.computeIfAbsent(idleShape.owner, owner -> new ArrayList<>(2)).add(idleShape);
+      Rectangle2D bounds = idleShape.bounds;
+      this.idleShapeIndex.put(idleShape, bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+    }
+    return shapes;
+  }
+
+  private boolean addIdleShape(List<IdleShape> shapes, Object owner, GraphShape graphShape) {
+    if (graphShape == null) {
+      return false;
+    }
+    shapes.add(new IdleShape(graphShape, owner, owner instanceof Edge, this.idleShapeCount++));
+    return true;
+  }
+
+  /**
+   * Takes note of nodes that moved between the idle and live layers, or of
+   * idle nodes that moved. Only the tiles showing the nodes and their edges,
+   * where they were and where they are, are discarded, and only their idle
+   * shapes are rendered again.
+   */
+  private void updateIdleNodes(Collection<String> nodeIds) {
+    Collection<Node> nodes = this.graph.getNodes(nodeIds);
+    Collection<OverlappedEdges> pairs = this.graph.getNodesOverlappedEdges(nodeIds);
+    this.liveEdges = this.liveNodes.isEmpty() ? Collections.emptyList() : new ArrayList<>(
+        graph.getNodesOverlappedEdges(this.liveNodes));
+    this.contentVersion++;
+
+    // tiles of the dots and density tiers are drawn from the nodes and edges
+    // themselves
+    List<Shape> dirty = new ArrayList<>();
+    for (Node node : nodes) {
+      dirty.add(new Rectangle2D.Double(node.getX(), node.getY(), node.getSize(), node.getSize()));
+    }
+    for (OverlappedEdges pair : pairs) {
+      Node source = this.graph.getNode(pair.getSource());
+      Node target = this.graph.getNode(pair.getTarget());
+      dirty.add(new Line2D.Double(source.getX() + source.getSize() / 2, source.getY() + source.getSize() / 2,
+          target.getX() + target.getSize() / 2, target.getY() + target.getSize() / 2));
+    }
+
+    if (this.idleShapeIndex != null) {
+      List<Object> owners = new ArrayList<>(nodes);
+      owners.addAll(pairs);
+      for (Object owner : owners) {
+        List<IdleShape> removed = this.idleShapes.remove(owner);
+        if (removed != null) {
+          for (IdleShape idleShape : removed) {
+            this.idleShapeIndex.remove(idleShape);
+            dirty.add(idleShape.bounds);
+          }
+        }
+      }
+
+      List<Node> idle = new ArrayList<>(nodes);
+      idle.removeIf(node -> !this.idleNodes.contains(node.getId()));
+      List<OverlappedEdges> idleEdges = new ArrayList<>(pairs);
+      idleEdges.removeIf(pair -> this.liveNodes.contains(pair.getSource())
+          || this.liveNodes.contains(pair.getTarget()));
+      RenderingHints rh = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      for (IdleShape idleShape : addIdleShapes(rh, idleEdges, idle)) {
+        dirty.add(idleShape.bounds);
+      }
+    }
+
+    for (Shape area : dirty) {
+      this.tileCache.invalidate(area);
+    }
+  }
+
+  /**
+   * Request for a frame of the idle layer, with copies of the idle nodes and
+   * edges in view taken from the spatial indexes of the graph.
+   */
+  private FrameRequest createFrameRequest(FrameView view, RenderingHints rh) {
+    Rectangle2D stageBounds = view.getStageBounds();
+    Map<String, Node> nodes = new HashMap<>();
+    for (Node node : getNodesNear(stageBounds)) {
+      if (this.idleNodes.contains(node.getId())) {
+        nodes.put(node.getId(), node.copy());
+      }
+    }
+    List<OverlappedEdges> edges = new ArrayList<>();
+    // labels and arrows reach out of the segments as far as out of the nodes
+    Rectangle2D edgeArea = new Rectangle2D.Double(stageBounds.getX() - boxMargin, stageBounds.getY() - boxMargin,
+        stageBounds.getWidth() + 2 * boxMargin, stageBounds.getHeight() + 2 * boxMargin);
+    for (OverlappedEdges pair : this.graph.getOverlappedEdgesIn(edgeArea)) {
+      if (!this.liveNodes.contains(pair.getSource()) && !this.liveNodes.contains(pair.getTarget())) {
+        edges.add(pair.copy());
+        for (String id : Arrays.asList(pair.getSource(), pair.getTarget())) {
+          if (!nodes.containsKey(id)) {
+            nodes.put(id, this.graph.getNode(id).copy());
+          }
+        }
+      }
+    }
+    return new FrameRequest(view, this.graph.snapshot(), nodes, edges, new HashSet<>(this.liveNodes), renderers, this,
+        rh);
+  }
+
+  /**
+   * Keeps track of how far painted boxes reach out of the node bounds, so the
+   * node index of the graph can be queried for boxes around a point.
+   */
+  private void updateBoxMargin(Node node, NodeBoundingBox box) {
+    this.boxMargin = Math.max(this.boxMargin, box.getMargin(node));
+  }
+
+  /**
+   * Nodes of the graph whose painted boxes may intersect the area.
+   */
+  private List<Node> getNodesNear(Rectangle2D area) {
+    return this.graph.getNodesIn(new Rectangle2D.Double(area.getX() - boxMargin, area.getY() - boxMargin,
+        area.getWidth() + 2 * boxMargin, area.getHeight() + 2 * boxMargin));
   }
 
   private void paintSelections(Graphics2D g2d, AffineTransform tx, Rectangle2D clipBounds) {
     for (String selectedId : this.selectedNodes) {
       Node node = this.graph.getNode(selectedId);
       NodeBoundingBox boundingBox = this.boxesIndex.get(node.getId());
-      if (boundingBox.intersects(clipBounds)) {
+      if (boundingBox != null && boundingBox.intersects(clipBounds)) {
         SelectionRenderer renderer = renderers.getSelectionRenderer(node.getSelectionType());
         GraphShape selectionGraphShape = renderer.render(g2d, boundingBox, renderContext);
         if (selectionGraphShape != null) {
@@ -254,6 +1080,20 @@ public class GraphPane extends JComponent
 
   private void paintNodes(Graphics2D g2d, AffineTransform stageTx, AffineTransform componentTx, Rectangle2D clipBounds,
       Collection<Node> nodes) {
+    List<GraphShape> shapes = new ArrayList<>();
+    collectNodeShapes(g2d, clipBounds, nodes, shapes);
+    for (GraphShape graphShape : shapes) {
+      graphShape.draw(g2d, stageTx);
+    }
+  }
+
+  /**
+   * Adds the visible shapes of the nodes, in painting order, updating the
+   * bounding boxes of the nodes on the way.
+   */
+  private void collectNodeShapes(Graphics2D g2d, Rectangle2D clipBounds, Collection<Node> nodes,
+      List<GraphShape> shapes) {
+    int rendered = 0;
     for (Node node : nodes) {
       NodeBoundingBox nodeBoundingBox = this.boxesIndex.get(node.getId());
       if (nodeBoundingBox == null) {
@@ -264,59 +1104,79 @@ public class GraphPane extends JComponent
       }
 
       NodeRenderer renderer = renderers.getNodeRenderer(node.getType());
-      GraphShape nodeGraphShape = renderer.render(g2d, node, renderContext);
+      GraphShape nodeGraphShape = this.shapeCache.getNodeShape(g2d, node, renderer, renderContext);
       if (nodeGraphShape != null && nodeGraphShape.getShape().intersects(clipBounds)) {
-        nodeGraphShape.draw(g2d, stageTx);
+        shapes.add(nodeGraphShape);
+        rendered++;
 
         Rectangle2D bounds = nodeBoundingBox.addBox(nodeGraphShape.getShape());
         if (this.showBoundingBoxes) {
-          g2d.draw(stageTx.createTransformedShape(bounds));
+          shapes.add(new GraphShape(bounds));
         }
       }
 
       LabelRenderer labelRenderer = renderers.getLabelRenderer(node.getLabelType());
-      GraphShape labelGraphShape = labelRenderer.render(g2d, node, renderContext);
+      GraphShape labelGraphShape = this.shapeCache.getLabelShape(g2d, node, labelRenderer, renderContext);
       if (labelGraphShape != null && labelGraphShape.getShape().intersects(clipBounds)) {
-        labelGraphShape.draw(g2d, stageTx);
+        shapes.add(labelGraphShape);
 
         Rectangle2D bounds = nodeBoundingBox.addBox(labelGraphShape.getShape());
         if (this.showBoundingBoxes) {
-          g2d.draw(stageTx.createTransformedShape(bounds));
+          shapes.add(new GraphShape(bounds));
         }
       }
+      updateBoxMargin(node, nodeBoundingBox);
     }
+    this.renderMetrics.count(RenderCounter.RENDERED, rendered);
+    this.renderMetrics.count(RenderCounter.CULLED, nodes.size() - rendered);
   }
 
   private void paintEdges(Graphics2D g2d, AffineTransform tx, Rectangle2D clipBounds, Collection<Edge> edges) {
+    List<GraphShape> shapes = new ArrayList<>();
+    collectEdgeShapes(g2d, clipBounds, edges, shapes);
+    for (GraphShape graphShape : shapes) {
+      graphShape.draw(g2d, tx);
+    }
+  }
+
+  private void collectEdgeShapes(Graphics2D g2d, Rectangle2D clipBounds, Collection<Edge> edges,
+      List<GraphShape> shapes) {
+    int rendered = 0;
     for (Edge edge : edges) {
       EdgeRenderer renderer = renderers.getEdgeRenderer(edge.getType());
-      GraphShape graphShape = renderer.render(g2d, edge, renderContext);
+      GraphShape graphShape = this.shapeCache.getEdgeShape(g2d, edge, renderer, renderContext);
       if (graphShape != null && graphShape.getShape().intersects(clipBounds)) {
-        graphShape.draw(g2d, tx);
+        shapes.add(graphShape);
+        rendered++;
       }
     }
+    this.renderMetrics.count(RenderCounter.RENDERED, rendered);
+    this.renderMetrics.count(RenderCounter.CULLED, edges.size() - rendered);
   }
   
-  private Set<String> paintSelectedEdges(Graphics2D g2d, AffineTransform tx, Rectangle2D clipBounds, Collection<Edge> edges) {
+  /**
+   * Paints the selected edges and the one under the mouse over the idle layer,
+   * in their highlight colour. The edges are left untouched, as their shapes
+   * and versions are shared with the idle layer and the frame renderer.
+   */
+  private Set<String> paintSelectedEdges(Graphics2D g2d, AffineTransform tx, Rectangle2D clipBounds, Collection<? extends Edge> edges) {
       Set<String> nodesUnderEdges = new HashSet<>();
       for (Edge edge : edges) {
-        if(selectedEdges.contains(edge.getId())) {
-            edge.setColor(Color.RED);
-            nodesUnderEdges.add(edge.getSource());
-            nodesUnderEdges.add(edge.getTarget());
+        Color highlight;
+        if(getSelectedPairs().contains(edge)) {
+            highlight = Color.RED;
         }else if(edge.equals(this.edgeUnderMouse)){
-            edge.setColor(Color.BLACK);
-            nodesUnderEdges.add(edge.getSource());
-            nodesUnderEdges.add(edge.getTarget());
+            highlight = Color.BLACK;
         }else {
             continue;
         }
+        nodesUnderEdges.add(edge.getSource());
+        nodesUnderEdges.add(edge.getTarget());
         EdgeRenderer renderer = renderers.getEdgeRenderer(edge.getType());
-        GraphShape graphShape = renderer.render(g2d, edge, renderContext);
+        GraphShape graphShape = this.shapeCache.getEdgeShape(g2d, edge, renderer, renderContext);
         if (graphShape != null && graphShape.getShape().intersects(clipBounds)) {
-          graphShape.draw(g2d, tx);
+          graphShape.withPaint(highlight).draw(g2d, tx);
         }
-        edge.setColor(null);
       }
       return nodesUnderEdges;
   }
@@ -474,11 +1334,10 @@ public class GraphPane extends JComponent
 
   private Node getNodeUnderMouse(MouseEvent evt) {
     Point2D evtPoint = invert(evt.getPoint());
-    for (Entry<String, NodeBoundingBox> entry : boxesIndex.entrySet()) {
-      NodeBoundingBox box = entry.getValue();
-      if (box.contains(evtPoint)) {
-        String id = entry.getKey();
-        return this.graph.getNode(id);
+    for (Node node : getNodesNear(new Rectangle2D.Double(evtPoint.getX(), evtPoint.getY(), 0d, 0d))) {
+      NodeBoundingBox box = this.boxesIndex.get(node.getId());
+      if (box != null && box.contains(evtPoint)) {
+        return node;
       }
     }
     return null;
@@ -486,10 +1345,12 @@ public class GraphPane extends JComponent
   
   private Edge getEdgeUnderMouse(MouseEvent evt) {
       Point2D evtPoint = invert(evt.getPoint());
-      Collection<Edge> edges = new ArrayList<>(graph.getNodesOverlappedEdges(this.idleNodes));
-      
-      for (Edge edge : edges) {
-        if (isNearEdge(edge, evtPoint))
+      double d = 5;
+      Rectangle2D area = new Rectangle2D.Double(evtPoint.getX() - d, evtPoint.getY() - d, 2 * d, 2 * d);
+
+      for (Edge edge : graph.getOverlappedEdgesIn(area)) {
+        boolean idle = this.idleNodes.contains(edge.getSource()) || this.idleNodes.contains(edge.getTarget());
+        if (idle && isNearEdge(edge, evtPoint))
           return edge;
       }
       return null;
@@ -523,27 +1384,24 @@ public class GraphPane extends JComponent
 
   private void applyCurrentSelection(MouseEvent e) {
     Set<String> prevSelectedEdges = new HashSet<>(selectedEdges);
+    this.selectedPairs = null;
     if (!e.isControlDown() && !e.isShiftDown()) {
       this.selectedNodes.clear();
       this.selectedEdges.clear();
     }
-    for (Entry<String, NodeBoundingBox> entry : boxesIndex.entrySet()) {
-      NodeBoundingBox box = entry.getValue();
-      if (box.intersects(selectionBox)) {
-        String id = entry.getKey();
-        this.selectedNodes.add(id);
+    for (Node node : getNodesNear(selectionBox)) {
+      NodeBoundingBox box = this.boxesIndex.get(node.getId());
+      if (box != null && box.intersects(selectionBox)) {
+        this.selectedNodes.add(node.getId());
       }
     }
     if(selectedNodes.size() > 0) {
         return;
     }
-    Collection<Edge> overlappedEdges = new ArrayList<>(graph.getNodesOverlappedEdges(graph.getNodeIds()));
     Collection<Edge> edgesSelected = new HashSet<>();
-    for(Edge edge : overlappedEdges) {
-        if(getEdgeShape(edge).intersects(selectionBox)) {
-            selectedEdges.add(edge.getId());
-            edgesSelected.add(edge);
-        }
+    for(Edge edge : graph.getOverlappedEdgesIn(selectionBox)) {
+        selectedEdges.add(edge.getId());
+        edgesSelected.add(edge);
     }
     if(prevSelectedEdges.size() != selectedEdges.size()) {
         notifyEdgesSelected(edgesSelected, e);
@@ -557,14 +1415,6 @@ public class GraphPane extends JComponent
     }
   }
   
-  private Shape getEdgeShape(Edge edge) {
-      Node n1 = this.graph.getNode(edge.getSource());
-      Node n2 = this.graph.getNode(edge.getTarget());
-      Line2D shape = new Line2D.Double(n1.getX() + n1.getSize() / 2, n1.getY() + n1.getSize() / 2, 
-              n2.getX() + n2.getSize() / 2, n2.getY() + n2.getSize() / 2);
-      return shape;
-  }
-
   @Override
   public void mousePressed(MouseEvent e) {
     if (this.isEnabled()) {
@@ -678,7 +1528,6 @@ public class GraphPane extends JComponent
     }
     
     notifyZoomChanged();
-    resetBuffer();
     
     if(invPoint != null) {
         double widthOffset = getSize().width / 2d;
@@ -777,7 +1626,6 @@ public class GraphPane extends JComponent
       throw new RuntimeException(e);
     }
     notifyStageMoved();
-    resetBuffer();
   }
 
   protected double getTranslateX() {
@@ -849,7 +1697,7 @@ public class GraphPane extends JComponent
       } else if (this.nodeDragMode == NodeDragMode.CURRENT) {
         notifyNodeDragStarted(Arrays.asList(this.nodeUnderMouse), e);
       }
-      resetBuffer();
+      updateIdleNodes(new ArrayList<>(this.liveNodes));
 
     } else {
       notifyStageDragStarted(e);
@@ -872,9 +1720,10 @@ public class GraphPane extends JComponent
           notifyNodeDragStopped(Arrays.asList(this.nodeUnderMouse), e);
         }
 
-        this.idleNodes.addAll(this.liveNodes);
+        List<String> moved = new ArrayList<>(this.liveNodes);
+        this.idleNodes.addAll(moved);
         this.liveNodes.clear();
-        resetBuffer();
+        updateIdleNodes(moved);
       } else {
         notifyStageDragStopped(e);
       }
@@ -913,7 +1762,17 @@ public class GraphPane extends JComponent
 
       Edge oldEdge = this.edgeUnderMouse;
       this.edgeUnderMouse = getEdgeUnderMouse(e);
-      
+
+      Rectangle dirty = null;
+      if (!Objects.equals(oldId, id)) {
+        dirty = union(dirty, getNodeRepaintBounds(oldId));
+        dirty = union(dirty, getNodeRepaintBounds(id));
+      }
+      if (!Objects.equals(oldEdge, this.edgeUnderMouse)) {
+        dirty = union(dirty, getEdgeRepaintBounds(oldEdge));
+        dirty = union(dirty, getEdgeRepaintBounds(this.edgeUnderMouse));
+      }
+
       if (wasHovering && !isHovering) {
         notifyNodeOut(e);
       } else if (!wasHovering && isHovering) {
@@ -931,8 +1790,79 @@ public class GraphPane extends JComponent
               notifyEdgeHover(this.edgeUnderMouse, e);
           }
       }
-      repaint();
+      if (dirty != null) {
+        repaint(dirty);
+      }
+    }
+  }
+
+  /**
+   * Component area painted over the idle layer for the node: its shapes, hover
+   * and selection. The whole component if the node was not painted yet.
+   */
+  private Rectangle getNodeRepaintBounds(String id) {
+    if (id == null) {
+      return null;
+    }
+    NodeBoundingBox box = this.boxesIndex.get(id);
+    Rectangle2D stageBounds = box != null ? box.getUnionBox(1d) : null;
+    if (stageBounds == null) {
+      return new Rectangle(0, 0, getWidth(), getHeight());
     }
+    return toRepaintBounds(stageBounds);
+  }
+
+  /**
+   * Component area painted over the idle layer for the edge: the edge itself
+   * and the nodes at its ends. The shape last painted for the edge is taken
+   * from the shape cache; without one, a label lying along the edge is
+   * covered by growing the boxes of the nodes by the height of the font.
+   */
+  private Rectangle getEdgeRepaintBounds(Edge edge) {
+    if (edge == null) {
+      return null;
+    }
+    NodeBoundingBox sourceBox = this.boxesIndex.get(edge.getSource());
+    NodeBoundingBox targetBox = this.boxesIndex.get(edge.getTarget());
+    Rectangle2D sourceBounds = sourceBox != null ? sourceBox.getUnionBox(1d) : null;
+    Rectangle2D targetBounds = targetBox != null ? targetBox.getUnionBox(1d) : null;
+    if (sourceBounds == null || targetBounds == null) {
+      return new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    Rectangle2D stageBounds = sourceBounds.createUnion(targetBounds);
+    GraphShape graphShape = this.shapeCache.peekEdgeShape(edge.getId());
+    if (graphShape != null && graphShape.getShape() != null) {
+      stageBounds.add(graphShape.getShape().getBounds2D());
+    } else if (getFont() != null) {
+      double margin = getFontMetrics(getFont()).getHeight();
+      stageBounds.setRect(stageBounds.getX() - margin, stageBounds.getY() - margin,
+          stageBounds.getWidth() + 2 * margin, stageBounds.getHeight() + 2 * margin);
+    }
+    return toRepaintBounds(stageBounds);
+  }
+
+  /**
+   * Component area of the pair of edges a selected id stands for, or null if
+   * there is no such pair to paint.
+   */
+  private Rectangle getSelectedEdgeRepaintBounds(String id) {
+    return getEdgeRepaintBounds(this.graph.getOverlappedEdges(id));
+  }
+
+  private Rectangle toRepaintBounds(Rectangle2D stageBounds) {
+    Rectangle bounds = this.transform.createTransformedShape(stageBounds).getBounds();
+    bounds.grow(REPAINT_MARGIN, REPAINT_MARGIN);
+    return bounds;
+  }
+
+  private static Rectangle union(Rectangle a, Rectangle b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return a.union(b);
   }
 
   public boolean isShowBoundingBoxes() {
@@ -1007,17 +1937,22 @@ public class GraphPane extends JComponent
     if (!this.graph.containsNode(id)) {
       throw new IllegalArgumentException("Node " + id + " does not exist.");
     }
+    Rectangle dirty = getNodeRepaintBounds(id);
     if (!keepSelection) {
+      for (String selectedId : this.selectedNodes) {
+        dirty = union(dirty, getNodeRepaintBounds(selectedId));
+      }
       this.selectedNodes.clear();
     }
     if (this.selectedNodes.add(id) | !keepSelection) {
-      repaint();
+      repaint(dirty);
     }
   }
 
   public void deselectNode(String id) {
-    this.selectedNodes.remove(id);
-    repaint();
+    if (this.selectedNodes.remove(id)) {
+      repaint(getNodeRepaintBounds(id));
+    }
   }
   
   public void selectEdge(String id) {
@@ -1028,23 +1963,34 @@ public class GraphPane extends JComponent
       if (!this.graph.containsEdge(id)) {
           //throw new IllegalArgumentException("Edge " + id + " does not exist.");
       }
+      Rectangle dirty = getSelectedEdgeRepaintBounds(id);
       if(!keepSelection) {
+          for (String selectedId : this.selectedEdges) {
+              dirty = union(dirty, getSelectedEdgeRepaintBounds(selectedId));
+          }
           this.selectedEdges.clear();    
       }
+      this.selectedPairs = null;
       
-      if(this.selectedEdges.add(id) || !keepSelection) {
-          repaint();
+      if((this.selectedEdges.add(id) || !keepSelection) && dirty != null) {
+          repaint(dirty);
       }
   }
   
   public void deselectEdge(String id) {
-      this.selectedEdges.remove(id);
-      repaint();
+      if (this.selectedEdges.remove(id)) {
+          this.selectedPairs = null;
+          Rectangle dirty = getSelectedEdgeRepaintBounds(id);
+          if (dirty != null) {
+              repaint(dirty);
+          }
+      }
   }
 
   public void deselectAll() {
     this.selectedNodes.clear();
     this.selectedEdges.clear();
+    this.selectedPairs = null;
     repaint();
   }
 
@@ -1064,6 +2010,7 @@ public class GraphPane extends JComponent
       String nodeId = node.getId();
       this.selectedNodes.remove(nodeId);
       this.boxesIndex.remove(nodeId);
+      this.shapeCache.removeNode(nodeId);
       this.liveNodes.remove(nodeId);
       this.idleNodes.remove(nodeId);
     }
@@ -1078,6 +2025,9 @@ public class GraphPane extends JComponent
 
   public void elementsRemoved(GraphEvent e) {
     nodesRemoved(e);
+    for (Edge edge : e.getEdges()) {
+      this.shapeCache.removeEdge(OverlappedEdges.getPairId(edge.getSource(), edge.getTarget()));
+    }
     resetBuffer();
   }
 
@@ -1097,17 +2047,182 @@ public class GraphPane extends JComponent
     this.nodeDragMode = nodeDragMode;
   }
 
+  /**
+   * Discards the rendered idle layer. Must be called after changing how idle
+   * elements look (positions, colors, labels or renderers) outside of the
+   * graph and history APIs, which already do it.
+   */
   public void resetBuffer() {
-    if (this.idleGraphics != null) {
-      this.idleGraphics.dispose();
+    this.liveEdges = this.liveNodes.isEmpty() ? Collections.emptyList()
+        : new ArrayList<>(graph.getNodesOverlappedEdges(this.liveNodes));
+    this.idleShapes = null;
+    this.contentVersion++;
+    this.meanNodeSize = -1;
+    this.idleShapeIndex = null;
+    this.tileCache.clear();
+  }
+
+  /**
+   * Discards the shapes rendered for every element. Changes to elements through
+   * their setters are picked up on their own, this is only needed after
+   * changing the graph settings or the state of a renderer.
+   */
+  public void clearShapeCache() {
+    this.shapeCache.clear();
+    resetBuffer();
+  }
+
+  ShapeCache getShapeCache() {
+    return shapeCache;
+  }
+
+  public long getTileCacheMemoryBudget() {
+    return this.tileCache.getMemoryBudget();
+  }
+
+  /**
+   * Bounds the memory, in bytes, used by the tiles of the idle layer. Zero
+   * disables the tile cache: the idle layer is then painted into a buffer the
+   * size of the pane, shifted when panning and painted whole on any other
+   * change of the view.
+   */
+  public void setTileCacheMemoryBudget(long memoryBudget) {
+    this.tileCache.setMemoryBudget(memoryBudget);
+  }
+
+  TileCache getTileCache() {
+    return tileCache;
+  }
+
+  /**
+   * Detail the graph was last painted with, chosen from the mean node size on
+   * screen and the thresholds of the {@link GraphSettings}.
+   */
+  public LevelOfDetail getLevelOfDetail() {
+    return levelOfDetail;
+  }
+
+  public boolean isAcceleratedBuffers() {
+    return acceleratedBuffers;
+  }
+
+  /**
+   * Backs the paint buffers with volatile images, which the screen can blit
+   * faster but whose contents may be lost, costing an extra repaint.
+   */
+  public void setAcceleratedBuffers(boolean acceleratedBuffers) {
+    this.acceleratedBuffers = acceleratedBuffers;
+    repaint();
+  }
+
+  /**
+   * Number of offscreen buffers allocated by paints so far. Buffers are reused
+   * across paints, so this only grows as the component is resized.
+   */
+  public long getPaintBufferAllocationCount() {
+    return this.liveBuffer.getAllocationCount() + this.idleBuffer.getAllocationCount();
+  }
+
+  /**
+   * Bytes allocated for offscreen buffers by paints so far.
+   */
+  public long getPaintBufferAllocatedBytes() {
+    return this.liveBuffer.getAllocatedBytes() + this.idleBuffer.getAllocatedBytes();
+  }
+
+  @Override
+  public void removeNotify() {
+    super.removeNotify();
+    this.liveBuffer.release();
+    this.idleBuffer.release();
+    setAsyncRendering(false);
+  }
+
+  public ForkJoinPool getPaintPool() {
+    return paintPool;
+  }
+
+  /**
+   * Pool the idle layer is rasterized on: missing tiles are rendered on it
+   * several at a time, and without the tile cache the idle layer is painted in
+   * horizontal bands. Null, the default, paints it on the event dispatch
+   * thread. Shapes are still built on the event dispatch thread.
+   */
+  public void setPaintPool(ForkJoinPool paintPool) {
+    this.paintPool = paintPool;
+  }
+
+  public RenderMetrics getRenderMetrics() {
+    return renderMetrics;
+  }
+
+  /**
+   * Metrics reported into on every paint, or {@link RenderMetrics#NONE}.
+   */
+  public void setRenderMetrics(RenderMetrics renderMetrics) {
+    this.renderMetrics = renderMetrics != null ? renderMetrics : RenderMetrics.NONE;
+  }
+
+  public boolean isRenderMetricsOverlay() {
+    return renderMetricsOverlay;
+  }
+
+  /**
+   * Draws the frame rate and the median and 95th percentile phase times over
+   * the graph. Starts collecting {@link RenderStatistics} if the metrics are
+   * not already collected by one.
+   */
+  public void setRenderMetricsOverlay(boolean renderMetricsOverlay) {
+    this.renderMetricsOverlay = renderMetricsOverlay;
+    if (renderMetricsOverlay && !(this.renderMetrics instanceof RenderStatistics)) {
+      setRenderMetrics(new RenderStatistics());
+    }
+    repaint();
+  }
+
+  public boolean isAsyncRendering() {
+    return frameRenderer != null;
+  }
+
+  /**
+   * Renders the idle layer on a background thread, from a snapshot of the
+   * graph, instead of on the event dispatch thread. Paints draw the latest
+   * finished frame, mapped to the current zoom and translation, and request a
+   * new one when the view changed. Dragged nodes, selections and hovering are
+   * still painted on the event dispatch thread.
+   */
+  public void setAsyncRendering(boolean asyncRendering) {
+    if (asyncRendering && this.frameRenderer == null) {
+      this.frameRenderer = new FrameRenderer(this::frameRendered);
+    } else if (!asyncRendering && this.frameRenderer != null) {
+      this.frameRenderer.shutdown();
+      this.frameRenderer = null;
     }
-    this.idleBuffer = null;
-    this.idleGraphics = null;
+    this.frameView = null;
+    repaint();
+  }
+
+  FrameRenderer getFrameRenderer() {
+    return frameRenderer;
   }
 
+  private void frameRendered(Frame frame) {
+    for (Map.Entry<String, NodeBoundingBox> entry : frame.getBoxes().entrySet()) {
+      if (!this.liveNodes.contains(entry.getKey()) && this.graph.containsNode(entry.getKey())) {
+        this.boxesIndex.put(entry.getKey(), entry.getValue());
+      }
+    }
+    this.boxMargin = Math.max(this.boxMargin, frame.getBoxMargin());
+    repaint();
+  }
+
+  /**
+   * Tiles do not depend on the size of the pane, so a larger pane only renders
+   * the tiles it exposes, on the repaint Swing already asks for.
+   */
   @Override
   public void componentResized(ComponentEvent e) {
-    resetBuffer();
+
   }
 
   @Override
@@ -1115,14 +2230,25 @@ public class GraphPane extends JComponent
 
   }
 
+  /**
+   * The repaint Swing asks for paints from the tiles kept while the pane was
+   * hidden.
+   */
   @Override
   public void componentShown(ComponentEvent e) {
-    resetBuffer();
+
   }
 
+  /**
+   * Releases the buffers the size of the pane, which are allocated again on
+   * the next paint. Tiles are kept, so showing the pane again renders nothing
+   * new.
+   */
   @Override
   public void componentHidden(ComponentEvent e) {
-
+    this.liveBuffer.release();
+    this.idleBuffer.release();
+    this.idleBufferTransform = null;
   }
 
   public Node getHoveredNode() {
@@ -1136,7 +2262,6 @@ public class GraphPane extends JComponent
   @Override
   protected void printComponent(Graphics g) {
     this.isPrinting = true;
-    resetBuffer();
     super.printComponent(g);
     this.isPrinting = false;
   }
@@ -1209,19 +2334,48 @@ public class GraphPane extends JComponent
   }
 
   public void applyLayout(HistoryEnabledLayout layout) {
-    Graphics2D graphics = (Graphics2D) getGraphics();
+    List<GraphAction> actions = layout.performLayout(this, getLayoutFontMetrics());
+    this.history.add(actions);
+    resetBuffer();
+  }
 
-    AffineTransform oldTransform = graphics.getTransform();
+  /**
+   * Runs the layout on the worker pool of the {@link LayoutRunner}, keeping
+   * the pane responsive. Must be called on the event dispatch thread, with a
+   * layout extending {@link AbstractHistoryEnabledLayout}.
+   */
+  public LayoutTask applyLayoutAsync(HistoryEnabledLayout layout) {
+    return applyLayoutAsync(layout, null);
+  }
+
+  public LayoutTask applyLayoutAsync(HistoryEnabledLayout layout, LayoutListener listener) {
+    return getLayoutRunner().run(layout, getLayoutFontMetrics(), listener);
+  }
+
+  public LayoutRunner getLayoutRunner() {
+    if (layoutRunner == null) {
+      layoutRunner = new LayoutRunner(this);
+    }
+    return layoutRunner;
+  }
+
+  public void setLayoutRunner(LayoutRunner layoutRunner) {
+    this.layoutRunner = layoutRunner;
+  }
+
+  private FontMetrics getLayoutFontMetrics() {
+    Graphics2D graphics = (Graphics2D) getGraphics();
+    if (graphics == null) {
+      Font font = getFont();
+      return font != null ? getFontMetrics(font) : null;
+    }
     try {
       graphics.setTransform(new AffineTransform());
       Font font = graphics.getFont();
-      FontMetrics fontMetrics = graphics.getFontMetrics(font);
-      List<GraphAction> actions = layout.performLayout(this, fontMetrics);
-      this.history.add(actions);
+      return graphics.getFontMetrics(font);
     } finally {
-      graphics.setTransform(oldTransform);
+      graphics.dispose();
     }
-    resetBuffer();
   }
 
   public void fitToScreen() {
@@ -1273,4 +2427,48 @@ public class GraphPane extends JComponent
 
     centerStageAt(centerX, centerY);
   }
+
+  /**
+   * The elements a tile shows, in the order they are drawn.
+   */
+  private static final class TileContent {
+
+    private final double level;
+    private final int x;
+    private final int y;
+    private final LevelOfDetail detail;
+    private final List<IdleShape> shapes = new ArrayList<>();
+    private final List<OverlappedEdges> pairs = new ArrayList<>();
+    // the source and target of every pair
+    private final List<Node> ends = new ArrayList<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    TileContent(double level, int x, int y, LevelOfDetail detail) {
+      this.level = level;
+      this.x = x;
+      this.y = y;
+      this.detail = detail;
+    }
+
+  }
+
+  private static final class IdleShape {
+
+    private final GraphShape graphShape;
+    private final Rectangle2D bounds;
+    // the node or edge the shape was rendered for
+    private final Object owner;
+    private final boolean edge;
+    private final int order;
+
+    IdleShape(GraphShape graphShape, Object owner, boolean edge, int order) {
+      this.graphShape = graphShape;
+      this.bounds = graphShape.getShape().getBounds2D();
+      this.owner = owner;
+      this.edge = edge;
+      this.order = order;
+    }
+
+  }
+
 }
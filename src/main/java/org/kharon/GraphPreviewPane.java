@@ -108,6 +108,7 @@ public class GraphPreviewPane extends GraphPane {
 
     @Override
     public void historyChanged(GraphHistory history, GraphAction action) {
+      resetBuffer();
       setViewingWindow();
     }
 
@@ -149,6 +150,7 @@ public class GraphPreviewPane extends GraphPane {
 
     @Override
     public void nodeDragStopped(Collection<Node> nodes, MouseEvent e) {
+      resetBuffer();
       setViewingWindow();
       GraphPreviewPane.this.repaint();
     }
@@ -171,6 +173,11 @@ public class GraphPreviewPane extends GraphPane {
 
   }
 
+  /**
+   * Fits the preview to the graph and the area shown by the main pane. Only
+   * moves the stage of the preview, whose tiles are kept: content changes
+   * reach it through the graph, the history and the end of node drags.
+   */
   private void setViewingWindow() {
     Dimension2D graphPaneSize = graphPane.getBounds().getSize();
     double graphZoom = graphPane.getZoom();
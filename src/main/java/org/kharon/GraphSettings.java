@@ -12,6 +12,10 @@ public class GraphSettings implements Cloneable {
   private Color selectionColor = Color.blue;
   private Color nodeHoverColor = Color.CYAN;
 
+  private double labelsMinNodeSize = 10d;
+  private double shapesMinNodeSize = 3d;
+  private double dotsMinNodeSize = 0.5d;
+
   public Color getDefaultEdgeColor() {
     return defaultEdgeColor;
   }
@@ -60,6 +64,51 @@ public class GraphSettings implements Cloneable {
     this.nodeHoverColor = nodeHoverColor;
   }
 
+  /**
+   * Nodes smaller than this, in screen pixels, are drawn without labels.
+   */
+  public double getLabelsMinNodeSize() {
+    return labelsMinNodeSize;
+  }
+
+  public void setLabelsMinNodeSize(double labelsMinNodeSize) {
+    this.labelsMinNodeSize = labelsMinNodeSize;
+  }
+
+  /**
+   * Nodes smaller than this, in screen pixels, are drawn as dots.
+   */
+  public double getShapesMinNodeSize() {
+    return shapesMinNodeSize;
+  }
+
+  public void setShapesMinNodeSize(double shapesMinNodeSize) {
+    this.shapesMinNodeSize = shapesMinNodeSize;
+  }
+
+  /**
+   * Nodes smaller than this, in screen pixels, are drawn as a density raster.
+   */
+  public double getDotsMinNodeSize() {
+    return dotsMinNodeSize;
+  }
+
+  public void setDotsMinNodeSize(double dotsMinNodeSize) {
+    this.dotsMinNodeSize = dotsMinNodeSize;
+  }
+
+  public LevelOfDetail getLevelOfDetail(double nodeScreenSize) {
+    if (nodeScreenSize >= labelsMinNodeSize) {
+      return LevelOfDetail.FULL;
+    } else if (nodeScreenSize >= shapesMinNodeSize) {
+      return LevelOfDetail.SHAPES;
+    } else if (nodeScreenSize >= dotsMinNodeSize) {
+      return LevelOfDetail.DOTS;
+    } else {
+      return LevelOfDetail.DENSITY;
+    }
+  }
+
   @Override
   public Object clone() throws CloneNotSupportedException {
     GraphSettings settings = new GraphSettings();
@@ -72,6 +121,10 @@ public class GraphSettings implements Cloneable {
     settings.selectionColor = selectionColor;
     settings.nodeHoverColor = nodeHoverColor;
 
+    settings.labelsMinNodeSize = labelsMinNodeSize;
+    settings.shapesMinNodeSize = shapesMinNodeSize;
+    settings.dotsMinNodeSize = dotsMinNodeSize;
+
     return settings;
   }
 
@@ -1,15 +1,21 @@
 package org.kharon;
 
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class GraphShape {
 
   private Shape shape;
   private Paint fillPaint;
   private Paint strokePaint;
+  private List<Text> texts;
+  private Shape shapeWithoutTexts;
 
   private static final AffineTransform IDENTITY = new AffineTransform();
 
@@ -38,6 +44,45 @@ public class GraphShape {
     this.strokePaint = strokePaint;
   }
 
+  /**
+   * A copy of this shape filled and stroked with the paint, this one left as it
+   * is, so shapes shared through a cache can be highlighted.
+   */
+  public GraphShape withPaint(Paint paint) {
+    GraphShape copy = new GraphShape(shape);
+    copy.fillPaint = paint;
+    copy.strokePaint = paint;
+    copy.texts = texts;
+    copy.shapeWithoutTexts = shapeWithoutTexts;
+    return copy;
+  }
+
+  /**
+   * Records text whose glyph outlines are part of the shape, for backends
+   * writing text instead of outlines.
+   *
+   * @param shapeWithoutTexts the shape without the outlines of any of the
+   *          texts, or null if it only has text.
+   */
+  public void addText(Text text, Shape shapeWithoutTexts) {
+    if (this.texts == null) {
+      this.texts = new ArrayList<>(1);
+    }
+    this.texts.add(text);
+    this.shapeWithoutTexts = shapeWithoutTexts;
+  }
+
+  public List<Text> getTexts() {
+    return texts != null ? texts : Collections.<Text> emptyList();
+  }
+
+  /**
+   * The shape without the outlines of its texts, or null if it only has text.
+   */
+  public Shape getShapeWithoutTexts() {
+    return texts != null ? shapeWithoutTexts : shape;
+  }
+
   public final void draw(Graphics2D g2d) {
     draw(g2d, IDENTITY);
   }
@@ -64,4 +109,47 @@ public class GraphShape {
     return txShape;
   }
 
+  /**
+   * A string drawn with its baseline starting at a point, laid out unrotated
+   * and every glyph then rotated by {@code rotation} radians around its own
+   * origin.
+   */
+  public static class Text {
+
+    private final String text;
+    private final Font font;
+    private final double x;
+    private final double y;
+    private final double rotation;
+
+    public Text(String text, Font font, double x, double y, double rotation) {
+      this.text = text;
+      this.font = font;
+      this.x = x;
+      this.y = y;
+      this.rotation = rotation;
+    }
+
+    public String getText() {
+      return text;
+    }
+
+    public Font getFont() {
+      return font;
+    }
+
+    public double getX() {
+      return x;
+    }
+
+    public double getY() {
+      return y;
+    }
+
+    public double getRotation() {
+      return rotation;
+    }
+
+  }
+
 }
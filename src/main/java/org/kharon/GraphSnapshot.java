@@ -0,0 +1,210 @@
+package org.kharon;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of the structure of a {@link Graph} at the time
+ * {@link Graph#snapshot()} was called. It shares storage with the graph, so it
+ * is cheap to take, and it can be read from any thread, concurrently, while
+ * the graph keeps being mutated on the event dispatch thread.
+ * <p>
+ * Only the structure is frozen: the {@link Node} and {@link Edge} instances
+ * are the live ones, so readers on other threads may observe attribute
+ * changes made after the snapshot was taken.
+ */
+public class GraphSnapshot {
+
+  private final String type;
+  private final GraphSettings settings;
+  private final AdjacencyStore store;
+  private final long version;
+
+  private final Map<Long, OverlappedEdges> overlappedEdges = new ConcurrentHashMap<>();
+
+  GraphSnapshot(String type, GraphSettings settings, AdjacencyStore store, long version) {
+    this.type = type;
+    this.settings = settings;
+    this.store = store;
+    this.version = version;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public GraphSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@link Graph#getVersion()} at the time the snapshot was taken.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  public int getSize() {
+    return store.getNodeCount();
+  }
+
+  public boolean isEmpty() {
+    return store.getNodeCount() == 0;
+  }
+
+  public Collection<Node> getNodes() {
+    return Collections.unmodifiableCollection(store.nodes());
+  }
+
+  public Set<String> getNodeIds() {
+    return Collections.unmodifiableSet(store.nodeIds());
+  }
+
+  public Collection<Edge> getEdges() {
+    return Collections.unmodifiableCollection(store.edges());
+  }
+
+  public Node getNode(String id) {
+    return store.getNode(id);
+  }
+
+  public Edge getEdge(String id) {
+    return store.getEdge(id);
+  }
+
+  public boolean containsNode(String id) {
+    return store.containsNode(id);
+  }
+
+  public boolean containsEdge(String id) {
+    return store.containsEdge(id);
+  }
+
+  public Set<Edge> getEdges(Node node) {
+    return store.collectEdges(store.indexOfNode(node.getId()), true, true, new HashSet<>());
+  }
+
+  public Set<Edge> getIncomingEdges(Node node) {
+    return store.collectEdges(store.indexOfNode(node.getId()), true, false, new HashSet<>());
+  }
+
+  public Set<Edge> getNodesEdges(Collection<String> nodeIds) {
+    Set<Edge> result = new HashSet<>();
+    for (String nodeId : nodeIds) {
+      store.collectEdges(store.indexOfNode(nodeId), true, true, result);
+    }
+    return result;
+  }
+
+  public Set<Node> getNeighbours(Node node) {
+    Set<Node> neighbours = store.collectNeighbours(store.indexOfNode(node.getId()), true, true, new HashSet<>());
+    neighbours.remove(node);
+    return neighbours;
+  }
+
+  public Set<Node> getOutcomingNeighbours(Node node) {
+    Set<Node> neighbours = store.collectNeighbours(store.indexOfNode(node.getId()), false, true, new HashSet<>());
+    neighbours.remove(node);
+    return neighbours;
+  }
+
+  /**
+   * Same as {@link Graph#getNodesOverlappedEdges(Collection)}. Pairs are built
+   * from the frozen adjacency the first time they are asked for and reused
+   * afterwards, so every caller sees the same instance for a pair.
+   */
+  public Collection<OverlappedEdges> getNodesOverlappedEdges(Collection<String> nodeIds) {
+    Set<OverlappedEdges> result = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (String nodeId : nodeIds) {
+      int node = store.indexOfNode(nodeId);
+      if (node == AdjacencyStore.NONE) {
+        continue;
+      }
+
+      Map<Long, List<Edge>> pairs = null;
+      for (int edge = store.firstOutcoming(node); edge != AdjacencyStore.NONE; edge = store.nextOutcoming(edge)) {
+        pairs = collectPair(pairs, node, store.targetOf(edge), edge, result);
+      }
+      for (int edge = store.firstIncoming(node); edge != AdjacencyStore.NONE; edge = store.nextIncoming(edge)) {
+        // Loops were already seen in the outcoming list.
+        if (store.sourceOf(edge) != node) {
+          pairs = collectPair(pairs, node, store.sourceOf(edge), edge, result);
+        }
+      }
+
+      if (pairs != null) {
+        for (Map.Entry<Long, List<Edge>> entry : pairs.entrySet()) {
+          OverlappedEdges pair = createPair(entry.getValue());
+          OverlappedEdges previous = overlappedEdges.putIfAbsent(entry.getKey(), pair);
+          result.add(previous != null ? previous : pair);
+        }
+      }
+    }
+    return result;
+  }
+
+  private Map<Long, List<Edge>> collectPair(Map<Long, List<Edge>> pairs, int node, int other, int edge,
+      Set<OverlappedEdges> result) {
+    long key = pairKey(node, other);
+    OverlappedEdges known = overlappedEdges.get(key);
+    if (known != null) {
+      result.add(known);
+      return pairs;
+    }
+    if (pairs == null) {
+      pairs = new HashMap<>();
+    }
+    pairs.computeIfAbsent(key, k -> new ArrayList<>()).add(store.edgeAt(edge));
+    return pairs;
+  }
+
+  private static OverlappedEdges createPair(List<Edge> edges) {
+    Edge first = edges.get(0);
+    OverlappedEdges pair = new OverlappedEdges(first.getSource(), first.getTarget());
+    for (Edge edge : edges) {
+      if (edge.getSource().equals(pair.getSource())) {
+        pair.addOutcomingEdge(edge);
+      } else {
+        pair.addIncomingEdge(edge);
+      }
+    }
+    return pair;
+  }
+
+  private static long pairKey(int a, int b) {
+    int low = Math.min(a, b);
+    int high = Math.max(a, b);
+    return ((long) low << 32) | (high & 0xFFFFFFFFL);
+  }
+
+  public Rectangle getBoundingBox() {
+    return store.getBoundingBox();
+  }
+
+  /**
+   * Mutable graph holding copies of the nodes of this snapshot, so they can be
+   * moved, for instance by a layout running on another thread, without
+   * touching the live nodes. Edges are shared.
+   */
+  public Graph copy() {
+    Graph copy = new Graph();
+    copy.setType(type);
+    List<Node> nodes = new ArrayList<>(store.getNodeCount());
+    for (Node node : store.nodes()) {
+      nodes.add(node.detach());
+    }
+    copy.addNodes(nodes);
+    copy.addEdges(new ArrayList<>(getEdges()));
+    return copy;
+  }
+
+}
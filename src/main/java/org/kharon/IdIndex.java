@@ -0,0 +1,146 @@
+package org.kharon;
+
+/**
+ * Open addressing map from element ids to dense int slots, used instead of a
+ * {@code HashMap<String, Integer>} to avoid an entry object and a boxed value
+ * per element. Its arrays are chunked so a copy shares them until either side
+ * writes.
+ */
+class IdIndex implements Cloneable {
+
+  static final int MISSING = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private ChunkedArray<String> keys;
+  private ChunkedIntArray values;
+  private int size;
+  private int capacity;
+  private int mask;
+
+  IdIndex() {
+    this(INITIAL_CAPACITY);
+  }
+
+  IdIndex(int expected) {
+    int capacity = INITIAL_CAPACITY;
+    while (capacity < expected * 2) {
+      capacity <<= 1;
+    }
+    this.keys = new ChunkedArray<>(capacity);
+    this.values = new ChunkedIntArray(capacity, MISSING);
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int get(String key) {
+    int index = hash(key) & mask;
+    String current;
+    while ((current = keys.get(index)) != null) {
+      if (current.equals(key)) {
+        return values.get(index);
+      }
+      index = (index + 1) & mask;
+    }
+    return MISSING;
+  }
+
+  void put(String key, int value) {
+    int index = hash(key) & mask;
+    String current;
+    while ((current = keys.get(index)) != null) {
+      if (current.equals(key)) {
+        values.set(index, value);
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys.set(index, key);
+    values.set(index, value);
+    if (++size * 2 > capacity) {
+      rehash(capacity << 1);
+    }
+  }
+
+  int remove(String key) {
+    int index = hash(key) & mask;
+    String current;
+    while ((current = keys.get(index)) != null) {
+      if (current.equals(key)) {
+        int value = values.get(index);
+        shiftBack(index);
+        size--;
+        return value;
+      }
+      index = (index + 1) & mask;
+    }
+    return MISSING;
+  }
+
+  /**
+   * Backward shift deletion, so lookups never have to skip tombstones.
+   */
+  private void shiftBack(int hole) {
+    int index = hole;
+    while (true) {
+      index = (index + 1) & mask;
+      String key = keys.get(index);
+      if (key == null) {
+        break;
+      }
+      int home = hash(key) & mask;
+      boolean movable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+      if (movable) {
+        keys.set(hole, key);
+        values.set(hole, values.get(index));
+        hole = index;
+      }
+    }
+    keys.set(hole, null);
+  }
+
+  private void rehash(int newCapacity) {
+    ChunkedArray<String> oldKeys = keys;
+    ChunkedIntArray oldValues = values;
+    int oldCapacity = capacity;
+
+    this.keys = new ChunkedArray<>(newCapacity);
+    this.values = new ChunkedIntArray(newCapacity, MISSING);
+    this.capacity = newCapacity;
+    this.mask = newCapacity - 1;
+
+    for (int i = 0; i < oldCapacity; i++) {
+      String key = oldKeys.get(i);
+      if (key != null) {
+        int index = hash(key) & mask;
+        while (keys.get(index) != null) {
+          index = (index + 1) & mask;
+        }
+        keys.set(index, key);
+        values.set(index, oldValues.get(i));
+      }
+    }
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  @Override
+  protected IdIndex clone() {
+    try {
+      IdIndex clone = (IdIndex) super.clone();
+      clone.keys = keys.share();
+      clone.values = values.share();
+      return clone;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
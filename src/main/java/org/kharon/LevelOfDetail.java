@@ -0,0 +1,29 @@
+package org.kharon;
+
+/**
+ * How much of the graph is drawn, chosen by {@link GraphPane} from the size
+ * nodes have on screen, with the thresholds of {@link GraphSettings}.
+ */
+public enum LevelOfDetail {
+
+  /**
+   * Node shapes, labels, edge labels and arrows.
+   */
+  FULL,
+
+  /**
+   * Node and edge shapes, without labels or arrows.
+   */
+  SHAPES,
+
+  /**
+   * Nodes as dots of at least one pixel and edges as hairlines.
+   */
+  DOTS,
+
+  /**
+   * Node density, without edges.
+   */
+  DENSITY
+
+}
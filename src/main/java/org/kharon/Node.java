@@ -2,10 +2,14 @@ package org.kharon;
 
 import java.awt.Color;
 import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Node implements Cloneable {
 
+  private static final NodeObserver[] NO_OBSERVERS = new NodeObserver[0];
+
   private String id;
   private String label;
 
@@ -23,6 +27,10 @@ public class Node implements Cloneable {
   private AtomicInteger incomingDegree = new AtomicInteger(0);
   private AtomicInteger outcomingDegree = new AtomicInteger(0);
 
+  private NodeObserver[] observers = NO_OBSERVERS;
+
+  private int version;
+
   private Node() {
     super();
   }
@@ -48,6 +56,7 @@ public class Node implements Cloneable {
 
   public void setType(String type) {
     this.type = type;
+    this.version++;
   }
 
   public int getX() {
@@ -55,7 +64,11 @@ public class Node implements Cloneable {
   }
 
   public void setX(int x) {
-    this.x = x;
+    if (this.x != x) {
+      this.x = x;
+      this.version++;
+      notifyBoundsChanged();
+    }
   }
 
   public int getY() {
@@ -63,7 +76,11 @@ public class Node implements Cloneable {
   }
 
   public void setY(int y) {
-    this.y = y;
+    if (this.y != y) {
+      this.y = y;
+      this.version++;
+      notifyBoundsChanged();
+    }
   }
 
   public int getSize() {
@@ -71,7 +88,11 @@ public class Node implements Cloneable {
   }
 
   public void setSize(int size) {
-    this.size = size;
+    if (this.size != size) {
+      this.size = size;
+      this.version++;
+      notifyBoundsChanged();
+    }
   }
 
   public Color getColor() {
@@ -80,6 +101,7 @@ public class Node implements Cloneable {
 
   public void setColor(Color color) {
     this.color = color;
+    this.version++;
   }
 
   public Color getLabelColor() {
@@ -88,6 +110,7 @@ public class Node implements Cloneable {
 
   public void setLabelColor(Color labelColor) {
     this.labelColor = labelColor;
+    this.version++;
   }
 
   public String getLabel() {
@@ -107,6 +130,7 @@ public class Node implements Cloneable {
 
   public void setLabel(String label) {
     this.label = label;
+    this.version++;
   }
 
   public String getLabelType() {
@@ -115,6 +139,7 @@ public class Node implements Cloneable {
 
   public void setLabelType(String labelType) {
     this.labelType = labelType;
+    this.version++;
   }
 
   public String getSelectionType() {
@@ -123,6 +148,15 @@ public class Node implements Cloneable {
 
   public void setSelectionType(String selectionType) {
     this.selectionType = selectionType;
+    this.version++;
+  }
+
+  /**
+   * Counter bumped by every setter, so whatever is derived from the node can
+   * tell whether it is still up to date.
+   */
+  public int getVersion() {
+    return version;
   }
 
   public int getDegree() {
@@ -153,6 +187,37 @@ public class Node implements Cloneable {
     this.outcomingDegree.decrementAndGet();
   }
 
+  void setDegrees(int incomingDegree, int outcomingDegree) {
+    this.incomingDegree.set(incomingDegree);
+    this.outcomingDegree.set(outcomingDegree);
+  }
+
+  void addObserver(NodeObserver observer) {
+    NodeObserver[] current = this.observers;
+    NodeObserver[] updated = Arrays.copyOf(current, current.length + 1);
+    updated[current.length] = observer;
+    this.observers = updated;
+  }
+
+  void removeObserver(NodeObserver observer) {
+    NodeObserver[] current = this.observers;
+    for (int index = 0; index < current.length; index++) {
+      if (current[index] == observer) {
+        NodeObserver[] updated = new NodeObserver[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        this.observers = updated.length > 0 ? updated : NO_OBSERVERS;
+        return;
+      }
+    }
+  }
+
+  private void notifyBoundsChanged() {
+    for (NodeObserver observer : this.observers) {
+      observer.boundsChanged(this);
+    }
+  }
+
   public boolean isHigherThan(Node o) {
     return y < o.y;
   }
@@ -229,10 +294,51 @@ public class Node implements Cloneable {
     clone.labelColor = labelColor;
 
     clone.incomingDegree = new AtomicInteger(incomingDegree.get());
+    clone.outcomingDegree = new AtomicInteger(outcomingDegree.get());
 
     return clone;
   }
 
+  /**
+   * Copy of this node as it is now, with its degrees but without observers,
+   * to be read on another thread while this one keeps changing.
+   */
+  Node copy() {
+    try {
+      Node copy = (Node) clone();
+      copy.version = version;
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Whether the other node has the same id and is drawn the same, like a copy
+   * of this node taken since its last change.
+   */
+  boolean looksLike(Node other) {
+    return id.equals(other.id) && x == other.x && y == other.y && size == other.size
+        && Objects.equals(label, other.label) && Objects.equals(type, other.type)
+        && Objects.equals(labelType, other.labelType) && Objects.equals(selectionType, other.selectionType)
+        && Objects.equals(color, other.color) && Objects.equals(labelColor, other.labelColor);
+  }
+
+  /**
+   * Copy of this node, without degrees or observers, to be added to another
+   * graph.
+   */
+  Node detach() {
+    try {
+      Node copy = (Node) clone();
+      copy.incomingDegree = new AtomicInteger(0);
+      copy.outcomingDegree = new AtomicInteger(0);
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   public double distance(Node neighbour) {
     double px = neighbour.getX() - this.getX();
     double py = neighbour.getY() - this.getY();
@@ -51,6 +51,20 @@ public class NodeBoundingBox {
     return false;
   }
 
+  /**
+   * How far the boxes reach out of the bounds of the node.
+   */
+  double getMargin(Node node) {
+    double margin = 0d;
+    for (Shape shape : boxes) {
+      Rectangle2D bounds = shape.getBounds2D();
+      margin = Math.max(margin,
+          Math.max(Math.max(node.getX() - bounds.getMinX(), bounds.getMaxX() - node.getX() - node.getSize()),
+              Math.max(node.getY() - bounds.getMinY(), bounds.getMaxY() - node.getY() - node.getSize())));
+    }
+    return margin;
+  }
+
   public List<Shape> getBoxes() {
     return boxes;
   }
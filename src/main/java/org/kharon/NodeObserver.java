@@ -0,0 +1,10 @@
+package org.kharon;
+
+/**
+ * Notified by a {@link Node} when its position or size changes.
+ */
+interface NodeObserver {
+
+  void boundsChanged(Node node);
+
+}
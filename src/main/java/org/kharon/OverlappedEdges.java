@@ -2,11 +2,14 @@ package org.kharon;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
 
 public class OverlappedEdges extends Edge{
     
-    private Collection<Edge> incomingEdges = new ArrayList<>();
-    private Collection<Edge> outcomingEdges = new ArrayList<>();
+    // linked sets, so edges are removed in constant time and kept in order
+    private Collection<Edge> incomingEdges = new LinkedHashSet<>();
+    private Collection<Edge> outcomingEdges = new LinkedHashSet<>();
     
     public OverlappedEdges(Node source, Node target) {
         this(source.getId(), target.getId());
@@ -15,18 +18,31 @@ public class OverlappedEdges extends Edge{
     public OverlappedEdges(String source, String target) {
         this.source = source;
         this.target = target;
+        this.id = getPairId(source, target);
+    }
+
+    static String getPairId(String source, String target) {
         if(source.compareTo(target) <= 0)
-            this.id = source + "-" + target;
+            return source + "-" + target;
         else
-            this.id = target + "-" + source;
+            return target + "-" + source;
     }
     
     public void addIncomingEdge(Edge edge) {
         this.incomingEdges.add(edge);
+        this.version++;
     }
     
     public void addOutcomingEdge(Edge edge) {
         this.outcomingEdges.add(edge);
+        this.version++;
+    }
+    
+    public void removeEdge(Edge edge) {
+        if(!this.outcomingEdges.remove(edge)) {
+            this.incomingEdges.remove(edge);
+        }
+        this.version++;
     }
     
     public Collection<Edge> getEdges() {
@@ -43,6 +59,29 @@ public class OverlappedEdges extends Edge{
         return incomingEdges.size() > 0 && outcomingEdges.size() > 0;
     }
 
+    /**
+     * Whether the other pair joins the same nodes through the same edges, and
+     * looks the same.
+     */
+    boolean hasSameEdges(OverlappedEdges other) {
+        return source.equals(other.source) && target.equals(other.target)
+            && Objects.equals(getColor(), other.getColor()) && Objects.equals(getLabel(), other.getLabel())
+            && incomingEdges.equals(other.incomingEdges) && outcomingEdges.equals(other.outcomingEdges);
+    }
+
+    /**
+     * Copy of the pair as it is now, to be read on another thread while this
+     * one keeps changing.
+     */
+    OverlappedEdges copy() {
+        OverlappedEdges copy = new OverlappedEdges(source, target);
+        copy.incomingEdges.addAll(incomingEdges);
+        copy.outcomingEdges.addAll(outcomingEdges);
+        copy.setColor(getColor());
+        copy.setLabel(getLabel());
+        return copy;
+    }
+
     public boolean isReverseDirection() {
         return incomingEdges.size() > 0 && outcomingEdges.size() == 0; 
     }
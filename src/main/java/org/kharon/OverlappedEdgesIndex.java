@@ -0,0 +1,147 @@
+package org.kharon;
+
+import java.util.Arrays;
+
+/**
+ * Keeps one {@link OverlappedEdges} per unordered pair of connected nodes,
+ * updated in constant time as edges are added and removed. Pairs are keyed by
+ * the store slots of their nodes, and every edge slot points to its pair, so
+ * collecting the pairs of a node only walks its adjacency lists.
+ */
+class OverlappedEdgesIndex {
+
+  private static final long EMPTY = -1L;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys = newKeys(INITIAL_CAPACITY);
+  private OverlappedEdges[] values = new OverlappedEdges[INITIAL_CAPACITY];
+  private int mask = INITIAL_CAPACITY - 1;
+  private int size;
+
+  private OverlappedEdges[] pairOfEdge = new OverlappedEdges[INITIAL_CAPACITY];
+
+  int size() {
+    return size;
+  }
+
+  OverlappedEdges get(int edgeSlot) {
+    return edgeSlot < pairOfEdge.length ? pairOfEdge[edgeSlot] : null;
+  }
+
+  /**
+   * The pair joining the nodes in the given slots, in either direction, or null.
+   */
+  OverlappedEdges get(int sourceSlot, int targetSlot) {
+    long key = key(sourceSlot, targetSlot);
+    int index = find(key);
+    return keys[index] == key ? values[index] : null;
+  }
+
+  void add(int edgeSlot, Edge edge, int sourceSlot, int targetSlot) {
+    long key = key(sourceSlot, targetSlot);
+    int index = find(key);
+    OverlappedEdges pair;
+    if (keys[index] == key) {
+      pair = values[index];
+    } else {
+      pair = new OverlappedEdges(edge.getSource(), edge.getTarget());
+      keys[index] = key;
+      values[index] = pair;
+      if (++size * 2 > keys.length) {
+        rehash(keys.length << 1);
+      }
+    }
+
+    if (edge.getSource().equals(pair.getSource())) {
+      pair.addOutcomingEdge(edge);
+    } else {
+      pair.addIncomingEdge(edge);
+    }
+
+    if (edgeSlot >= pairOfEdge.length) {
+      pairOfEdge = Arrays.copyOf(pairOfEdge, Math.max(edgeSlot + 1, pairOfEdge.length + (pairOfEdge.length >> 1)));
+    }
+    pairOfEdge[edgeSlot] = pair;
+  }
+
+  void remove(int edgeSlot, Edge edge, int sourceSlot, int targetSlot) {
+    OverlappedEdges pair = get(edgeSlot);
+    if (pair == null) {
+      return;
+    }
+    pairOfEdge[edgeSlot] = null;
+    pair.removeEdge(edge);
+
+    if (pair.getEdgeCount() == 0) {
+      long key = key(sourceSlot, targetSlot);
+      int index = find(key);
+      if (keys[index] == key) {
+        shiftBack(index);
+        size--;
+      }
+    }
+  }
+
+  private int find(long key) {
+    int index = hash(key) & mask;
+    while (keys[index] != EMPTY && keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private void shiftBack(int hole) {
+    int index = hole;
+    while (true) {
+      index = (index + 1) & mask;
+      long key = keys[index];
+      if (key == EMPTY) {
+        break;
+      }
+      int home = hash(key) & mask;
+      boolean movable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+      if (movable) {
+        keys[hole] = key;
+        values[hole] = values[index];
+        hole = index;
+      }
+    }
+    keys[hole] = EMPTY;
+    values[hole] = null;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    OverlappedEdges[] oldValues = values;
+
+    this.keys = newKeys(capacity);
+    this.values = new OverlappedEdges[capacity];
+    this.mask = capacity - 1;
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int index = find(oldKeys[i]);
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private static long key(int a, int b) {
+    int low = Math.min(a, b);
+    int high = Math.max(a, b);
+    return ((long) low << 32) | (high & 0xFFFFFFFFL);
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static long[] newKeys(int capacity) {
+    long[] keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    return keys;
+  }
+
+}
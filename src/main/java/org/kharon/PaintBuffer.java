@@ -0,0 +1,181 @@
+package org.kharon;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translucent offscreen image reused across paints. It is cleared at the
+ * start of every frame and only reallocated when the requested size outgrows
+ * it, or shrinks to less than half of it. Given a graphics configuration it is
+ * backed by a {@link VolatileImage}, so blits can be accelerated.
+ */
+class PaintBuffer {
+
+  private BufferedImage image;
+  private VolatileImage volatileImage;
+
+  private int width;
+  private int height;
+
+  private long allocationCount;
+  private long allocatedBytes;
+
+  /**
+   * @param configuration the configuration of the screen the buffer is blitted
+   *          to, for an accelerated buffer, or null.
+   * @param background the color to clear the buffer to, or null to clear it to
+   *          transparent.
+   */
+  Graphics2D begin(GraphicsConfiguration configuration, int width, int height, Color background) {
+    this.width = Math.max(width, 1);
+    this.height = Math.max(height, 1);
+
+    Image target = configuration != null ? prepareVolatileImage(configuration) : prepareImage();
+    Graphics2D g2d = (Graphics2D) target.getGraphics();
+    clear(g2d, new Rectangle(0, 0, this.width, this.height), background);
+    g2d.clipRect(0, 0, this.width, this.height);
+    return g2d;
+  }
+
+  /**
+   * Starts a frame of the same size as the previous one that keeps its
+   * contents, moved by {@code (dx, dy)} pixels. The strips exposed by the move,
+   * as given by {@link #getExposedStrips}, are cleared for the caller to paint.
+   *
+   * @return null if there are no previous contents of that size to keep, in
+   *         which case {@link #begin} has to be used.
+   */
+  Graphics2D beginShifted(GraphicsConfiguration configuration, int width, int height, Color background, int dx,
+      int dy) {
+    if (Math.max(width, 1) != this.width || Math.max(height, 1) != this.height) {
+      return null;
+    }
+    Image target;
+    if (configuration != null) {
+      if (volatileImage == null || volatileImage.validate(configuration) != VolatileImage.IMAGE_OK
+          || volatileImage.contentsLost()) {
+        return null;
+      }
+      target = volatileImage;
+    } else {
+      if (image == null) {
+        return null;
+      }
+      target = image;
+    }
+
+    Graphics2D g2d = (Graphics2D) target.getGraphics();
+    g2d.clipRect(0, 0, this.width, this.height);
+    if (dx != 0 || dy != 0) {
+      // Translucent pixels have to replace what they are copied over.
+      g2d.setComposite(AlphaComposite.Src);
+      g2d.copyArea(0, 0, this.width, this.height, dx, dy);
+      g2d.setComposite(AlphaComposite.SrcOver);
+      for (Rectangle strip : getExposedStrips(this.width, this.height, dx, dy)) {
+        clear(g2d, strip, background);
+      }
+    }
+    return g2d;
+  }
+
+  /**
+   * Areas of a frame not covered by the previous frame once moved by
+   * {@code (dx, dy)}: at most a vertical and a horizontal strip, not
+   * overlapping.
+   */
+  static List<Rectangle> getExposedStrips(int width, int height, int dx, int dy) {
+    List<Rectangle> strips = new ArrayList<>(2);
+    int columns = Math.min(Math.abs(dx), width);
+    if (columns > 0) {
+      strips.add(new Rectangle(dx > 0 ? 0 : width - columns, 0, columns, height));
+    }
+    int rows = Math.min(Math.abs(dy), height);
+    if (rows > 0 && columns < width) {
+      strips.add(new Rectangle(dx > 0 ? columns : 0, dy > 0 ? 0 : height - rows, width - columns, rows));
+    }
+    return strips;
+  }
+
+  /**
+   * Draws the area painted since {@link #begin} at the given position.
+   *
+   * @return false if an accelerated buffer lost its contents, in which case the
+   *         frame has to be painted again.
+   */
+  boolean drawTo(Graphics2D g2d, int x, int y) {
+    Image source = volatileImage != null ? volatileImage : image;
+    g2d.drawImage(source, x, y, x + width, y + height, 0, 0, width, height, null);
+    return volatileImage == null || !volatileImage.contentsLost();
+  }
+
+  private static void clear(Graphics2D g2d, Rectangle area, Color background) {
+    if (background != null) {
+      g2d.setBackground(background);
+      g2d.clearRect(area.x, area.y, area.width, area.height);
+    } else {
+      g2d.setComposite(AlphaComposite.Clear);
+      g2d.fillRect(area.x, area.y, area.width, area.height);
+      g2d.setComposite(AlphaComposite.SrcOver);
+    }
+  }
+
+  void release() {
+    if (volatileImage != null) {
+      volatileImage.flush();
+      volatileImage = null;
+    }
+    image = null;
+  }
+
+  long getAllocationCount() {
+    return allocationCount;
+  }
+
+  long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  private Image prepareImage() {
+    if (volatileImage != null) {
+      volatileImage.flush();
+      volatileImage = null;
+    }
+    if (image == null || needsResize(image.getWidth(), image.getHeight())) {
+      image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      allocated();
+    }
+    return image;
+  }
+
+  private Image prepareVolatileImage(GraphicsConfiguration configuration) {
+    image = null;
+    if (volatileImage == null || needsResize(volatileImage.getWidth(), volatileImage.getHeight())
+        || volatileImage.validate(configuration) == VolatileImage.IMAGE_INCOMPATIBLE) {
+      if (volatileImage != null) {
+        volatileImage.flush();
+      }
+      volatileImage = configuration.createCompatibleVolatileImage(width, height, Transparency.TRANSLUCENT);
+      allocated();
+    }
+    return volatileImage;
+  }
+
+  private boolean needsResize(int currentWidth, int currentHeight) {
+    return width > currentWidth || height > currentHeight || width * 2 < currentWidth || height * 2 < currentHeight;
+  }
+
+  private void allocated() {
+    allocationCount++;
+    allocatedBytes += 4L * width * height;
+  }
+
+}
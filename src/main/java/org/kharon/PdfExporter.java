@@ -0,0 +1,315 @@
+package org.kharon;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.kharon.renderers.Renderers;
+
+/**
+ * Writes a graph as a single page PDF, one stage unit per point. The page
+ * content is deflated as it is written; the objects needing its length and the
+ * transparencies it used follow it. Texts are written in Helvetica, one of the
+ * standard fonts, so no font is embedded, and characters out of its encoding
+ * are written as question marks.
+ */
+public class PdfExporter extends VectorExporter {
+
+  private static final int CATALOG = 1;
+  private static final int PAGES = 2;
+  private static final int PAGE = 3;
+  private static final int CONTENT = 4;
+  private static final int CONTENT_LENGTH = 5;
+  private static final int RESOURCES = 6;
+  private static final int FONT = 7;
+
+  private CountingOutputStream out;
+  private List<Long> offsets;
+  private Rectangle2D page;
+  private DeflaterOutputStream content;
+  private Deflater deflater;
+  private long contentStart;
+  private SortedSet<Integer> alphas;
+  private boolean filled;
+  private final StringBuilder line = new StringBuilder();
+  private final double[] coords = new double[6];
+  private double lastX;
+  private double lastY;
+
+  public PdfExporter() {
+    this(new Renderers());
+  }
+
+  public PdfExporter(Renderers renderers) {
+    super(renderers);
+  }
+
+  @Override
+  protected void begin(OutputStream out, Rectangle2D page) throws IOException {
+    this.out = new CountingOutputStream(out);
+    this.offsets = new ArrayList<>();
+    this.page = page;
+    this.alphas = new TreeSet<>();
+    write("%PDF-1.4\n%âãÏÓ\n");
+
+    startObject(CONTENT);
+    write("<< /Length " + CONTENT_LENGTH + " 0 R /Filter /FlateDecode >>\nstream\n");
+    this.out.flush();
+    this.contentStart = this.out.count;
+    this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    this.content = new DeflaterOutputStream(this.out, this.deflater, 64 * 1024);
+    // stage coordinates grow downwards, PDF ones upwards
+    this.line.append("1 0 0 -1 ");
+    appendNumber(-page.getX());
+    appendNumber(page.getMaxY());
+    this.line.append("cm\n");
+    flushLine();
+  }
+
+  @Override
+  protected void beginGroup(Color color, boolean filled) throws IOException {
+    float[] rgb = color.getRGBColorComponents(null);
+    for (float component : rgb) {
+      appendNumber(component);
+    }
+    this.line.append("rg ");
+    for (float component : rgb) {
+      appendNumber(component);
+    }
+    this.line.append("RG 1 w /GS").append(color.getAlpha()).append(" gs\n");
+    this.alphas.add(color.getAlpha());
+    this.filled = filled;
+    flushLine();
+  }
+
+  @Override
+  protected void writePath(Shape shape) throws IOException {
+    PathIterator iterator = shape.getPathIterator(null);
+    for (; !iterator.isDone(); iterator.next()) {
+      switch (iterator.currentSegment(this.coords)) {
+      case PathIterator.SEG_MOVETO:
+        appendPoints(1);
+        this.line.append("m\n");
+        break;
+      case PathIterator.SEG_LINETO:
+        appendPoints(1);
+        this.line.append("l\n");
+        break;
+      case PathIterator.SEG_QUADTO:
+        // as a cubic curve with the same end points
+        double x1 = this.lastX + 2d / 3d * (this.coords[0] - this.lastX);
+        double y1 = this.lastY + 2d / 3d * (this.coords[1] - this.lastY);
+        double x2 = this.coords[2] + 2d / 3d * (this.coords[0] - this.coords[2]);
+        double y2 = this.coords[3] + 2d / 3d * (this.coords[1] - this.coords[3]);
+        appendNumber(x1);
+        appendNumber(y1);
+        appendNumber(x2);
+        appendNumber(y2);
+        this.coords[0] = this.coords[2];
+        this.coords[1] = this.coords[3];
+        appendPoints(1);
+        this.line.append("c\n");
+        break;
+      case PathIterator.SEG_CUBICTO:
+        appendPoints(3);
+        this.line.append("c\n");
+        break;
+      case PathIterator.SEG_CLOSE:
+        this.line.append("h\n");
+        break;
+      }
+      if (this.line.length() > 4096) {
+        flushLine();
+      }
+    }
+    this.line.append(this.filled ? (iterator.getWindingRule() == PathIterator.WIND_EVEN_ODD ? "f*\n" : "f\n") : "S\n");
+    flushLine();
+  }
+
+  @Override
+  protected void writeText(GraphShape.Text text) throws IOException {
+    double cos = Math.cos(text.getRotation());
+    double sin = Math.sin(text.getRotation());
+    String value = text.getText();
+    this.line.append("BT /F1 ");
+    appendNumber(text.getFont().getSize2D());
+    this.line.append("Tf\n");
+    if (text.getRotation() != 0d) {
+      // every glyph placed and rotated on its own, as the outlines are
+      double[] offsets = getCharacterOffsets(text);
+      for (int i = 0; i < value.length(); i++) {
+        appendTextMatrix(cos, sin, text.getX() + offsets[i], text.getY());
+        appendString(value.substring(i, i + 1));
+      }
+    } else {
+      appendTextMatrix(cos, sin, text.getX(), text.getY());
+      appendString(value);
+    }
+    this.line.append("ET\n");
+    flushLine();
+  }
+
+  private void appendTextMatrix(double cos, double sin, double x, double y) {
+    // upright glyphs in the flipped coordinates
+    appendNumber(cos);
+    appendNumber(sin);
+    appendNumber(sin);
+    appendNumber(-cos);
+    appendNumber(x);
+    appendNumber(y);
+    this.line.append("Tm ");
+  }
+
+  private void appendString(String value) {
+    this.line.append('(');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '(' || c == ')' || c == '\\') {
+        this.line.append('\\').append(c);
+      } else if (c < 32 || c > 255) {
+        this.line.append('?');
+      } else {
+        this.line.append(c);
+      }
+    }
+    this.line.append(") Tj\n");
+  }
+
+  @Override
+  protected void endGroup() throws IOException {
+  }
+
+  @Override
+  protected void end() throws IOException {
+    this.content.finish();
+    this.deflater.end();
+    long length = this.out.count - this.contentStart;
+    write("\nendstream\nendobj\n");
+
+    startObject(CONTENT_LENGTH);
+    write(length + "\nendobj\n");
+
+    startObject(CATALOG);
+    write("<< /Type /Catalog /Pages " + PAGES + " 0 R >>\nendobj\n");
+
+    startObject(PAGES);
+    write("<< /Type /Pages /Kids [" + PAGE + " 0 R] /Count 1 >>\nendobj\n");
+
+    startObject(PAGE);
+    write("<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox [0 0 " + format(this.page.getWidth()) + " "
+        + format(this.page.getHeight()) + "] /Contents " + CONTENT + " 0 R /Resources " + RESOURCES
+        + " 0 R >>\nendobj\n");
+
+    startObject(RESOURCES);
+    StringBuilder states = new StringBuilder();
+    for (int alpha : this.alphas) {
+      String opacity = format(alpha / 255d);
+      states.append(" /GS").append(alpha).append(" << /Type /ExtGState /ca ").append(opacity).append(" /CA ")
+          .append(opacity).append(" >>");
+    }
+    write("<< /Font << /F1 " + FONT + " 0 R >> /ExtGState <<" + states + " >> >>\nendobj\n");
+
+    startObject(FONT);
+    write("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+    long xref = this.out.count;
+    StringBuilder table = new StringBuilder();
+    table.append("xref\n0 ").append(this.offsets.size() + 1).append("\n0000000000 65535 f \n");
+    for (int object = 1; object <= this.offsets.size(); object++) {
+      table.append(String.format(Locale.ROOT, "%010d 00000 n \n", this.offsets.get(object - 1)));
+    }
+    table.append("trailer\n<< /Size ").append(this.offsets.size() + 1).append(" /Root ").append(CATALOG)
+        .append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+    write(table.toString());
+    this.out.flush();
+    this.out = null;
+    this.content = null;
+  }
+
+  private void startObject(int object) throws IOException {
+    while (this.offsets.size() < object) {
+      this.offsets.add(0L);
+    }
+    this.offsets.set(object - 1, this.out.count);
+    write(object + " 0 obj\n");
+  }
+
+  private void write(String text) throws IOException {
+    this.out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+  }
+
+  private void flushLine() throws IOException {
+    this.content.write(this.line.toString().getBytes(StandardCharsets.ISO_8859_1));
+    this.line.setLength(0);
+  }
+
+  private void appendPoints(int points) {
+    for (int i = 0; i < 2 * points; i++) {
+      appendNumber(this.coords[i]);
+    }
+    this.lastX = this.coords[2 * points - 2];
+    this.lastY = this.coords[2 * points - 1];
+  }
+
+  private void appendNumber(double value) {
+    this.line.append(format(value)).append(' ');
+  }
+
+  /**
+   * The number rounded to three decimals, without trailing zeros.
+   */
+  private static String format(double value) {
+    long thousandths = Math.round(value * 1000d);
+    StringBuilder result = new StringBuilder();
+    if (thousandths < 0) {
+      result.append('-');
+      thousandths = -thousandths;
+    }
+    result.append(thousandths / 1000);
+    int fraction = (int) (thousandths % 1000);
+    if (fraction != 0) {
+      String digits = String.valueOf(1000 + fraction).substring(1);
+      int end = digits.length();
+      while (digits.charAt(end - 1) == '0') {
+        end--;
+      }
+      result.append('.').append(digits, 0, end);
+    }
+    return result.toString();
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+
+  }
+
+}
@@ -0,0 +1,140 @@
+package org.kharon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a truecolor PNG with alpha row by row, so images far larger than the
+ * heap can be encoded. Rows are deflated as they come and flushed in image
+ * data chunks of bounded size.
+ */
+class PngStreamWriter {
+
+  private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final DataOutputStream out;
+  private final int width;
+  private final int height;
+  private final DeflaterOutputStream data;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+  private final byte[] row;
+  private int rows;
+
+  PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Image must have at least one pixel.");
+    }
+    this.out = new DataOutputStream(out);
+    this.width = width;
+    this.height = height;
+    this.row = new byte[1 + 4 * width];
+
+    this.out.write(SIGNATURE);
+    DataChunk header = new DataChunk("IHDR");
+    DataOutputStream headerData = new DataOutputStream(header);
+    headerData.writeInt(width);
+    headerData.writeInt(height);
+    headerData.writeByte(8); // bit depth
+    headerData.writeByte(6); // truecolor with alpha
+    headerData.writeByte(0); // deflate
+    headerData.writeByte(0); // adaptive filtering
+    headerData.writeByte(0); // no interlace
+    header.close();
+
+    this.data = new DeflaterOutputStream(new DataChunk("IDAT"), this.deflater, CHUNK_SIZE);
+  }
+
+  /**
+   * Writes the next row from {@code width} ARGB pixels starting at the offset.
+   */
+  void writeRow(int[] argb, int offset) throws IOException {
+    if (this.rows == this.height) {
+      throw new IllegalStateException("All rows were already written.");
+    }
+    // filter type 0, none
+    this.row[0] = 0;
+    for (int x = 0, i = 1; x < this.width; x++) {
+      int pixel = argb[offset + x];
+      this.row[i++] = (byte) (pixel >> 16);
+      this.row[i++] = (byte) (pixel >> 8);
+      this.row[i++] = (byte) pixel;
+      this.row[i++] = (byte) (pixel >>> 24);
+    }
+    this.data.write(this.row);
+    this.rows++;
+  }
+
+  /**
+   * Ends the image, leaving the underlying stream open.
+   */
+  void finish() throws IOException {
+    if (this.rows != this.height) {
+      throw new IllegalStateException(this.rows + " of " + this.height + " rows were written.");
+    }
+    this.data.close();
+    this.deflater.end();
+    new DataChunk("IEND").close();
+    this.out.flush();
+  }
+
+  /**
+   * Buffers the data of chunks of a type, writing a chunk whenever the buffer
+   * fills up and on close.
+   */
+  private class DataChunk extends OutputStream {
+
+    private final byte[] type;
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+    private int size;
+
+    DataChunk(String type) {
+      this.type = type.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (this.size == this.buffer.length) {
+        writeChunk();
+      }
+      this.buffer[this.size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (this.size == this.buffer.length) {
+          writeChunk();
+        }
+        int count = Math.min(len, this.buffer.length - this.size);
+        System.arraycopy(b, off, this.buffer, this.size, count);
+        this.size += count;
+        off += count;
+        len -= count;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      writeChunk();
+    }
+
+    private void writeChunk() throws IOException {
+      CRC32 crc = new CRC32();
+      crc.update(this.type);
+      crc.update(this.buffer, 0, this.size);
+      out.writeInt(this.size);
+      out.write(this.type);
+      out.write(this.buffer, 0, this.size);
+      out.writeInt((int) crc.getValue());
+      this.size = 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,307 @@
+package org.kharon;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Region quadtree of axis aligned bounds. Every item lives in the smallest
+ * cell that fully contains it, so point, rectangle and nearest neighbour
+ * queries only visit the cells around the query. The root grows as items are
+ * placed outside of it.
+ */
+public class QuadTree<T> {
+
+  private static final int CELL_CAPACITY = 8;
+  private static final double INITIAL_SIZE = 1024d;
+  private static final double MIN_CELL_SIZE = 1d;
+  private static final double MAX_SIZE = 1e15d;
+
+  private final Map<T, Entry<T>> entries = new HashMap<>();
+  private Cell<T> root;
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  public boolean contains(T item) {
+    return entries.containsKey(item);
+  }
+
+  public Rectangle2D getBounds(T item) {
+    Entry<T> entry = entries.get(item);
+    return entry != null ? new Rectangle2D.Double(entry.minX, entry.minY, entry.maxX - entry.minX, entry.maxY - entry.minY)
+        : null;
+  }
+
+  /**
+   * Adds the item or moves it to the given bounds.
+   */
+  public void put(T item, double x, double y, double width, double height) {
+    Entry<T> entry = entries.get(item);
+    if (entry == null) {
+      entry = new Entry<>(item);
+      entries.put(item, entry);
+    } else {
+      entry.item = item;
+      Cell<T> cell = entry.cell;
+      if (cell.contains(x, y, x + width, y + height)
+          && (cell.children == null || cell.childContaining(x, y, x + width, y + height) == null)) {
+        entry.setBounds(x, y, width, height);
+        return;
+      }
+      cell.entries.remove(entry);
+    }
+    entry.setBounds(x, y, width, height);
+    insert(entry);
+  }
+
+  public boolean remove(T item) {
+    Entry<T> entry = entries.remove(item);
+    if (entry == null) {
+      return false;
+    }
+    entry.cell.entries.remove(entry);
+    return true;
+  }
+
+  public void clear() {
+    entries.clear();
+    root = null;
+  }
+
+  /**
+   * Items whose bounds intersect the area, borders included.
+   */
+  public List<T> query(Rectangle2D area) {
+    return query(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY());
+  }
+
+  /**
+   * Items whose bounds contain the point, borders included.
+   */
+  public List<T> query(double x, double y) {
+    return query(x, y, x, y);
+  }
+
+  private List<T> query(double minX, double minY, double maxX, double maxY) {
+    List<T> result = new ArrayList<>();
+    if (root == null) {
+      return result;
+    }
+    Deque<Cell<T>> cells = new ArrayDeque<>();
+    cells.push(root);
+    while (!cells.isEmpty()) {
+      Cell<T> cell = cells.pop();
+      for (Entry<T> entry : cell.entries) {
+        if (entry.intersects(minX, minY, maxX, maxY)) {
+          result.add(entry.item);
+        }
+      }
+      if (cell.children != null) {
+        for (Cell<T> child : cell.children) {
+          if (child.intersects(minX, minY, maxX, maxY)) {
+            cells.push(child);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Up to {@code count} items ordered by the distance from their bounds to the
+   * point.
+   */
+  public List<T> nearest(double x, double y, int count) {
+    List<T> result = new ArrayList<>(Math.min(count, entries.size()));
+    if (root == null || count <= 0) {
+      return result;
+    }
+    PriorityQueue<Candidate<T>> candidates = new PriorityQueue<>();
+    candidates.add(new Candidate<>(root.distance(x, y), root, null));
+    while (!candidates.isEmpty() && result.size() < count) {
+      Candidate<T> candidate = candidates.poll();
+      if (candidate.entry != null) {
+        result.add(candidate.entry.item);
+        continue;
+      }
+      Cell<T> cell = candidate.cell;
+      for (Entry<T> entry : cell.entries) {
+        candidates.add(new Candidate<>(entry.distance(x, y), null, entry));
+      }
+      if (cell.children != null) {
+        for (Cell<T> child : cell.children) {
+          candidates.add(new Candidate<>(child.distance(x, y), child, null));
+        }
+      }
+    }
+    return result;
+  }
+
+  private void insert(Entry<T> entry) {
+    if (root == null) {
+      double x = Math.floor(entry.minX / INITIAL_SIZE) * INITIAL_SIZE;
+      double y = Math.floor(entry.minY / INITIAL_SIZE) * INITIAL_SIZE;
+      root = new Cell<>(x, y, INITIAL_SIZE);
+    }
+    while (!root.contains(entry.minX, entry.minY, entry.maxX, entry.maxY)) {
+      grow(entry);
+    }
+    root.insert(entry);
+  }
+
+  /**
+   * Doubles the root towards the entry, keeping the old root as a quadrant.
+   */
+  private void grow(Entry<T> entry) {
+    if (root.size > MAX_SIZE) {
+      throw new IllegalArgumentException("Bounds out of range: " + entry.item);
+    }
+    double x = entry.minX < root.x ? root.x - root.size : root.x;
+    double y = entry.minY < root.y ? root.y - root.size : root.y;
+    Cell<T> newRoot = new Cell<>(x, y, root.size * 2d);
+    newRoot.split();
+    int quadrant = (root.x > x ? 1 : 0) + (root.y > y ? 2 : 0);
+    newRoot.children[quadrant] = root;
+    root = newRoot;
+  }
+
+  private static final class Entry<T> {
+
+    private T item;
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private Cell<T> cell;
+
+    Entry(T item) {
+      this.item = item;
+    }
+
+    void setBounds(double x, double y, double width, double height) {
+      this.minX = x;
+      this.minY = y;
+      this.maxX = x + width;
+      this.maxY = y + height;
+    }
+
+    boolean intersects(double minX, double minY, double maxX, double maxY) {
+      return this.minX <= maxX && minX <= this.maxX && this.minY <= maxY && minY <= this.maxY;
+    }
+
+    double distance(double x, double y) {
+      double dx = Math.max(Math.max(minX - x, x - maxX), 0d);
+      double dy = Math.max(Math.max(minY - y, y - maxY), 0d);
+      return Math.sqrt(dx * dx + dy * dy);
+    }
+
+  }
+
+  private static final class Cell<T> {
+
+    private final double x;
+    private final double y;
+    private final double size;
+    private final List<Entry<T>> entries = new ArrayList<>(2);
+    private Cell<T>[] children;
+
+    Cell(double x, double y, double size) {
+      this.x = x;
+      this.y = y;
+      this.size = size;
+    }
+
+    boolean contains(double minX, double minY, double maxX, double maxY) {
+      return minX >= x && minY >= y && maxX < x + size && maxY < y + size;
+    }
+
+    boolean intersects(double minX, double minY, double maxX, double maxY) {
+      return x <= maxX && minX < x + size && y <= maxY && minY < y + size;
+    }
+
+    double distance(double px, double py) {
+      double dx = Math.max(Math.max(x - px, px - (x + size)), 0d);
+      double dy = Math.max(Math.max(y - py, py - (y + size)), 0d);
+      return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    Cell<T> childContaining(double minX, double minY, double maxX, double maxY) {
+      for (Cell<T> child : children) {
+        if (child.contains(minX, minY, maxX, maxY)) {
+          return child;
+        }
+      }
+      return null;
+    }
+
+    void insert(Entry<T> entry) {
+      Cell<T> cell = this;
+      while (cell.children != null) {
+        Cell<T> child = cell.childContaining(entry.minX, entry.minY, entry.maxX, entry.maxY);
+        if (child == null) {
+          break;
+        }
+        cell = child;
+      }
+      cell.entries.add(entry);
+      entry.cell = cell;
+
+      if (cell.children == null && cell.entries.size() > CELL_CAPACITY && cell.size / 2d >= MIN_CELL_SIZE) {
+        cell.split();
+        List<Entry<T>> current = new ArrayList<>(cell.entries);
+        cell.entries.clear();
+        for (Entry<T> moved : current) {
+          cell.insert(moved);
+        }
+      }
+    }
+
+    void split() {
+      double half = size / 2d;
+      @SuppressWarnings("unchecked")
+      Cell<T>[] cells = (Cell<T>[]) new Cell<?>[4];
+      cells[0] = new Cell<>(x, y, half);
+      cells[1] = new Cell<>(x + half, y, half);
+      cells[2] = new Cell<>(x, y + half, half);
+      cells[3] = new Cell<>(x + half, y + half, half);
+      children = cells;
+    }
+
+  }
+
+  private static final class Candidate<T> implements Comparable<Candidate<T>> {
+
+    private final double distance;
+    private final Cell<T> cell;
+    private final Entry<T> entry;
+
+    Candidate(double distance, Cell<T> cell, Entry<T> entry) {
+      this.distance = distance;
+      this.cell = cell;
+      this.entry = entry;
+    }
+
+    @Override
+    public int compareTo(Candidate<T> o) {
+      int result = Double.compare(distance, o.distance);
+      if (result == 0) {
+        // Items before cells at the same distance, so ties are settled early.
+        result = Boolean.compare(entry == null, o.entry == null);
+      }
+      return result;
+    }
+
+  }
+
+}
@@ -0,0 +1,22 @@
+package org.kharon;
+
+/**
+ * Events counted by a {@link GraphPane} while painting.
+ */
+public enum RenderCounter {
+  /**
+   * Elements whose shapes intersected the painted area.
+   */
+  RENDERED,
+  /**
+   * Elements skipped as their shapes were outside of the painted area.
+   */
+  CULLED,
+  SHAPE_CACHE_HITS,
+  SHAPE_CACHE_MISSES,
+  /**
+   * Images allocated for buffers, tiles and bands.
+   */
+  BUFFER_ALLOCATIONS,
+  REPAINT_REQUESTS
+}
@@ -0,0 +1,48 @@
+package org.kharon;
+
+/**
+ * Receives the timings and counters of the frames painted by a
+ * {@link GraphPane}, on the event dispatch thread.
+ *
+ * @see RenderStatistics
+ */
+public interface RenderMetrics {
+
+  /**
+   * Metrics that ignore everything, used by default.
+   */
+  RenderMetrics NONE = new RenderMetrics() {
+
+    @Override
+    public void frameStarted() {
+    }
+
+    @Override
+    public void phaseCompleted(RenderPhase phase, long nanos) {
+    }
+
+    @Override
+    public void count(RenderCounter counter, long amount) {
+    }
+
+    @Override
+    public void frameCompleted(long nanos) {
+    }
+  };
+
+  void frameStarted();
+
+  /**
+   * Called once or more per phase of a frame, between {@link #frameStarted}
+   * and {@link #frameCompleted}.
+   */
+  void phaseCompleted(RenderPhase phase, long nanos);
+
+  /**
+   * Called during frames, and outside of them for repaint requests.
+   */
+  void count(RenderCounter counter, long amount);
+
+  void frameCompleted(long nanos);
+
+}
@@ -0,0 +1,8 @@
+package org.kharon;
+
+/**
+ * Parts of a frame painted by a {@link GraphPane}, in painting order.
+ */
+public enum RenderPhase {
+  LIVE_EDGES, LIVE_NODES, IDLE_LAYER, SELECTED_EDGES, HOVER, SELECTIONS, BLIT
+}
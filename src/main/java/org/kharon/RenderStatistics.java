@@ -0,0 +1,132 @@
+package org.kharon;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the timings of the latest frames for percentiles and the frame rate,
+ * and the totals of the counters. Can be read from any thread.
+ */
+public class RenderStatistics implements RenderMetrics {
+
+  public static final int DEFAULT_WINDOW = 120;
+
+  private static final int PHASES = RenderPhase.values().length;
+
+  private final int window;
+  private final long[] frameStarts;
+  private final long[] frameTimes;
+  private final long[][] phaseTimes;
+  private final long[] currentPhaseTimes = new long[PHASES];
+  private final long[] counts = new long[RenderCounter.values().length];
+
+  private long currentFrameStart;
+  private long frameCount;
+
+  public RenderStatistics() {
+    this(DEFAULT_WINDOW);
+  }
+
+  /**
+   * @param window number of latest frames percentiles and the frame rate are
+   *          computed from.
+   */
+  public RenderStatistics(int window) {
+    super();
+    if (window < 1) {
+      throw new IllegalArgumentException("Window must hold at least one frame.");
+    }
+    this.window = window;
+    this.frameStarts = new long[window];
+    this.frameTimes = new long[window];
+    this.phaseTimes = new long[PHASES][window];
+  }
+
+  @Override
+  public synchronized void frameStarted() {
+    this.currentFrameStart = System.nanoTime();
+    Arrays.fill(this.currentPhaseTimes, 0L);
+  }
+
+  @Override
+  public synchronized void phaseCompleted(RenderPhase phase, long nanos) {
+    this.currentPhaseTimes[phase.ordinal()] += nanos;
+  }
+
+  @Override
+  public synchronized void count(RenderCounter counter, long amount) {
+    this.counts[counter.ordinal()] += amount;
+  }
+
+  @Override
+  public synchronized void frameCompleted(long nanos) {
+    int slot = (int) (this.frameCount % this.window);
+    this.frameStarts[slot] = this.currentFrameStart;
+    this.frameTimes[slot] = nanos;
+    for (int phase = 0; phase < PHASES; phase++) {
+      this.phaseTimes[phase][slot] = this.currentPhaseTimes[phase];
+    }
+    this.frameCount++;
+  }
+
+  public int getWindow() {
+    return window;
+  }
+
+  public synchronized long getFrameCount() {
+    return frameCount;
+  }
+
+  public synchronized long getCount(RenderCounter counter) {
+    return this.counts[counter.ordinal()];
+  }
+
+  /**
+   * Frame time in nanoseconds at the given percentile, between 0 and 100, of
+   * the frames in the window. 0 before the first frame.
+   */
+  public synchronized long getFrameTime(double percentile) {
+    return percentile(this.frameTimes, percentile);
+  }
+
+  /**
+   * Time in nanoseconds spent in the phase at the given percentile, between 0
+   * and 100, of the frames in the window. 0 before the first frame.
+   */
+  public synchronized long getPhaseTime(RenderPhase phase, double percentile) {
+    return percentile(this.phaseTimes[phase.ordinal()], percentile);
+  }
+
+  /**
+   * Frames started per second over the window, 0 before the second frame.
+   */
+  public synchronized double getFramesPerSecond() {
+    int size = getSize();
+    if (size < 2) {
+      return 0d;
+    }
+    long last = this.frameStarts[(int) ((this.frameCount - 1) % this.window)];
+    long first = this.frameStarts[(int) ((this.frameCount - size) % this.window)];
+    return last > first ? (size - 1) * 1e9d / (last - first) : 0d;
+  }
+
+  public synchronized void reset() {
+    this.frameCount = 0;
+    Arrays.fill(this.counts, 0L);
+  }
+
+  private int getSize() {
+    return (int) Math.min(this.frameCount, this.window);
+  }
+
+  private long percentile(long[] values, double percentile) {
+    int size = getSize();
+    if (size == 0) {
+      return 0L;
+    }
+    long[] sorted = Arrays.copyOf(values, size);
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(Math.max(0d, Math.min(100d, percentile)) / 100d * size);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+}
@@ -0,0 +1,185 @@
+package org.kharon;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid of line segments. A segment is registered in every cell it
+ * crosses, not in every cell of its bounding box, so long diagonal segments
+ * stay cheap. Only occupied cells are stored.
+ */
+public class SegmentGrid<T> {
+
+  public static final double DEFAULT_CELL_SIZE = 128d;
+
+  private final double cellSize;
+  private final Map<Long, List<T>> cells = new HashMap<>();
+  private final Map<T, Segment> segments = new HashMap<>();
+
+  public SegmentGrid() {
+    this(DEFAULT_CELL_SIZE);
+  }
+
+  public SegmentGrid(double cellSize) {
+    this.cellSize = cellSize;
+  }
+
+  public int size() {
+    return segments.size();
+  }
+
+  public boolean contains(T item) {
+    return segments.containsKey(item);
+  }
+
+  /**
+   * Adds the segment of the item or moves it.
+   */
+  public void put(T item, double x1, double y1, double x2, double y2) {
+    Segment segment = segments.get(item);
+    if (segment != null) {
+      if (segment.x1 == x1 && segment.y1 == y1 && segment.x2 == x2 && segment.y2 == y2) {
+        return;
+      }
+      unlink(item, segment);
+    }
+    segment = new Segment(x1, y1, x2, y2);
+    segment.cells = cellsOf(segment);
+    for (long cell : segment.cells) {
+      cells.computeIfAbsent(cell, key -> new ArrayList<>(4)).add(item);
+    }
+    segments.put(item, segment);
+  }
+
+  public boolean remove(T item) {
+    Segment segment = segments.remove(item);
+    if (segment == null) {
+      return false;
+    }
+    unlink(item, segment);
+    return true;
+  }
+
+  public void clear() {
+    cells.clear();
+    segments.clear();
+  }
+
+  /**
+   * Items whose segment intersects the area.
+   */
+  public List<T> query(Rectangle2D area) {
+    int minX = cell(area.getMinX());
+    int maxX = cell(area.getMaxX());
+    int minY = cell(area.getMinY());
+    int maxY = cell(area.getMaxY());
+
+    Set<T> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+    long span = ((long) maxX - minX + 1) * ((long) maxY - minY + 1);
+    if (span > cells.size()) {
+      for (Map.Entry<Long, List<T>> entry : cells.entrySet()) {
+        long key = entry.getKey();
+        int x = (int) (key >> 32);
+        int y = (int) key;
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          candidates.addAll(entry.getValue());
+        }
+      }
+    } else {
+      for (int x = minX; x <= maxX; x++) {
+        for (int y = minY; y <= maxY; y++) {
+          List<T> items = cells.get(key(x, y));
+          if (items != null) {
+            candidates.addAll(items);
+          }
+        }
+      }
+    }
+
+    List<T> result = new ArrayList<>(candidates.size());
+    for (T candidate : candidates) {
+      Segment segment = segments.get(candidate);
+      if (area.intersectsLine(segment.x1, segment.y1, segment.x2, segment.y2) || area.contains(segment.x1, segment.y1)) {
+        result.add(candidate);
+      }
+    }
+    return result;
+  }
+
+  private void unlink(T item, Segment segment) {
+    for (long cell : segment.cells) {
+      List<T> items = cells.get(cell);
+      items.remove(item);
+      if (items.isEmpty()) {
+        cells.remove(cell);
+      }
+    }
+  }
+
+  /**
+   * Walks the columns crossed by the segment, adding the rows it spans inside
+   * each of them.
+   */
+  private long[] cellsOf(Segment segment) {
+    double minX = Math.min(segment.x1, segment.x2);
+    double maxX = Math.max(segment.x1, segment.x2);
+    double dx = segment.x2 - segment.x1;
+    double slope = dx != 0d ? (segment.y2 - segment.y1) / dx : 0d;
+
+    List<Long> result = new ArrayList<>();
+    for (int column = cell(minX); column <= cell(maxX); column++) {
+      double fromY;
+      double toY;
+      if (dx == 0d) {
+        fromY = segment.y1;
+        toY = segment.y2;
+      } else {
+        double fromX = Math.max(minX, column * cellSize);
+        double toX = Math.min(maxX, (column + 1) * cellSize);
+        fromY = segment.y1 + (fromX - segment.x1) * slope;
+        toY = segment.y1 + (toX - segment.x1) * slope;
+      }
+      for (int row = cell(Math.min(fromY, toY)); row <= cell(Math.max(fromY, toY)); row++) {
+        result.add(key(column, row));
+      }
+    }
+
+    long[] keys = new long[result.size()];
+    for (int index = 0; index < keys.length; index++) {
+      keys[index] = result.get(index);
+    }
+    return keys;
+  }
+
+  private int cell(double coordinate) {
+    return (int) Math.floor(coordinate / cellSize);
+  }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  private static final class Segment {
+
+    private final double x1;
+    private final double y1;
+    private final double x2;
+    private final double y2;
+    private long[] cells;
+
+    Segment(double x1, double y1, double x2, double y2) {
+      this.x1 = x1;
+      this.y1 = y1;
+      this.x2 = x2;
+      this.y2 = y2;
+    }
+
+  }
+
+}
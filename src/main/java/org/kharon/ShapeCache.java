@@ -0,0 +1,158 @@
+package org.kharon;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kharon.renderers.EdgeRenderer;
+import org.kharon.renderers.LabelRenderer;
+import org.kharon.renderers.NodeRenderer;
+import org.kharon.renderers.RenderContext;
+
+/**
+ * Stage space shapes of the elements of a graph, kept until the element, the
+ * nodes at the ends of an edge, the renderer, the level of detail or the font
+ * change. Shapes do not depend on the zoom or the translation of the pane, so
+ * panning and zooming reuse them as they are.
+ */
+class ShapeCache {
+
+  private Map<String, Entry> nodeShapes = new HashMap<>();
+  private Map<String, Entry> labelShapes = new HashMap<>();
+  private Map<String, Entry> edgeShapes = new HashMap<>();
+
+  private long hitCount;
+  private long missCount;
+
+  GraphShape getNodeShape(Graphics2D g2d, Node node, NodeRenderer renderer, RenderContext renderContext) {
+    Entry entry = this.nodeShapes.get(node.getId());
+    if (entry != null && entry.matches(node, node.getVersion(), 0, 0, renderer, renderContext, g2d.getFont())) {
+      this.hitCount++;
+      return entry.shape;
+    }
+    GraphShape shape = renderer.render(g2d, node, renderContext);
+    this.nodeShapes.put(node.getId(),
+        new Entry(node, node.getVersion(), 0, 0, renderer, renderContext, g2d.getFont(), shape));
+    this.missCount++;
+    return shape;
+  }
+
+  GraphShape getLabelShape(Graphics2D g2d, Node node, LabelRenderer renderer, RenderContext renderContext) {
+    Entry entry = this.labelShapes.get(node.getId());
+    if (entry != null && entry.matches(node, node.getVersion(), 0, 0, renderer, renderContext, g2d.getFont())) {
+      this.hitCount++;
+      return entry.shape;
+    }
+    GraphShape shape = renderer.render(g2d, node, renderContext);
+    this.labelShapes.put(node.getId(),
+        new Entry(node, node.getVersion(), 0, 0, renderer, renderContext, g2d.getFont(), shape));
+    this.missCount++;
+    return shape;
+  }
+
+  GraphShape getEdgeShape(Graphics2D g2d, Edge edge, EdgeRenderer renderer, RenderContext renderContext) {
+    Node source = renderContext.getNode(edge.getSource());
+    Node target = renderContext.getNode(edge.getTarget());
+    if (source == null || target == null) {
+      return renderer.render(g2d, edge, renderContext);
+    }
+
+    Entry entry = this.edgeShapes.get(edge.getId());
+    if (entry != null && entry.matches(edge, edge.getVersion(), source.getVersion(), target.getVersion(), renderer,
+        renderContext, g2d.getFont())) {
+      this.hitCount++;
+      return entry.shape;
+    }
+    GraphShape shape = renderer.render(g2d, edge, renderContext);
+    this.edgeShapes.put(edge.getId(), new Entry(edge, edge.getVersion(), source.getVersion(), target.getVersion(),
+        renderer, renderContext, g2d.getFont(), shape));
+    this.missCount++;
+    return shape;
+  }
+
+  /**
+   * The shape last rendered for the edge, whether it is still current or not.
+   */
+  GraphShape peekEdgeShape(String id) {
+    Entry entry = this.edgeShapes.get(id);
+    return entry != null ? entry.shape : null;
+  }
+
+  void removeNode(String id) {
+    this.nodeShapes.remove(id);
+    this.labelShapes.remove(id);
+  }
+
+  void removeEdge(String id) {
+    this.edgeShapes.remove(id);
+  }
+
+  void clear() {
+    this.nodeShapes.clear();
+    this.labelShapes.clear();
+    this.edgeShapes.clear();
+  }
+
+  int size() {
+    return this.nodeShapes.size() + this.labelShapes.size() + this.edgeShapes.size();
+  }
+
+  long getHitCount() {
+    return hitCount;
+  }
+
+  long getMissCount() {
+    return missCount;
+  }
+
+  private static class Entry {
+
+    private final Object element;
+    private final int version;
+    private final int sourceVersion;
+    private final int targetVersion;
+    private final Object renderer;
+    private final LevelOfDetail levelOfDetail;
+    private final Font font;
+    private final GraphShape shape;
+
+    Entry(Object element, int version, int sourceVersion, int targetVersion, Object renderer,
+        RenderContext renderContext, Font font, GraphShape shape) {
+      this.element = element;
+      this.version = version;
+      this.sourceVersion = sourceVersion;
+      this.targetVersion = targetVersion;
+      this.renderer = renderer;
+      this.levelOfDetail = renderContext.getLevelOfDetail();
+      this.font = font;
+      this.shape = shape;
+    }
+
+    boolean matches(Object element, int version, int sourceVersion, int targetVersion, Object renderer,
+        RenderContext renderContext, Font font) {
+      return isSameElement(element, version) && this.sourceVersion == sourceVersion
+          && this.targetVersion == targetVersion && this.renderer == renderer
+          && this.levelOfDetail == renderContext.getLevelOfDetail()
+          && (this.font == font || (this.font != null && this.font.equals(font)));
+    }
+
+    /**
+     * Snapshots of a graph build their own pairs of overlapped edges, and
+     * frames are rendered from copies of the nodes, which match by content
+     * instead.
+     */
+    private boolean isSameElement(Object element, int version) {
+      if (this.element == element) {
+        return this.version == version;
+      }
+      if (this.element instanceof Node && element instanceof Node) {
+        return ((Node) this.element).looksLike((Node) element);
+      }
+      return this.element instanceof OverlappedEdges && element instanceof OverlappedEdges
+          && ((OverlappedEdges) this.element).hasSameEdges((OverlappedEdges) element);
+    }
+
+  }
+
+}
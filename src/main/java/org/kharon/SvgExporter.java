@@ -0,0 +1,214 @@
+package org.kharon;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.kharon.renderers.Renderers;
+
+/**
+ * Writes a graph as an SVG document in stage coordinates, runs of shapes
+ * painted alike sharing a {@code g} element with their paint.
+ */
+public class SvgExporter extends VectorExporter {
+
+  private Writer writer;
+  private final double[] coords = new double[6];
+
+  public SvgExporter() {
+    this(new Renderers());
+  }
+
+  public SvgExporter(Renderers renderers) {
+    super(renderers);
+  }
+
+  @Override
+  protected void begin(OutputStream out, Rectangle2D page) throws IOException {
+    this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    this.writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    this.writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+    writeNumber(page.getWidth());
+    this.writer.write("\" height=\"");
+    writeNumber(page.getHeight());
+    this.writer.write("\" viewBox=\"");
+    writeNumber(page.getX());
+    this.writer.write(' ');
+    writeNumber(page.getY());
+    this.writer.write(' ');
+    writeNumber(page.getWidth());
+    this.writer.write(' ');
+    writeNumber(page.getHeight());
+    this.writer.write("\">\n");
+  }
+
+  @Override
+  protected void beginGroup(Color color, boolean filled) throws IOException {
+    if (filled) {
+      this.writer.write("<g fill=\"");
+      writeColor(color);
+      this.writer.write("\" stroke=\"none\"");
+      writeOpacity("fill-opacity", color);
+    } else {
+      this.writer.write("<g fill=\"none\" stroke=\"");
+      writeColor(color);
+      this.writer.write("\" stroke-width=\"1\"");
+      writeOpacity("stroke-opacity", color);
+    }
+    this.writer.write(">\n");
+  }
+
+  @Override
+  protected void writePath(Shape shape) throws IOException {
+    PathIterator iterator = shape.getPathIterator(null);
+    this.writer.write("<path");
+    if (iterator.getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+      this.writer.write(" fill-rule=\"evenodd\"");
+    }
+    this.writer.write(" d=\"");
+    for (; !iterator.isDone(); iterator.next()) {
+      switch (iterator.currentSegment(this.coords)) {
+      case PathIterator.SEG_MOVETO:
+        writeSegment('M', 1);
+        break;
+      case PathIterator.SEG_LINETO:
+        writeSegment('L', 1);
+        break;
+      case PathIterator.SEG_QUADTO:
+        writeSegment('Q', 2);
+        break;
+      case PathIterator.SEG_CUBICTO:
+        writeSegment('C', 3);
+        break;
+      case PathIterator.SEG_CLOSE:
+        this.writer.write('Z');
+        break;
+      }
+    }
+    this.writer.write("\"/>\n");
+  }
+
+  @Override
+  protected void writeText(GraphShape.Text text) throws IOException {
+    Font font = text.getFont();
+    this.writer.write("<text x=\"");
+    if (text.getRotation() != 0d) {
+      // every glyph placed and rotated on its own, as the outlines are
+      double[] offsets = getCharacterOffsets(text);
+      for (int i = 0; i < offsets.length; i++) {
+        if (i > 0) {
+          this.writer.write(' ');
+        }
+        writeNumber(text.getX() + offsets[i]);
+      }
+    } else {
+      writeNumber(text.getX());
+    }
+    this.writer.write("\" y=\"");
+    writeNumber(text.getY());
+    this.writer.write("\" font-family=\"");
+    writeEscaped(font.getFamily());
+    this.writer.write("\" font-size=\"");
+    writeNumber(font.getSize2D());
+    if (font.isBold()) {
+      this.writer.write("\" font-weight=\"bold");
+    }
+    if (font.isItalic()) {
+      this.writer.write("\" font-style=\"italic");
+    }
+    if (text.getRotation() != 0d) {
+      this.writer.write("\" rotate=\"");
+      writeNumber(Math.toDegrees(text.getRotation()));
+    }
+    this.writer.write("\" stroke=\"none\">");
+    writeEscaped(text.getText());
+    this.writer.write("</text>\n");
+  }
+
+  @Override
+  protected void endGroup() throws IOException {
+    this.writer.write("</g>\n");
+  }
+
+  @Override
+  protected void end() throws IOException {
+    this.writer.write("</svg>\n");
+    this.writer.flush();
+    this.writer = null;
+  }
+
+  private void writeSegment(char command, int points) throws IOException {
+    this.writer.write(command);
+    for (int i = 0; i < 2 * points; i++) {
+      if (i > 0) {
+        this.writer.write(' ');
+      }
+      writeNumber(this.coords[i]);
+    }
+  }
+
+  private void writeColor(Color color) throws IOException {
+    this.writer.write(String.format("#%06x", color.getRGB() & 0xFFFFFF));
+  }
+
+  private void writeOpacity(String attribute, Color color) throws IOException {
+    if (color.getAlpha() < 255) {
+      this.writer.write(' ');
+      this.writer.write(attribute);
+      this.writer.write("=\"");
+      writeNumber(color.getAlpha() / 255d);
+      this.writer.write('"');
+    }
+  }
+
+  /**
+   * Writes the number rounded to two decimals, without trailing zeros.
+   */
+  private void writeNumber(double value) throws IOException {
+    long hundredths = Math.round(value * 100d);
+    if (hundredths < 0) {
+      this.writer.write('-');
+      hundredths = -hundredths;
+    }
+    this.writer.write(Long.toString(hundredths / 100));
+    int fraction = (int) (hundredths % 100);
+    if (fraction != 0) {
+      this.writer.write('.');
+      this.writer.write((char) ('0' + fraction / 10));
+      if (fraction % 10 != 0) {
+        this.writer.write((char) ('0' + fraction % 10));
+      }
+    }
+  }
+
+  private void writeEscaped(String text) throws IOException {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+      case '<':
+        this.writer.write("&lt;");
+        break;
+      case '>':
+        this.writer.write("&gt;");
+        break;
+      case '&':
+        this.writer.write("&amp;");
+        break;
+      case '"':
+        this.writer.write("&quot;");
+        break;
+      default:
+        this.writer.write(c);
+      }
+    }
+  }
+
+}
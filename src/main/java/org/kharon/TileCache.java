@@ -0,0 +1,179 @@
+package org.kharon;
+
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Tile pyramid of the idle layer of a {@link GraphPane}. Tiles are square
+ * images of {@link #TILE_SIZE} pixels keyed by the zoom they were rendered at
+ * and tile position, where tile {@code (x, y)} of level {@code z} covers the
+ * stage area that lands on pixels {@code [x * TILE_SIZE, (x + 1) * TILE_SIZE)}
+ * once scaled by {@code z}. Tiles do not depend on the stage translation, so
+ * panning reuses them. The least recently used tiles are evicted once the
+ * memory budget is exceeded.
+ */
+class TileCache {
+
+  static final int TILE_SIZE = 256;
+
+  static final long DEFAULT_MEMORY_BUDGET = 64L * 1024L * 1024L;
+
+  private final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true);
+  private final TreeMap<Double, Integer> levels = new TreeMap<>();
+
+  private long memoryBudget;
+  private long usedBytes;
+
+  private long hitCount;
+  private long missCount;
+
+  TileCache(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  BufferedImage get(double level, int x, int y) {
+    BufferedImage tile = tiles.get(new TileKey(level, x, y));
+    if (tile != null) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+    return tile;
+  }
+
+  /**
+   * Same as {@link #get(double, int, int)} without touching the statistics.
+   */
+  BufferedImage peek(double level, int x, int y) {
+    return tiles.get(new TileKey(level, x, y));
+  }
+
+  void put(double level, int x, int y, BufferedImage tile) {
+    BufferedImage previous = tiles.put(new TileKey(level, x, y), tile);
+    if (previous != null) {
+      usedBytes -= sizeOf(previous);
+    } else {
+      levels.merge(level, 1, Integer::sum);
+    }
+    usedBytes += sizeOf(tile);
+    trim();
+  }
+
+  /**
+   * Cached levels other than the given one, nearest first.
+   */
+  List<Double> getNeighbourLevels(double level) {
+    List<Double> result = new ArrayList<>(levels.keySet());
+    result.remove(level);
+    result.sort((a, b) -> Double.compare(Math.abs(Math.log(a / level)), Math.abs(Math.log(b / level))));
+    return result;
+  }
+
+  /**
+   * Discards the tiles of every level that may show part of the stage area,
+   * antialiasing included.
+   */
+  void invalidate(Shape area) {
+    Rectangle2D tileBounds = new Rectangle2D.Double();
+    Iterator<Map.Entry<TileKey, BufferedImage>> iterator = tiles.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<TileKey, BufferedImage> entry = iterator.next();
+      TileKey key = entry.getKey();
+      double margin = 1d / key.level;
+      double size = TILE_SIZE / key.level;
+      tileBounds.setRect(key.x * size - margin, key.y * size - margin, size + 2 * margin, size + 2 * margin);
+      if (area.intersects(tileBounds)) {
+        iterator.remove();
+        remove(key.level, entry.getValue());
+      }
+    }
+  }
+
+  void clear() {
+    tiles.clear();
+    levels.clear();
+    usedBytes = 0;
+  }
+
+  long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  void setMemoryBudget(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+    trim();
+  }
+
+  long getUsedBytes() {
+    return usedBytes;
+  }
+
+  int getTileCount() {
+    return tiles.size();
+  }
+
+  long getHitCount() {
+    return hitCount;
+  }
+
+  long getMissCount() {
+    return missCount;
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<TileKey, BufferedImage>> iterator = tiles.entrySet().iterator();
+    while (usedBytes > memoryBudget && iterator.hasNext()) {
+      Map.Entry<TileKey, BufferedImage> eldest = iterator.next();
+      iterator.remove();
+      remove(eldest.getKey().level, eldest.getValue());
+    }
+  }
+
+  private void remove(double level, BufferedImage tile) {
+    usedBytes -= sizeOf(tile);
+    if (levels.merge(level, -1, Integer::sum) == 0) {
+      levels.remove(level);
+    }
+  }
+
+  private static long sizeOf(BufferedImage tile) {
+    return 4L * tile.getWidth() * tile.getHeight();
+  }
+
+  private static final class TileKey {
+
+    private final double level;
+    private final int x;
+    private final int y;
+
+    TileKey(double level, int x, int y) {
+      this.level = level;
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(level, x, y);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TileKey)) {
+        return false;
+      }
+      TileKey other = (TileKey) obj;
+      return level == other.level && x == other.x && y == other.y;
+    }
+
+  }
+
+}
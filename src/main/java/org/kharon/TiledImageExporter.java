@@ -0,0 +1,398 @@
+package org.kharon;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.ImageIO;
+
+import org.kharon.renderers.EdgeRenderer;
+import org.kharon.renderers.LabelRenderer;
+import org.kharon.renderers.NodeRenderer;
+import org.kharon.renderers.RenderContext;
+
+/**
+ * Exports a graph larger than the heap as images, rendering it tile by tile
+ * with a {@link GraphImageRenderer}. The elements of a tile are found through
+ * a spatial index of their rendered bounds, built once per export, and tiles
+ * are rendered in parallel.
+ * <p>
+ * {@link #exportPng} streams a single PNG, holding the pixels of one row of
+ * tiles and the tiles being rendered.
+ * {@link #exportTiles} writes a directory of web map tiles, holding only the
+ * tiles being rendered.
+ */
+public class TiledImageExporter {
+
+  public static final int DEFAULT_TILE_SIZE = 256;
+  public static final int DEFAULT_MARGIN = 20;
+
+  private final GraphImageRenderer renderer;
+  private int tileSize = DEFAULT_TILE_SIZE;
+  private int margin = DEFAULT_MARGIN;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  public TiledImageExporter() {
+    this(new GraphImageRenderer());
+  }
+
+  public TiledImageExporter(GraphImageRenderer renderer) {
+    super();
+    this.renderer = renderer;
+  }
+
+  /**
+   * Writes the whole graph at the zoom as one PNG.
+   */
+  public void exportPng(Graph graph, double zoom, File file) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+      exportPng(graph, zoom, out);
+    }
+  }
+
+  /**
+   * Writes the whole graph at the zoom as one PNG, leaving the stream open.
+   */
+  public void exportPng(Graph graph, double zoom, OutputStream out) throws IOException {
+    Scene scene = new Scene(graph);
+    Level level = new Level(scene, zoom);
+    PngStreamWriter writer = new PngStreamWriter(out, level.width, level.height);
+
+    ExecutorService executor = createExecutor();
+    Semaphore inFlight = new Semaphore(2 * this.parallelism);
+    try {
+      int[] pixels = new int[this.tileSize * level.width];
+      List<Future<?>> tiles = new ArrayList<>(level.columns);
+      for (int tileY = 0; tileY < level.rows; tileY++) {
+        int rows = Math.min(this.tileSize, level.height - tileY * this.tileSize);
+        tiles.clear();
+        for (int tileX = 0; tileX < level.columns; tileX++) {
+          int x = tileX;
+          int y = tileY;
+          inFlight.acquire();
+          // every tile is copied to its own columns of the row as soon as it is
+          // rendered, so only the tiles in flight are held
+          tiles.add(executor.submit(() -> {
+            try {
+              BufferedImage tile = renderTile(level, x, y, true);
+              int columns = Math.min(this.tileSize, level.width - x * this.tileSize);
+              tile.getRGB(0, 0, columns, rows, pixels, x * this.tileSize, level.width);
+              return null;
+            } finally {
+              inFlight.release();
+            }
+          }));
+        }
+        for (Future<?> tile : tiles) {
+          get(tile);
+        }
+        for (int row = 0; row < rows; row++) {
+          writer.writeRow(pixels, row * level.width);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+    writer.finish();
+  }
+
+  /**
+   * Writes web map tiles of the graph to {@code directory/z/x/y.png}, the
+   * deepest of the levels at the zoom and every level above at half the zoom
+   * of the level below. Tiles without elements are not written.
+   */
+  public void exportTiles(Graph graph, double zoom, int levels, File directory) throws IOException {
+    if (levels < 1) {
+      throw new IllegalArgumentException("At least one level must be exported.");
+    }
+    Scene scene = new Scene(graph);
+    ExecutorService executor = createExecutor();
+    Semaphore inFlight = new Semaphore(2 * this.parallelism);
+    List<Future<?>> pending = new ArrayList<>();
+    try {
+      for (int z = 0; z < levels; z++) {
+        Level level = new Level(scene, zoom / (1L << (levels - 1 - z)));
+        for (int tileX = 0; tileX < level.columns; tileX++) {
+          File column = new File(directory, z + File.separator + tileX);
+          for (int tileY = 0; tileY < level.rows; tileY++) {
+            int x = tileX;
+            int y = tileY;
+            inFlight.acquire();
+            pending.add(executor.submit(() -> {
+              try {
+                BufferedImage tile = renderTile(level, x, y, false);
+                if (tile != null) {
+                  writeTile(tile, column, y);
+                }
+                return null;
+              } finally {
+                inFlight.release();
+              }
+            }));
+            if (pending.size() >= 4 * this.parallelism) {
+              pending.removeIf(this::isDone);
+            }
+          }
+        }
+      }
+      for (Future<?> future : pending) {
+        get(future);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Stage transform of images of the graph exported at the zoom, to map stage
+   * positions onto them.
+   */
+  public AffineTransform getImageTransform(Graph graph, double zoom) {
+    return new AffineTransform(new Level(new Scene(graph), zoom).transform);
+  }
+
+  private static void writeTile(BufferedImage tile, File column, int tileY) throws IOException {
+    if (!column.isDirectory() && !column.mkdirs() && !column.isDirectory()) {
+      throw new IOException("Could not create " + column + ".");
+    }
+    if (!ImageIO.write(tile, "png", new File(column, tileY + ".png"))) {
+      throw new IOException("No PNG writer available.");
+    }
+  }
+
+  /**
+   * @return the tile, or null if it has no elements and empty tiles are not
+   *         kept.
+   */
+  private BufferedImage renderTile(Level level, int tileX, int tileY, boolean keepEmpty) {
+    AffineTransform stageTx = AffineTransform.getTranslateInstance(-tileX * this.tileSize, -tileY * this.tileSize);
+    stageTx.concatenate(level.transform);
+    Rectangle2D clipBounds = level.toStage(
+        new Rectangle(tileX * this.tileSize - 1, tileY * this.tileSize - 1, this.tileSize + 2, this.tileSize + 2));
+    List<Element> elements = level.scene.index.query(clipBounds);
+    if (elements.isEmpty() && !keepEmpty) {
+      return null;
+    }
+
+    BufferedImage tile = new BufferedImage(this.tileSize, this.tileSize, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = tile.createGraphics();
+    if (this.renderer.getBackground() != null) {
+      g2d.setBackground(this.renderer.getBackground());
+      g2d.clearRect(0, 0, this.tileSize, this.tileSize);
+    }
+    Graphics2D g = this.renderer.createGraphics(g2d);
+    try {
+      elements.sort(null);
+      for (Element element : elements) {
+        if (element.node != null) {
+          this.renderer.drawNode(g, element.node, level.renderContext, stageTx, clipBounds);
+        } else {
+          this.renderer.drawEdge(g, element.edge, level.renderContext, stageTx, clipBounds);
+        }
+      }
+    } finally {
+      g.dispose();
+      g2d.dispose();
+    }
+    return tile;
+  }
+
+  private ExecutorService createExecutor() {
+    return Executors.newFixedThreadPool(this.parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "kharon-tile-exporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private boolean isDone(Future<?> future) {
+    if (!future.isDone()) {
+      return false;
+    }
+    try {
+      get(future);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return true;
+  }
+
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  public GraphImageRenderer getRenderer() {
+    return renderer;
+  }
+
+  public int getTileSize() {
+    return tileSize;
+  }
+
+  public void setTileSize(int tileSize) {
+    this.tileSize = tileSize;
+  }
+
+  public int getMargin() {
+    return margin;
+  }
+
+  /**
+   * Pixels left around the graph in exported images.
+   */
+  public void setMargin(int margin) {
+    this.margin = margin;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Snapshot of the graph with its elements indexed by their rendered bounds,
+   * labels and arrows included.
+   */
+  private class Scene {
+
+    private final Graph graph;
+    private final GraphSnapshot snapshot;
+    private final QuadTree<Element> index = new QuadTree<>();
+    private Rectangle2D bounds;
+
+    Scene(Graph graph) {
+      this.graph = graph;
+      this.snapshot = graph.snapshot();
+
+      RenderContext renderContext = new RenderContext(null, graph, this.snapshot);
+      Graphics2D g2d = renderer.createGraphics(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics());
+      int order = 0;
+      for (OverlappedEdges edge : GraphImageRenderer.getEdgesInOrder(this.snapshot)) {
+        EdgeRenderer edgeRenderer = renderer.getRenderers().getEdgeRenderer(edge.getType());
+        add(new Element(order++, null, edge), union(null, edgeRenderer.render(g2d, edge, renderContext)));
+      }
+      for (Node node : this.snapshot.getNodes()) {
+        NodeRenderer nodeRenderer = renderer.getRenderers().getNodeRenderer(node.getType());
+        LabelRenderer labelRenderer = renderer.getRenderers().getLabelRenderer(node.getLabelType());
+        Rectangle2D nodeBounds = union(null, nodeRenderer.render(g2d, node, renderContext));
+        add(new Element(order++, node, null), union(nodeBounds, labelRenderer.render(g2d, node, renderContext)));
+      }
+      g2d.dispose();
+      if (this.bounds == null) {
+        this.bounds = new Rectangle2D.Double();
+      }
+    }
+
+    private void add(Element element, Rectangle2D elementBounds) {
+      if (elementBounds == null) {
+        return;
+      }
+      this.index.put(element, elementBounds.getX(), elementBounds.getY(), elementBounds.getWidth(),
+          elementBounds.getHeight());
+      if (this.bounds == null) {
+        this.bounds = (Rectangle2D) elementBounds.clone();
+      } else {
+        this.bounds.add(elementBounds);
+      }
+    }
+
+    private Rectangle2D union(Rectangle2D bounds, GraphShape graphShape) {
+      if (graphShape == null) {
+        return bounds;
+      }
+      Rectangle2D shapeBounds = graphShape.getShape().getBounds2D();
+      if (bounds == null) {
+        return shapeBounds;
+      }
+      bounds.add(shapeBounds);
+      return bounds;
+    }
+
+  }
+
+  /**
+   * The scene at a zoom, in image pixels.
+   */
+  private class Level {
+
+    private final Scene scene;
+    private final AffineTransform transform;
+    private final RenderContext renderContext;
+    private final int width;
+    private final int height;
+    private final int columns;
+    private final int rows;
+
+    Level(Scene scene, double zoom) {
+      this.scene = scene;
+      this.width = Math.max(1, (int) Math.ceil(scene.bounds.getWidth() * zoom) + 2 * margin);
+      this.height = Math.max(1, (int) Math.ceil(scene.bounds.getHeight() * zoom) + 2 * margin);
+      this.columns = (this.width + tileSize - 1) / tileSize;
+      this.rows = (this.height + tileSize - 1) / tileSize;
+      this.transform = AffineTransform.getTranslateInstance(margin, margin);
+      this.transform.scale(zoom, zoom);
+      this.transform.translate(-scene.bounds.getX(), -scene.bounds.getY());
+      this.renderContext = renderer.createRenderContext(scene.graph, scene.snapshot, this.transform);
+    }
+
+    Rectangle2D toStage(Rectangle area) {
+      double scale = this.transform.getScaleX();
+      return new Rectangle2D.Double((area.x - this.transform.getTranslateX()) / scale,
+          (area.y - this.transform.getTranslateY()) / scale, area.width / scale, area.height / scale);
+    }
+
+  }
+
+  private static class Element implements Comparable<Element> {
+
+    private final int order;
+    private final Node node;
+    private final Edge edge;
+
+    Element(int order, Node node, Edge edge) {
+      this.order = order;
+      this.node = node;
+      this.edge = edge;
+    }
+
+    @Override
+    public int compareTo(Element o) {
+      return Integer.compare(order, o.order);
+    }
+
+  }
+
+}
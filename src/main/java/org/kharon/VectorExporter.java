@@ -0,0 +1,219 @@
+package org.kharon;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.kharon.renderers.EdgeRenderer;
+import org.kharon.renderers.LabelRenderer;
+import org.kharon.renderers.NodeRenderer;
+import org.kharon.renderers.RenderContext;
+import org.kharon.renderers.Renderers;
+
+/**
+ * Writes a graph as a vector document, streaming the shapes returned by the
+ * renderers as they are rendered, so the memory used does not grow with the
+ * graph. A first pass over the shapes measures the document. Consecutive
+ * shapes painted alike are written as a group, and texts recorded in the
+ * shapes, like labels, are written as text instead of glyph outlines.
+ * <p>
+ * The graph is read directly and must not change during an export.
+ */
+public abstract class VectorExporter {
+
+  public static final int DEFAULT_MARGIN = 20;
+
+  private final Renderers renderers;
+  private Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+  private int margin = DEFAULT_MARGIN;
+
+  private Color groupColor;
+  private boolean groupFilled;
+  private FontRenderContext fontRenderContext;
+
+  protected VectorExporter(Renderers renderers) {
+    super();
+    this.renderers = renderers;
+  }
+
+  /**
+   * Writes the document, leaving the stream open.
+   */
+  public void export(Graph graph, OutputStream out) throws IOException {
+    Graphics2D g2d = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    try {
+      g2d.setFont(this.font);
+      this.fontRenderContext = g2d.getFontRenderContext();
+      RenderContext renderContext = new RenderContext(null, graph);
+
+      Rectangle2D[] bounds = new Rectangle2D[1];
+      walk(graph, g2d, renderContext, graphShape -> {
+        Rectangle2D shapeBounds = graphShape.getShape().getBounds2D();
+        if (bounds[0] == null) {
+          bounds[0] = shapeBounds;
+        } else {
+          bounds[0].add(shapeBounds);
+        }
+      });
+      Rectangle2D page = bounds[0] != null ? bounds[0] : new Rectangle2D.Double();
+      page.setFrame(page.getX() - this.margin, page.getY() - this.margin, page.getWidth() + 2 * this.margin,
+          page.getHeight() + 2 * this.margin);
+
+      this.groupColor = null;
+      begin(out, page);
+      walk(graph, g2d, renderContext, this::write);
+      if (this.groupColor != null) {
+        endGroup();
+      }
+      end();
+    } finally {
+      g2d.dispose();
+    }
+  }
+
+  /**
+   * Visits the shapes in the order {@link GraphPane} paints them: edges first,
+   * then every node followed by its label. Pairs of edges are visited from
+   * their source, so no set of visited pairs is kept.
+   */
+  private void walk(Graph graph, Graphics2D g2d, RenderContext renderContext, ShapeVisitor visitor)
+      throws IOException {
+    for (Node node : graph.getNodes()) {
+      for (OverlappedEdges edge : graph.getNodesOverlappedEdges(Collections.singleton(node.getId()))) {
+        if (edge.getSource().equals(node.getId())) {
+          EdgeRenderer renderer = this.renderers.getEdgeRenderer(edge.getType());
+          visit(visitor, renderer.render(g2d, edge, renderContext));
+        }
+      }
+    }
+    for (Node node : graph.getNodes()) {
+      NodeRenderer renderer = this.renderers.getNodeRenderer(node.getType());
+      visit(visitor, renderer.render(g2d, node, renderContext));
+      LabelRenderer labelRenderer = this.renderers.getLabelRenderer(node.getLabelType());
+      visit(visitor, labelRenderer.render(g2d, node, renderContext));
+    }
+  }
+
+  private static void visit(ShapeVisitor visitor, GraphShape graphShape) throws IOException {
+    if (graphShape != null) {
+      visitor.visit(graphShape);
+    }
+  }
+
+  /**
+   * Paints the shape like {@link GraphShape#draw}: filled with its fill
+   * paint, or else outlined with its stroke paint. Paints other than colors
+   * are written black.
+   */
+  private void write(GraphShape graphShape) throws IOException {
+    boolean filled = graphShape.getFillPaint() != null;
+    Color color = toColor(filled ? graphShape.getFillPaint() : graphShape.getStrokePaint());
+    if (!color.equals(this.groupColor) || filled != this.groupFilled) {
+      if (this.groupColor != null) {
+        endGroup();
+      }
+      this.groupColor = color;
+      this.groupFilled = filled;
+      beginGroup(color, filled);
+    }
+
+    Shape shape = graphShape.getShapeWithoutTexts();
+    if (shape != null) {
+      writePath(shape);
+    }
+    for (GraphShape.Text text : graphShape.getTexts()) {
+      writeText(text);
+    }
+  }
+
+  /**
+   * Offsets along the baseline of every character of the text, laid out
+   * unrotated as the renderers lay it out. Rotated texts have every glyph
+   * rotated around its own offset, like {@link GraphShape.Text} outlines.
+   * Characters sharing a glyph share its offset.
+   */
+  protected double[] getCharacterOffsets(GraphShape.Text text) {
+    String value = text.getText();
+    GlyphVector vector = text.getFont().createGlyphVector(this.fontRenderContext, value);
+    double[] offsets = new double[value.length()];
+    Arrays.fill(offsets, Double.NaN);
+    for (int glyph = 0; glyph < vector.getNumGlyphs(); glyph++) {
+      int index = vector.getGlyphCharIndex(glyph);
+      if (index >= 0 && index < offsets.length && Double.isNaN(offsets[index])) {
+        offsets[index] = vector.getGlyphPosition(glyph).getX();
+      }
+    }
+    for (int i = 0; i < offsets.length; i++) {
+      if (Double.isNaN(offsets[i])) {
+        offsets[i] = i > 0 ? offsets[i - 1] : 0d;
+      }
+    }
+    return offsets;
+  }
+
+  private static Color toColor(Paint paint) {
+    return paint instanceof Color ? (Color) paint : Color.BLACK;
+  }
+
+  /**
+   * @param page stage area of the document.
+   */
+  protected abstract void begin(OutputStream out, Rectangle2D page) throws IOException;
+
+  /**
+   * Starts a run of shapes painted with the color, filled or outlined with a
+   * one unit wide line.
+   */
+  protected abstract void beginGroup(Color color, boolean filled) throws IOException;
+
+  protected abstract void writePath(Shape shape) throws IOException;
+
+  /**
+   * Writes text filled with the color of the group.
+   */
+  protected abstract void writeText(GraphShape.Text text) throws IOException;
+
+  protected abstract void endGroup() throws IOException;
+
+  protected abstract void end() throws IOException;
+
+  public Renderers getRenderers() {
+    return renderers;
+  }
+
+  public Font getFont() {
+    return font;
+  }
+
+  /**
+   * Font labels are laid out with.
+   */
+  public void setFont(Font font) {
+    this.font = font;
+  }
+
+  public int getMargin() {
+    return margin;
+  }
+
+  public void setMargin(int margin) {
+    this.margin = margin;
+  }
+
+  private interface ShapeVisitor {
+
+    void visit(GraphShape graphShape) throws IOException;
+
+  }
+
+}
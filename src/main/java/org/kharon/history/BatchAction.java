@@ -0,0 +1,50 @@
+package org.kharon.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+
+public class BatchAction implements GraphAction {
+
+  private List<GraphAction> actions = new ArrayList<>();
+
+  public BatchAction() {
+    super();
+  }
+
+  public BatchAction(List<GraphAction> actions) {
+    super();
+    this.actions.addAll(actions);
+  }
+
+  public void add(GraphAction action) {
+    this.actions.add(action);
+  }
+
+  public List<GraphAction> getActions() {
+    return actions;
+  }
+
+  @Override
+  public void undo(GraphPane graphPanel) {
+    Graph graph = graphPanel.getGraph();
+    graph.mutate(this, g -> {
+      for (int index = actions.size() - 1; index >= 0; index--) {
+        actions.get(index).undo(graphPanel);
+      }
+    });
+  }
+
+  @Override
+  public void redo(GraphPane graphPanel) {
+    Graph graph = graphPanel.getGraph();
+    graph.mutate(this, g -> {
+      for (GraphAction action : actions) {
+        action.redo(graphPanel);
+      }
+    });
+  }
+
+}
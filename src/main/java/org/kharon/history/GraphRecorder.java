@@ -7,6 +7,9 @@ public class GraphRecorder extends GraphAdapter {
 
   private GraphHistory history;
 
+  private Object lastBatch;
+  private BatchAction lastBatchAction;
+
   public GraphRecorder(GraphHistory history) {
     super();
     this.history = history;
@@ -21,7 +24,7 @@ public class GraphRecorder extends GraphAdapter {
   public void elementsAdded(GraphEvent e) {
     if (!isOriginHistoryAction(e)) {
       AddElementAction action = new AddElementAction(e.getNodes(), e.getEdges());
-      history.add(action);
+      record(e, action);
     }
   }
 
@@ -29,7 +32,23 @@ public class GraphRecorder extends GraphAdapter {
   public void elementsRemoved(GraphEvent e) {
     if (!isOriginHistoryAction(e)) {
       RemoveElementAction action = new RemoveElementAction(e.getNodes(), e.getEdges());
+      record(e, action);
+    }
+  }
+
+  private void record(GraphEvent e, GraphAction action) {
+    Object batch = e.getBatch();
+    if (batch == null) {
       history.add(action);
+    } else if (batch == lastBatch && history.getPrevious() == lastBatchAction) {
+      // A commit reports removals and additions separately, keep them as one
+      // undo step.
+      lastBatchAction.add(action);
+    } else {
+      lastBatch = batch;
+      lastBatchAction = new BatchAction();
+      lastBatchAction.add(action);
+      history.add(lastBatchAction);
     }
   }
 
@@ -25,6 +25,16 @@ public abstract class AbstractHistoryEnabledLayout implements Layout, HistoryEna
     performLayout(graph, new SimpleLayoutAction(), null);
   }
 
+  /**
+   * Moves the nodes of the graph, without recording history, reporting to the
+   * monitor, which may also stop the layout before it is done.
+   */
+  public void performLayout(Graph graph, FontMetrics fontMetrics, LayoutMonitor monitor) {
+    LayoutAction action = new SimpleLayoutAction();
+    action.monitor = monitor;
+    performLayout(graph, action, fontMetrics);
+  }
+
   protected abstract void performLayout(Graph graph, LayoutAction action, FontMetrics fontMetrics);
 
   private static class SimpleLayoutAction extends LayoutAction {
@@ -57,6 +67,28 @@ public abstract class AbstractHistoryEnabledLayout implements Layout, HistoryEna
 
   public static abstract class LayoutAction {
 
+    private LayoutMonitor monitor;
+
+    public boolean isCancelled() {
+      return monitor != null && monitor.isCancelled();
+    }
+
+    public void progress(double fraction) {
+      if (monitor != null) {
+        monitor.progress(fraction);
+      }
+    }
+
+    public boolean isFrameDue() {
+      return monitor != null && monitor.isFrameDue();
+    }
+
+    public void frame() {
+      if (monitor != null) {
+        monitor.frame();
+      }
+    }
+
     void move(Node node, int x, int y) {
       move(node, node.getX(), node.getY(), x, y);
     }
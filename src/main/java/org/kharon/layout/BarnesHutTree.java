@@ -0,0 +1,210 @@
+package org.kharon.layout;
+
+import java.util.Arrays;
+
+/**
+ * Quadtree over primitive position arrays, accumulating the mass and center of
+ * mass of every cell so the repulsion of far away cells can be approximated by
+ * a single body. The mass of a body is its weight, the number of nodes it
+ * stands for. Cells are stored in parallel arrays, so rebuilding the tree
+ * every iteration does not allocate once the arrays reached their size.
+ */
+class BarnesHutTree {
+
+  private static final int EMPTY = -1;
+  private static final int MAX_DEPTH = 32;
+  private static final double MIN_DISTANCE_SQ = 1e-4;
+
+  private double[] centerX;
+  private double[] centerY;
+  private double[] half;
+  private double[] mass;
+  // sums of the positions while building, centers of mass once built
+  private double[] massX;
+  private double[] massY;
+  private int[] children;
+  private int[] body;
+  private int[] weights;
+  private int count;
+
+  BarnesHutTree(int capacity) {
+    allocate(Math.max(capacity, 16));
+  }
+
+  void build(double[] x, double[] y, int[] weights, int size) {
+    this.weights = weights;
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < size; i++) {
+      minX = Math.min(minX, x[i]);
+      minY = Math.min(minY, y[i]);
+      maxX = Math.max(maxX, x[i]);
+      maxY = Math.max(maxY, y[i]);
+    }
+
+    count = 0;
+    double side = Math.max(Math.max(maxX - minX, maxY - minY), 1d);
+    newCell((minX + maxX) / 2, (minY + maxY) / 2, side / 2 * 1.0001);
+    for (int i = 0; i < size; i++) {
+      insert(i, x, y);
+    }
+    for (int cell = 0; cell < count; cell++) {
+      if (mass[cell] > 0) {
+        massX[cell] /= mass[cell];
+        massY[cell] /= mass[cell];
+      }
+    }
+  }
+
+  /**
+   * Adds the repulsion of every other body on body {@code i} to {@code force},
+   * using the inverse distance law {@code k² m / d} where {@code m} is the
+   * mass of the other body.
+   */
+  void repulsion(int i, double px, double py, double theta, double k2, double[] force, int[] stack) {
+    double theta2 = theta * theta;
+    double fx = 0;
+    double fy = 0;
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int cell = stack[--top];
+      double m = mass[cell];
+      if (m == 0) {
+        continue;
+      }
+      double dx = px - massX[cell];
+      double dy = py - massY[cell];
+      double d2 = dx * dx + dy * dy;
+
+      if (isLeaf(cell)) {
+        if (body[cell] == i) {
+          m -= weights[i];
+          if (m == 0) {
+            continue;
+          }
+        }
+      } else {
+        double width = half[cell] * 2;
+        if (width * width >= theta2 * d2) {
+          for (int c = 0; c < 4; c++) {
+            int child = children[(cell << 2) + c];
+            if (child != EMPTY) {
+              stack[top++] = child;
+            }
+          }
+          continue;
+        }
+      }
+
+      if (d2 < MIN_DISTANCE_SQ) {
+        // coincident bodies, pushed apart in a direction that depends on the body
+        double angle = i * 2.399963229728653;
+        dx = Math.cos(angle) * 0.01;
+        dy = Math.sin(angle) * 0.01;
+        d2 = MIN_DISTANCE_SQ;
+      }
+      double f = k2 * m / d2;
+      fx += dx * f;
+      fy += dy * f;
+    }
+    force[0] += fx;
+    force[1] += fy;
+  }
+
+  static int stackSize() {
+    return 3 * (MAX_DEPTH + 2) + 1;
+  }
+
+  private void insert(int i, double[] x, double[] y) {
+    double px = x[i];
+    double py = y[i];
+    int w = weights[i];
+    int cell = 0;
+    for (int depth = 0;; depth++) {
+      boolean empty = mass[cell] == 0;
+      mass[cell] += w;
+      massX[cell] += px * w;
+      massY[cell] += py * w;
+
+      if (isLeaf(cell)) {
+        if (body[cell] == EMPTY && empty) {
+          body[cell] = i;
+          return;
+        }
+        if (depth >= MAX_DEPTH) {
+          // (almost) coincident bodies share the leaf
+          return;
+        }
+        int previous = body[cell];
+        body[cell] = EMPTY;
+        int child = childFor(cell, x[previous], y[previous]);
+        mass[child] = weights[previous];
+        massX[child] = x[previous] * weights[previous];
+        massY[child] = y[previous] * weights[previous];
+        body[child] = previous;
+      }
+      cell = childFor(cell, px, py);
+    }
+  }
+
+  private boolean isLeaf(int cell) {
+    int base = cell << 2;
+    return children[base] == EMPTY && children[base + 1] == EMPTY && children[base + 2] == EMPTY
+        && children[base + 3] == EMPTY;
+  }
+
+  private int childFor(int cell, double px, double py) {
+    int quadrant = (px >= centerX[cell] ? 1 : 0) | (py >= centerY[cell] ? 2 : 0);
+    int slot = (cell << 2) + quadrant;
+    int child = children[slot];
+    if (child == EMPTY) {
+      double h = half[cell] / 2;
+      child = newCell(centerX[cell] + ((quadrant & 1) != 0 ? h : -h), centerY[cell] + ((quadrant & 2) != 0 ? h : -h),
+          h);
+      children[slot] = child;
+    }
+    return child;
+  }
+
+  private int newCell(double cx, double cy, double h) {
+    if (count == mass.length) {
+      allocate(count * 2);
+    }
+    int cell = count++;
+    centerX[cell] = cx;
+    centerY[cell] = cy;
+    half[cell] = h;
+    mass[cell] = 0;
+    massX[cell] = 0;
+    massY[cell] = 0;
+    body[cell] = EMPTY;
+    Arrays.fill(children, cell << 2, (cell << 2) + 4, EMPTY);
+    return cell;
+  }
+
+  private void allocate(int capacity) {
+    if (mass == null) {
+      centerX = new double[capacity];
+      centerY = new double[capacity];
+      half = new double[capacity];
+      mass = new double[capacity];
+      massX = new double[capacity];
+      massY = new double[capacity];
+      children = new int[capacity << 2];
+      body = new int[capacity];
+    } else {
+      centerX = Arrays.copyOf(centerX, capacity);
+      centerY = Arrays.copyOf(centerY, capacity);
+      half = Arrays.copyOf(half, capacity);
+      mass = Arrays.copyOf(mass, capacity);
+      massX = Arrays.copyOf(massX, capacity);
+      massY = Arrays.copyOf(massY, capacity);
+      children = Arrays.copyOf(children, capacity << 2);
+      body = Arrays.copyOf(body, capacity);
+    }
+  }
+
+}
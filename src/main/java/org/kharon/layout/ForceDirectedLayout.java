@@ -0,0 +1,389 @@
+package org.kharon.layout;
+
+import java.awt.FontMetrics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import org.kharon.Graph;
+import org.kharon.Node;
+
+/**
+ * Spring electrical layout. Connected nodes attract with {@code d² / k} and
+ * all nodes repel with {@code k² / d}, where {@code k} is the ideal edge
+ * length. On the coarse levels of a {@link MultilevelLayout} a body stands for
+ * several nodes: it repels as their sum and every edge it has attracts as the
+ * edges it merged. Repulsion is approximated with a Barnes–Hut quadtree and
+ * forces are computed in parallel over primitive position arrays. Nodes move
+ * along their force with an adaptive step that shrinks as the energy stops
+ * decreasing.
+ */
+public class ForceDirectedLayout extends AbstractHistoryEnabledLayout {
+
+  public static final int DEFAULT_ITERATIONS = 300;
+  public static final double DEFAULT_CONVERGENCE_THRESHOLD = 0.01d;
+  public static final double DEFAULT_EDGE_LENGTH = 80d;
+  public static final double DEFAULT_THETA = 1.2d;
+  public static final double DEFAULT_GRAVITY = 0.1d;
+
+  private static final int PARALLEL_THRESHOLD = 512;
+  private static final double STEP_RATIO = 0.9d;
+
+  private int iterations = DEFAULT_ITERATIONS;
+  private double convergenceThreshold = DEFAULT_CONVERGENCE_THRESHOLD;
+  private double edgeLength = DEFAULT_EDGE_LENGTH;
+  private double theta = DEFAULT_THETA;
+  private double gravity = DEFAULT_GRAVITY;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+  private long seed = 42L;
+
+  public ForceDirectedLayout() {
+    super();
+  }
+
+  public ForceDirectedLayout(int iterations, double convergenceThreshold) {
+    super();
+    this.iterations = iterations;
+    this.convergenceThreshold = convergenceThreshold;
+  }
+
+  @Override
+  protected void performLayout(Graph graph, LayoutAction action, FontMetrics fontMetrics) {
+    List<Node> nodes = new ArrayList<>(graph.getNodes());
+    if (nodes.isEmpty()) {
+      return;
+    }
+    Rectangle boundingBox = graph.getBoundingBox();
+
+    double[] x = new double[nodes.size()];
+    double[] y = new double[nodes.size()];
+    for (int i = 0; i < nodes.size(); i++) {
+      Node node = nodes.get(i);
+      x[i] = node.getX() + node.getSize() / 2;
+      y[i] = node.getY() + node.getSize() / 2;
+    }
+    simulate(LayoutGraph.of(graph, nodes), x, y, edgeLength, iterations, action, 0d, 1d,
+        () -> place(nodes, x, y, boundingBox, action));
+    if (!action.isCancelled()) {
+      place(nodes, x, y, boundingBox, action);
+    }
+  }
+
+  /**
+   * Moves the bodies of the graph from their positions to a state of minimal
+   * energy for the edge length, reporting progress between the two fractions.
+   * The frame callback is run whenever a frame is due.
+   */
+  void simulate(LayoutGraph graph, double[] x, double[] y, double edgeLength, int iterations, LayoutAction action,
+      double progressFrom, double progressTo, Runnable frame) {
+    Simulation simulation = new Simulation(graph, x, y, edgeLength);
+    simulation.run(iterations, action, progressFrom, progressTo, frame);
+  }
+
+  /**
+   * Moves the nodes to the positions of their centers, the whole layout
+   * starting at the corner of the bounding box.
+   */
+  static void place(List<Node> nodes, double[] x, double[] y, Rectangle boundingBox, LayoutAction action) {
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < nodes.size(); i++) {
+      int half = nodes.get(i).getSize() / 2;
+      minX = Math.min(minX, x[i] - half);
+      minY = Math.min(minY, y[i] - half);
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      Node node = nodes.get(i);
+      int half = node.getSize() / 2;
+      int nodeX = (int) Math.round(x[i] - half - minX) + boundingBox.x;
+      int nodeY = (int) Math.round(y[i] - half - minY) + boundingBox.y;
+      action.move(node, nodeX, nodeY);
+    }
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  public void setIterations(int iterations) {
+    this.iterations = iterations;
+  }
+
+  /**
+   * The layout stops once the mean displacement of the nodes in an iteration
+   * falls below this fraction of the edge length.
+   */
+  public double getConvergenceThreshold() {
+    return convergenceThreshold;
+  }
+
+  public void setConvergenceThreshold(double convergenceThreshold) {
+    this.convergenceThreshold = convergenceThreshold;
+  }
+
+  public double getEdgeLength() {
+    return edgeLength;
+  }
+
+  public void setEdgeLength(double edgeLength) {
+    this.edgeLength = edgeLength;
+  }
+
+  /**
+   * Barnes–Hut opening criterion. Cells whose width is smaller than theta
+   * times their distance are taken as a single body; lower is more accurate
+   * and slower.
+   */
+  public double getTheta() {
+    return theta;
+  }
+
+  public void setTheta(double theta) {
+    this.theta = theta;
+  }
+
+  /**
+   * Pull towards the centroid, keeping disconnected parts of the graph
+   * together.
+   */
+  public double getGravity() {
+    return gravity;
+  }
+
+  public void setGravity(double gravity) {
+    this.gravity = gravity;
+  }
+
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  private class Simulation {
+
+    private final int size;
+    private final double[] x;
+    private final double[] y;
+    private final double[] forceX;
+    private final double[] forceY;
+    private final int[] adjacencyStart;
+    private final int[] adjacency;
+    private final int[] edgeWeights;
+    private final int[] weights;
+    private final double edgeLength;
+    private final BarnesHutTree tree;
+
+    private double centroidX;
+    private double centroidY;
+    private double step;
+
+    Simulation(LayoutGraph graph, double[] x, double[] y, double edgeLength) {
+      this.size = graph.size;
+      this.x = x;
+      this.y = y;
+      this.forceX = new double[size];
+      this.forceY = new double[size];
+      this.adjacencyStart = graph.start;
+      this.adjacency = graph.adjacency;
+      this.edgeWeights = graph.edgeWeights;
+      this.weights = graph.weights;
+      this.edgeLength = edgeLength;
+      this.tree = new BarnesHutTree(size * 2);
+
+      scatterIfCollapsed();
+      this.step = edgeLength;
+    }
+
+    /**
+     * Nodes that were never placed all sit on the origin, which gives the
+     * forces no direction to work with.
+     */
+    private void scatterIfCollapsed() {
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < size; i++) {
+        minX = Math.min(minX, x[i]);
+        minY = Math.min(minY, y[i]);
+        maxX = Math.max(maxX, x[i]);
+        maxY = Math.max(maxY, y[i]);
+      }
+      if (size > 1 && maxX - minX < edgeLength && maxY - minY < edgeLength) {
+        Random random = new Random(seed);
+        double side = edgeLength * Math.sqrt(size);
+        for (int i = 0; i < size; i++) {
+          x[i] = random.nextDouble() * side;
+          y[i] = random.nextDouble() * side;
+        }
+      }
+    }
+
+    void run(int iterations, LayoutAction action, double progressFrom, double progressTo, Runnable frame) {
+      double energy = Double.POSITIVE_INFINITY;
+      int progress = 0;
+      for (int iteration = 0; iteration < iterations && !action.isCancelled(); iteration++) {
+        tree.build(x, y, weights, size);
+        centroid();
+        pool.invoke(new ForceTask(0, size));
+        double[] result = pool.invoke(new MoveTask(0, size));
+
+        double previous = energy;
+        energy = result[0];
+        if (energy < previous) {
+          progress++;
+          if (progress >= 5) {
+            progress = 0;
+            step /= STEP_RATIO;
+          }
+        } else {
+          progress = 0;
+          step *= STEP_RATIO;
+        }
+
+        if (result[1] / size < convergenceThreshold * edgeLength) {
+          break;
+        }
+        action.progress(progressFrom + (progressTo - progressFrom) * (iteration + 1d) / iterations);
+        if (action.isFrameDue()) {
+          frame.run();
+          action.frame();
+        }
+      }
+    }
+
+    private void centroid() {
+      double sumX = 0;
+      double sumY = 0;
+      long mass = 0;
+      for (int i = 0; i < size; i++) {
+        sumX += x[i] * weights[i];
+        sumY += y[i] * weights[i];
+        mass += weights[i];
+      }
+      centroidX = sumX / mass;
+      centroidY = sumY / mass;
+    }
+
+    private void computeForces(int from, int to) {
+      double k2 = edgeLength * edgeLength;
+      double[] force = new double[2];
+      int[] stack = new int[BarnesHutTree.stackSize()];
+      for (int i = from; i < to; i++) {
+        double px = x[i];
+        double py = y[i];
+        force[0] = 0;
+        force[1] = 0;
+        tree.repulsion(i, px, py, theta, k2, force, stack);
+
+        // a body standing for several nodes repels and is held like all of them
+        int w = weights[i];
+        double fx = force[0] * w;
+        double fy = force[1] * w;
+        for (int a = adjacencyStart[i]; a < adjacencyStart[i + 1]; a++) {
+          int j = adjacency[a];
+          double dx = x[j] - px;
+          double dy = y[j] - py;
+          double d = Math.sqrt(dx * dx + dy * dy) * edgeWeights[a];
+          fx += dx * d / edgeLength;
+          fy += dy * d / edgeLength;
+        }
+        fx += (centroidX - px) * gravity * w;
+        fy += (centroidY - py) * gravity * w;
+
+        forceX[i] = fx;
+        forceY[i] = fy;
+      }
+    }
+
+    private double[] move(int from, int to) {
+      double energy = 0;
+      double displacement = 0;
+      for (int i = from; i < to; i++) {
+        double f2 = forceX[i] * forceX[i] + forceY[i] * forceY[i];
+        if (f2 > 0) {
+          double f = Math.sqrt(f2);
+          double length = Math.min(step, f);
+          x[i] += forceX[i] / f * length;
+          y[i] += forceY[i] / f * length;
+          energy += f2;
+          displacement += length;
+        }
+      }
+      return new double[] { energy, displacement };
+    }
+
+    private class ForceTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int from;
+      private final int to;
+
+      ForceTask(int from, int to) {
+        this.from = from;
+        this.to = to;
+      }
+
+      @Override
+      protected void compute() {
+        if (to - from <= PARALLEL_THRESHOLD) {
+          computeForces(from, to);
+        } else {
+          int middle = (from + to) >>> 1;
+          ForceTask left = new ForceTask(from, middle);
+          left.fork();
+          new ForceTask(middle, to).compute();
+          left.join();
+        }
+      }
+
+    }
+
+    private class MoveTask extends RecursiveTask<double[]> {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int from;
+      private final int to;
+
+      MoveTask(int from, int to) {
+        this.from = from;
+        this.to = to;
+      }
+
+      @Override
+      protected double[] compute() {
+        if (to - from <= PARALLEL_THRESHOLD) {
+          return move(from, to);
+        }
+        int middle = (from + to) >>> 1;
+        MoveTask left = new MoveTask(from, middle);
+        left.fork();
+        double[] right = new MoveTask(middle, to).compute();
+        double[] result = left.join();
+        result[0] += right[0];
+        result[1] += right[1];
+        return result;
+      }
+
+    }
+
+  }
+
+}
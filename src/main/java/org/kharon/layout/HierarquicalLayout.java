@@ -55,9 +55,13 @@ public class HierarquicalLayout extends AbstractHistoryEnabledLayout {
 
     int left = (int) boundingBox.getMinX();
     int middle = (int) (boundingBox.getMinY() + boundingBox.height / 2);
-    for (Graph subGraph : subGraphs) {
-      boundingBox = performLayoutSubGraph(subGraph, action, left, middle, fontMetrics);
+    for (int index = 0; index < subGraphs.size() && !action.isCancelled(); index++) {
+      boundingBox = performLayoutSubGraph(subGraphs.get(index), action, left, middle, fontMetrics);
       left += boundingBox.width + DEFAULT_SUB_GRAPH_GAP;
+      action.progress((index + 1d) / subGraphs.size());
+      if (action.isFrameDue()) {
+        action.frame();
+      }
     }
 
   }
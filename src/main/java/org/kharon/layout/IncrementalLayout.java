@@ -0,0 +1,341 @@
+package org.kharon.layout;
+
+import java.awt.FontMetrics;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.Node;
+
+/**
+ * Places nodes just added to a graph already laid out, moving nothing else.
+ * Every new node starts around the nodes it is connected to, in the order they
+ * get placed, then a short force relaxation spreads the new nodes apart from
+ * each other and from the nodes near them. Forces only reach as far as the
+ * radius, and no new node strays further than the radius from where it
+ * started, so the cost depends on the new nodes, their edges and what lies
+ * around them, not on the size of the graph.
+ */
+public class IncrementalLayout extends AbstractHistoryEnabledLayout {
+
+  public static final int DEFAULT_ITERATIONS = 60;
+  public static final double DEFAULT_EDGE_LENGTH = ForceDirectedLayout.DEFAULT_EDGE_LENGTH;
+  public static final double DEFAULT_RADIUS = 3 * DEFAULT_EDGE_LENGTH;
+
+  private static final double GOLDEN_ANGLE = 2.399963229728653;
+  private static final double MIN_DISTANCE_SQ = 1e-4;
+
+  private final Collection<Node> nodes;
+  private int iterations = DEFAULT_ITERATIONS;
+  private double edgeLength = DEFAULT_EDGE_LENGTH;
+  private double radius = DEFAULT_RADIUS;
+
+  /**
+   * @param nodes the nodes to place; every other node of the graph stays
+   *          where it is.
+   */
+  public IncrementalLayout(Collection<Node> nodes) {
+    super();
+    this.nodes = nodes;
+  }
+
+  @Override
+  protected void performLayout(Graph graph, LayoutAction action, FontMetrics fontMetrics) {
+    Bodies bodies = new Bodies();
+    for (Node node : this.nodes) {
+      if (graph.getNode(node.getId()) == node && !bodies.indexes.containsKey(node.getId())) {
+        bodies.add(node);
+      }
+    }
+    int movable = bodies.size;
+    if (movable == 0) {
+      return;
+    }
+
+    // the placed neighbours become fixed bodies
+    int[] start = new int[movable + 1];
+    int[] adjacency = new int[16];
+    int count = 0;
+    for (int i = 0; i < movable; i++) {
+      Node node = bodies.nodes.get(i);
+      start[i] = count;
+      for (Edge edge : graph.getEdges(node)) {
+        String other = edge.getSource().equals(node.getId()) ? edge.getTarget() : edge.getSource();
+        if (other.equals(node.getId())) {
+          continue;
+        }
+        Integer body = bodies.indexes.get(other);
+        if (body == null) {
+          body = bodies.add(graph.getNode(other));
+        }
+        if (count == adjacency.length) {
+          adjacency = Arrays.copyOf(adjacency, count * 2);
+        }
+        adjacency[count++] = body;
+      }
+    }
+    start[movable] = count;
+    place(bodies, movable, start, adjacency);
+
+    // nodes within reach of where the new ones may go push them away too
+    double reach = 2 * radius;
+    for (int i = 0; i < movable; i++) {
+      Rectangle2D area = new Rectangle2D.Double(bodies.x[i] - reach, bodies.y[i] - reach, 2 * reach, 2 * reach);
+      for (Node node : graph.getNodesIn(area)) {
+        if (!bodies.indexes.containsKey(node.getId())) {
+          bodies.add(node);
+        }
+      }
+    }
+
+    relax(bodies, movable, start, adjacency, action);
+    if (action.isCancelled()) {
+      return;
+    }
+    for (int i = 0; i < movable; i++) {
+      Node node = bodies.nodes.get(i);
+      int half = node.getSize() / 2;
+      action.move(node, (int) Math.round(bodies.x[i]) - half, (int) Math.round(bodies.y[i]) - half);
+    }
+  }
+
+  /**
+   * Starting from the new nodes connected to nodes already placed, every new
+   * node goes to the centroid of its placed neighbours, spiralling around it
+   * with the others placed there. New nodes with no path to a placed node
+   * spiral around the first of them, where it was created.
+   */
+  private void place(Bodies bodies, int movable, int[] start, int[] adjacency) {
+    boolean[] placed = new boolean[bodies.size];
+    Arrays.fill(placed, movable, bodies.size, true);
+    // how many nodes were placed around every body so far
+    int[] around = new int[bodies.size];
+    Deque<Integer> queue = new ArrayDeque<>();
+    boolean[] queued = new boolean[movable];
+    for (int i = 0; i < movable; i++) {
+      for (int a = start[i]; a < start[i + 1]; a++) {
+        if (adjacency[a] >= movable) {
+          queue.add(i);
+          queued[i] = true;
+          break;
+        }
+      }
+    }
+
+    int next = 0;
+    while (true) {
+      if (queue.isEmpty()) {
+        // the next component of new nodes not connected to anything placed
+        while (next < movable && queued[next]) {
+          next++;
+        }
+        if (next == movable) {
+          break;
+        }
+        queue.add(next);
+        queued[next] = true;
+        placed[next] = true;
+      }
+      int i = queue.poll();
+      if (!placed[i]) {
+        double sumX = 0;
+        double sumY = 0;
+        int count = 0;
+        int anchor = -1;
+        for (int a = start[i]; a < start[i + 1]; a++) {
+          int j = adjacency[a];
+          if (placed[j]) {
+            sumX += bodies.x[j];
+            sumY += bodies.y[j];
+            count++;
+            if (anchor == -1 || around[j] < around[anchor]) {
+              anchor = j;
+            }
+          }
+        }
+        // a sunflower around the least crowded neighbour, the one edge length
+        // away at first
+        int slot = around[anchor]++;
+        double distance = edgeLength * (count == 1 ? 1 + Math.sqrt(slot) / 2 : Math.sqrt(slot + 1) / 2);
+        double angle = slot * GOLDEN_ANGLE + anchor;
+        bodies.x[i] = sumX / count + Math.cos(angle) * distance;
+        bodies.y[i] = sumY / count + Math.sin(angle) * distance;
+        placed[i] = true;
+      }
+      for (int a = start[i]; a < start[i + 1]; a++) {
+        int j = adjacency[a];
+        if (j < movable && !queued[j]) {
+          queue.add(j);
+          queued[j] = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Spring electrical relaxation of the new nodes, like
+   * {@link ForceDirectedLayout} but with repulsion cut off at the radius, so
+   * bodies are found through a grid of cells as wide as the radius.
+   */
+  private void relax(Bodies bodies, int movable, int[] start, int[] adjacency, LayoutAction action) {
+    double[] x = bodies.x;
+    double[] y = bodies.y;
+    double[] originX = Arrays.copyOf(x, movable);
+    double[] originY = Arrays.copyOf(y, movable);
+    double[] forceX = new double[movable];
+    double[] forceY = new double[movable];
+    double k2 = edgeLength * edgeLength;
+    double radius2 = radius * radius;
+
+    int buckets = Integer.highestOneBit(Math.max(bodies.size, 8) * 2);
+    int[] head = new int[buckets];
+    int[] nextInBucket = new int[bodies.size];
+    double step = edgeLength / 2;
+
+    for (int iteration = 0; iteration < iterations && !action.isCancelled(); iteration++) {
+      Arrays.fill(head, -1);
+      for (int b = 0; b < bodies.size; b++) {
+        int bucket = bucket(cell(x[b]), cell(y[b]), buckets);
+        nextInBucket[b] = head[bucket];
+        head[bucket] = b;
+      }
+
+      for (int i = 0; i < movable; i++) {
+        double px = x[i];
+        double py = y[i];
+        double fx = 0;
+        double fy = 0;
+        int cellX = cell(px);
+        int cellY = cell(py);
+        for (int cx = cellX - 1; cx <= cellX + 1; cx++) {
+          for (int cy = cellY - 1; cy <= cellY + 1; cy++) {
+            for (int b = head[bucket(cx, cy, buckets)]; b != -1; b = nextInBucket[b]) {
+              // other cells may share the bucket
+              if (b == i || cell(x[b]) != cx || cell(y[b]) != cy) {
+                continue;
+              }
+              double dx = px - x[b];
+              double dy = py - y[b];
+              double d2 = dx * dx + dy * dy;
+              if (d2 > radius2) {
+                continue;
+              }
+              if (d2 < MIN_DISTANCE_SQ) {
+                double angle = i * GOLDEN_ANGLE;
+                dx = Math.cos(angle) * 0.01;
+                dy = Math.sin(angle) * 0.01;
+                d2 = MIN_DISTANCE_SQ;
+              }
+              fx += dx * k2 / d2;
+              fy += dy * k2 / d2;
+            }
+          }
+        }
+        for (int a = start[i]; a < start[i + 1]; a++) {
+          int j = adjacency[a];
+          double dx = x[j] - px;
+          double dy = y[j] - py;
+          double d = Math.sqrt(dx * dx + dy * dy);
+          fx += dx * d / edgeLength;
+          fy += dy * d / edgeLength;
+        }
+        forceX[i] = fx;
+        forceY[i] = fy;
+      }
+
+      for (int i = 0; i < movable; i++) {
+        double f = Math.sqrt(forceX[i] * forceX[i] + forceY[i] * forceY[i]);
+        if (f > 0) {
+          double length = Math.min(step, f);
+          double nx = x[i] + forceX[i] / f * length;
+          double ny = y[i] + forceY[i] / f * length;
+          // kept within the radius of where it was placed
+          double ox = nx - originX[i];
+          double oy = ny - originY[i];
+          double o2 = ox * ox + oy * oy;
+          if (o2 > radius2) {
+            double scale = radius / Math.sqrt(o2);
+            nx = originX[i] + ox * scale;
+            ny = originY[i] + oy * scale;
+          }
+          x[i] = nx;
+          y[i] = ny;
+        }
+      }
+      step *= 0.95d;
+      action.progress((iteration + 1d) / iterations);
+    }
+  }
+
+  private int cell(double coordinate) {
+    return (int) Math.floor(coordinate / radius);
+  }
+
+  private static int bucket(int cellX, int cellY, int buckets) {
+    return (cellX * 0x9E3779B1 + cellY * 0x85EBCA6B) >>> 1 & buckets - 1;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  public void setIterations(int iterations) {
+    this.iterations = iterations;
+  }
+
+  public double getEdgeLength() {
+    return edgeLength;
+  }
+
+  public void setEdgeLength(double edgeLength) {
+    this.edgeLength = edgeLength;
+  }
+
+  /**
+   * Reach of the repulsion between nodes, and furthest a new node moves from
+   * where it was first placed.
+   */
+  public double getRadius() {
+    return radius;
+  }
+
+  public void setRadius(double radius) {
+    this.radius = radius;
+  }
+
+  /**
+   * The nodes taking part in the layout, the new ones first, with the
+   * positions of their centers.
+   */
+  private static class Bodies {
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+    private int size;
+
+    int add(Node node) {
+      if (size == x.length) {
+        x = Arrays.copyOf(x, size * 2);
+        y = Arrays.copyOf(y, size * 2);
+      }
+      int index = size++;
+      nodes.add(node);
+      indexes.put(node.getId(), index);
+      x[index] = node.getX() + node.getSize() / 2;
+      y[index] = node.getY() + node.getSize() / 2;
+      return index;
+    }
+
+  }
+
+}
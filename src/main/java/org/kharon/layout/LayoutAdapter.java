@@ -0,0 +1,17 @@
+package org.kharon.layout;
+
+public abstract class LayoutAdapter implements LayoutListener {
+
+  @Override
+  public void layoutProgress(LayoutTask task, double progress) { }
+
+  @Override
+  public void layoutFinished(LayoutTask task) { }
+
+  @Override
+  public void layoutCancelled(LayoutTask task) { }
+
+  @Override
+  public void layoutFailed(LayoutTask task, Throwable error) { }
+
+}
@@ -0,0 +1,80 @@
+package org.kharon.layout;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.Node;
+
+/**
+ * Undirected adjacency of the bodies of a layout in compressed rows: the
+ * neighbours of body {@code i} are {@code adjacency[start[i]]} up to
+ * {@code adjacency[start[i + 1]]}, each with the weight of the edges joining
+ * them. Bodies have a weight too, the number of nodes they stand for.
+ */
+class LayoutGraph {
+
+  final int size;
+  final int[] start;
+  final int[] adjacency;
+  final int[] edgeWeights;
+  final int[] weights;
+
+  LayoutGraph(int size, int[] start, int[] adjacency, int[] edgeWeights, int[] weights) {
+    this.size = size;
+    this.start = start;
+    this.adjacency = adjacency;
+    this.edgeWeights = edgeWeights;
+    this.weights = weights;
+  }
+
+  /**
+   * The edges between the nodes, indexed as in the list. Self loops and edges
+   * to other nodes are left out; parallel edges are kept as they are.
+   */
+  static LayoutGraph of(Graph graph, List<Node> nodes) {
+    int size = nodes.size();
+    Map<String, Integer> indexes = new HashMap<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      indexes.put(nodes.get(i).getId(), i);
+    }
+
+    int edgeCount = graph.getEdges().size();
+    int[] sources = new int[edgeCount];
+    int[] targets = new int[edgeCount];
+    int[] degrees = new int[size];
+    int pairs = 0;
+    for (Edge edge : graph.getEdges()) {
+      Integer source = indexes.get(edge.getSource());
+      Integer target = indexes.get(edge.getTarget());
+      if (source != null && target != null && !source.equals(target)) {
+        sources[pairs] = source;
+        targets[pairs] = target;
+        pairs++;
+        degrees[source]++;
+        degrees[target]++;
+      }
+    }
+
+    int[] start = new int[size + 1];
+    for (int i = 0; i < size; i++) {
+      start[i + 1] = start[i] + degrees[i];
+    }
+    int[] adjacency = new int[start[size]];
+    int[] fill = new int[size];
+    for (int p = 0; p < pairs; p++) {
+      adjacency[start[sources[p]] + fill[sources[p]]++] = targets[p];
+      adjacency[start[targets[p]] + fill[targets[p]]++] = sources[p];
+    }
+
+    int[] edgeWeights = new int[adjacency.length];
+    int[] weights = new int[size];
+    Arrays.fill(edgeWeights, 1);
+    Arrays.fill(weights, 1);
+    return new LayoutGraph(size, start, adjacency, edgeWeights, weights);
+  }
+
+}
@@ -0,0 +1,17 @@
+package org.kharon.layout;
+
+/**
+ * Notified, on the event dispatch thread, of the progress of a
+ * {@link LayoutTask}.
+ */
+public interface LayoutListener {
+
+  void layoutProgress(LayoutTask task, double progress);
+
+  void layoutFinished(LayoutTask task);
+
+  void layoutCancelled(LayoutTask task);
+
+  void layoutFailed(LayoutTask task, Throwable error);
+
+}
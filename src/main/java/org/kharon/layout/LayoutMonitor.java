@@ -0,0 +1,24 @@
+package org.kharon.layout;
+
+/**
+ * Receives the progress of a layout running away from the event dispatch
+ * thread, and lets it be stopped.
+ */
+public interface LayoutMonitor {
+
+  boolean isCancelled();
+
+  /**
+   * @param fraction between 0 and 1.
+   */
+  void progress(double fraction);
+
+  /**
+   * Whether the layout should move its nodes to their current, intermediate
+   * positions and call {@link #frame()}.
+   */
+  boolean isFrameDue();
+
+  void frame();
+
+}
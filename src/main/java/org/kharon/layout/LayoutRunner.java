@@ -0,0 +1,83 @@
+package org.kharon.layout;
+
+import java.awt.FontMetrics;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kharon.GraphPane;
+
+/**
+ * Runs layouts on a worker pool instead of the event dispatch thread. The
+ * layout moves copies of the nodes; their intermediate positions are
+ * published to the pane every frame interval, and the final positions are
+ * applied as one undoable action.
+ */
+public class LayoutRunner {
+
+  public static final long DEFAULT_FRAME_INTERVAL = 100L;
+
+  private static ExecutorService defaultExecutor;
+
+  private GraphPane graphPane;
+  private ExecutorService executor;
+  private long frameInterval = DEFAULT_FRAME_INTERVAL;
+
+  public LayoutRunner(GraphPane graphPane) {
+    this(graphPane, getDefaultExecutor());
+  }
+
+  public LayoutRunner(GraphPane graphPane, ExecutorService executor) {
+    super();
+    this.graphPane = graphPane;
+    this.executor = executor;
+  }
+
+  /**
+   * Must be called on the event dispatch thread. Only layouts extending
+   * {@link AbstractHistoryEnabledLayout} can run, as they move the nodes of a
+   * plain graph; other layouts need a pane, and are applied with
+   * {@link GraphPane#applyLayout(HistoryEnabledLayout)}.
+   *
+   * @throws IllegalArgumentException if the layout does not extend
+   *           {@link AbstractHistoryEnabledLayout}.
+   */
+  public LayoutTask run(HistoryEnabledLayout layout, FontMetrics fontMetrics, LayoutListener listener) {
+    if (!(layout instanceof AbstractHistoryEnabledLayout)) {
+      throw new IllegalArgumentException("Layout " + layout.getClass().getName()
+          + " needs a pane to run; only layouts extending AbstractHistoryEnabledLayout run in the background.");
+    }
+    LayoutTask task = new LayoutTask(graphPane, layout, fontMetrics, listener, frameInterval);
+    task.start(executor);
+    return task;
+  }
+
+  /**
+   * Minimum time, in milliseconds, between intermediate positions published to
+   * the pane. Zero or less disables them.
+   */
+  public long getFrameInterval() {
+    return frameInterval;
+  }
+
+  public void setFrameInterval(long frameInterval) {
+    this.frameInterval = frameInterval;
+  }
+
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  private static synchronized ExecutorService getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      AtomicInteger count = new AtomicInteger();
+      defaultExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "kharon-layout-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return defaultExecutor;
+  }
+
+}
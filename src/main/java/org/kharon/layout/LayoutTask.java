@@ -0,0 +1,249 @@
+package org.kharon.layout;
+
+import java.awt.FontMetrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+import org.kharon.GraphSnapshot;
+import org.kharon.Node;
+import org.kharon.history.MoveNodeAction;
+
+/**
+ * A layout running on a worker thread, created by {@link LayoutRunner}. It
+ * reports progress, publishes intermediate positions and stops early when
+ * cancelled.
+ */
+public class LayoutTask {
+
+  private final GraphPane graphPane;
+  private final HistoryEnabledLayout layout;
+  private final FontMetrics fontMetrics;
+  private final LayoutListener listener;
+  private final long frameInterval;
+
+  private final GraphSnapshot snapshot;
+  private final List<Node> nodes;
+  private final int[] oldPositions;
+
+  private final CompletableFuture<MoveNodeAction> result = new CompletableFuture<>();
+  private final AtomicReference<int[]> pendingFrame = new AtomicReference<>();
+  private final AtomicBoolean progressPosted = new AtomicBoolean();
+
+  private volatile boolean cancelled;
+  private volatile double progress;
+  private volatile long lastFrame;
+  private Graph working;
+  private boolean framesApplied;
+  private boolean done;
+
+  LayoutTask(GraphPane graphPane, HistoryEnabledLayout layout, FontMetrics fontMetrics, LayoutListener listener,
+      long frameInterval) {
+    this.graphPane = graphPane;
+    this.layout = layout;
+    this.fontMetrics = fontMetrics;
+    this.listener = listener;
+    this.frameInterval = frameInterval;
+
+    this.snapshot = graphPane.getGraph().snapshot();
+    this.nodes = new ArrayList<>(snapshot.getNodes());
+    this.oldPositions = new int[nodes.size() * 2];
+    for (int index = 0; index < nodes.size(); index++) {
+      oldPositions[index * 2] = nodes.get(index).getX();
+      oldPositions[index * 2 + 1] = nodes.get(index).getY();
+    }
+  }
+
+  void start(ExecutorService executor) {
+    this.lastFrame = System.nanoTime();
+    executor.execute(this::run);
+  }
+
+  /**
+   * Stops the layout, as soon as it checks, and puts back the nodes moved by
+   * intermediate frames.
+   */
+  public void cancel() {
+    if (!result.isDone()) {
+      this.cancelled = true;
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public boolean isDone() {
+    return result.isDone();
+  }
+
+  public double getProgress() {
+    return progress;
+  }
+
+  public HistoryEnabledLayout getLayout() {
+    return layout;
+  }
+
+  /**
+   * Waits for the layout to be applied to the graph. Must not be called on the
+   * event dispatch thread.
+   *
+   * @return the action added to the history.
+   */
+  public MoveNodeAction get() throws InterruptedException, ExecutionException {
+    return result.get();
+  }
+
+  public MoveNodeAction get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return result.get(timeout, unit);
+  }
+
+  private void run() {
+    try {
+      if (!cancelled) {
+        working = snapshot.copy();
+        ((AbstractHistoryEnabledLayout) layout).performLayout(working, fontMetrics, new Monitor());
+      }
+      if (cancelled) {
+        SwingUtilities.invokeLater(this::cancelled);
+      } else {
+        int[] positions = capturePositions();
+        SwingUtilities.invokeLater(() -> finish(positions));
+      }
+    } catch (RuntimeException | Error e) {
+      SwingUtilities.invokeLater(() -> fail(e));
+    }
+  }
+
+  private int[] capturePositions() {
+    int[] positions = new int[nodes.size() * 2];
+    for (int index = 0; index < nodes.size(); index++) {
+      Node node = working.getNode(nodes.get(index).getId());
+      positions[index * 2] = node.getX();
+      positions[index * 2 + 1] = node.getY();
+    }
+    return positions;
+  }
+
+  private void applyFrame() {
+    int[] positions = pendingFrame.getAndSet(null);
+    if (positions != null && !done && !cancelled) {
+      move(positions);
+      framesApplied = true;
+    }
+  }
+
+  private void finish(int[] positions) {
+    if (cancelled) {
+      cancelled();
+      return;
+    }
+    done = true;
+    Graph graph = graphPane.getGraph();
+    MoveNodeAction action = new MoveNodeAction();
+    for (int index = 0; index < nodes.size(); index++) {
+      Node node = nodes.get(index);
+      if (graph.getNode(node.getId()) == node) {
+        action.setMoved(node, oldPositions[index * 2], oldPositions[index * 2 + 1], positions[index * 2],
+            positions[index * 2 + 1]);
+      }
+    }
+    move(positions);
+    graphPane.getHistory().add(action);
+    this.progress = 1d;
+    if (listener != null) {
+      listener.layoutProgress(this, 1d);
+      listener.layoutFinished(this);
+    }
+    result.complete(action);
+  }
+
+  private void cancelled() {
+    restore();
+    if (listener != null) {
+      listener.layoutCancelled(this);
+    }
+    result.cancel(false);
+  }
+
+  private void fail(Throwable error) {
+    restore();
+    if (listener != null) {
+      listener.layoutFailed(this, error);
+    }
+    result.completeExceptionally(error);
+  }
+
+  private void restore() {
+    done = true;
+    if (framesApplied) {
+      move(oldPositions);
+    }
+  }
+
+  private void move(int[] positions) {
+    Graph graph = graphPane.getGraph();
+    for (int index = 0; index < nodes.size(); index++) {
+      Node node = nodes.get(index);
+      if (graph.getNode(node.getId()) == node) {
+        node.setX(positions[index * 2]);
+        node.setY(positions[index * 2 + 1]);
+      }
+    }
+    graphPane.resetBuffer();
+    graphPane.repaint();
+  }
+
+  private void postProgress() {
+    if (listener != null && !progressPosted.getAndSet(true)) {
+      SwingUtilities.invokeLater(() -> {
+        progressPosted.set(false);
+        if (!done) {
+          listener.layoutProgress(this, progress);
+        }
+      });
+    }
+  }
+
+  private class Monitor implements LayoutMonitor {
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public void progress(double fraction) {
+      progress = Math.max(0d, Math.min(1d, fraction));
+      postProgress();
+    }
+
+    @Override
+    public boolean isFrameDue() {
+      return frameInterval > 0 && pendingFrame.get() == null
+          && System.nanoTime() - lastFrame >= TimeUnit.MILLISECONDS.toNanos(frameInterval);
+    }
+
+    @Override
+    public void frame() {
+      lastFrame = System.nanoTime();
+      if (pendingFrame.getAndSet(capturePositions()) == null) {
+        SwingUtilities.invokeLater(LayoutTask.this::applyFrame);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,429 @@
+package org.kharon.layout;
+
+import java.awt.FontMetrics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+
+import org.kharon.Graph;
+import org.kharon.Node;
+
+/**
+ * Multilevel force directed layout for large graphs. The graph is coarsened
+ * into a hierarchy of smaller graphs, each one matching the bodies of the
+ * previous one along their heaviest edges and collapsing whatever is left
+ * unmatched into a neighbour. The coarsest graph is laid out from the
+ * centroids of the nodes, then every finer level starts from the positions of
+ * the level above and is only refined by a few iterations of the
+ * {@link ForceDirectedLayout} it was given, with an edge length that shrinks
+ * as the bodies get lighter.
+ */
+public class MultilevelLayout extends AbstractHistoryEnabledLayout {
+
+  public static final int DEFAULT_COARSEST_SIZE = 64;
+  public static final int DEFAULT_REFINEMENT_ITERATIONS = 40;
+
+  private static final int PARALLEL_THRESHOLD = 1024;
+  /**
+   * Coarsening stops when a level keeps more than this fraction of the bodies
+   * of the previous one.
+   */
+  private static final double MIN_REDUCTION = 0.9d;
+
+  private ForceDirectedLayout forceLayout = new ForceDirectedLayout();
+  private int coarsestSize = DEFAULT_COARSEST_SIZE;
+  private int refinementIterations = DEFAULT_REFINEMENT_ITERATIONS;
+
+  public MultilevelLayout() {
+    super();
+  }
+
+  public MultilevelLayout(ForceDirectedLayout forceLayout) {
+    super();
+    this.forceLayout = forceLayout;
+  }
+
+  @Override
+  protected void performLayout(Graph graph, LayoutAction action, FontMetrics fontMetrics) {
+    List<Node> nodes = new ArrayList<>(graph.getNodes());
+    if (nodes.isEmpty()) {
+      return;
+    }
+    Rectangle boundingBox = graph.getBoundingBox();
+
+    List<Level> levels = coarsen(LayoutGraph.of(graph, nodes));
+    Level coarsest = levels.get(levels.size() - 1);
+    double[][] positions = centroids(nodes, levels);
+
+    // the coarsest level gets as much time as all the refinements together
+    double progressStep = 1d / (2 * (levels.size() - 1) + 1);
+    double progress = 0;
+    double[] x = positions[0];
+    double[] y = positions[1];
+    for (int l = levels.size() - 1; l >= 0 && !action.isCancelled(); l--) {
+      Level level = levels.get(l);
+      // heavier bodies take the area of all the nodes they stand for
+      double edgeLength = forceLayout.getEdgeLength() * Math.sqrt((double) nodes.size() / level.graph.size);
+      if (level != coarsest) {
+        double[][] interpolated = interpolate(levels.get(l + 1), level, x, y, edgeLength / 10);
+        x = interpolated[0];
+        y = interpolated[1];
+      }
+      double[] levelX = x;
+      double[] levelY = y;
+      int depth = l;
+      double span = level == coarsest ? progressStep * levels.size() : progressStep;
+      int iterations = level == coarsest ? forceLayout.getIterations() : refinementIterations;
+      forceLayout.simulate(level.graph, levelX, levelY, edgeLength, iterations, action, progress, progress + span,
+          () -> place(nodes, levels, depth, levelX, levelY, boundingBox, action));
+      progress += span;
+    }
+    if (!action.isCancelled()) {
+      ForceDirectedLayout.place(nodes, x, y, boundingBox, action);
+    }
+  }
+
+  /**
+   * The hierarchy of graphs, from the graph of the nodes down to the first
+   * level small enough or that could not be reduced any further.
+   */
+  private List<Level> coarsen(LayoutGraph graph) {
+    List<Level> levels = new ArrayList<>();
+    levels.add(new Level(graph, null));
+    Random random = new Random(forceLayout.getSeed());
+    while (graph.size > coarsestSize) {
+      int[] parents = new int[graph.size];
+      int coarseSize = match(graph, parents, random);
+      if (coarseSize > graph.size * MIN_REDUCTION) {
+        break;
+      }
+      graph = contract(graph, parents, coarseSize);
+      levels.add(new Level(graph, parents));
+    }
+    return levels;
+  }
+
+  /**
+   * Heavy edge matching: visiting the bodies in random order, every unmatched
+   * body is paired with the unmatched neighbour it shares the heaviest edge
+   * with, the lighter one on ties. Bodies whose neighbours were all taken join
+   * the group of their heaviest neighbour instead, so stars collapse too.
+   *
+   * @param parents filled with the body of the coarse graph each body goes to.
+   * @return the number of bodies of the coarse graph.
+   */
+  private static int match(LayoutGraph graph, int[] parents, Random random) {
+    int size = graph.size;
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    for (int i = size - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+
+    Arrays.fill(parents, -1);
+    int coarseSize = 0;
+    for (int o = 0; o < size; o++) {
+      int i = order[o];
+      if (parents[i] != -1) {
+        continue;
+      }
+      int best = -1;
+      for (int a = graph.start[i]; a < graph.start[i + 1]; a++) {
+        int j = graph.adjacency[a];
+        if (parents[j] == -1 && j != i && (best == -1 || isHeavier(graph, a, j, best))) {
+          best = a;
+        }
+      }
+      parents[i] = coarseSize;
+      if (best != -1) {
+        parents[graph.adjacency[best]] = coarseSize;
+      }
+      coarseSize++;
+    }
+
+    // singletons with neighbours join the heaviest one
+    int[] members = new int[coarseSize];
+    for (int i = 0; i < size; i++) {
+      members[parents[i]]++;
+    }
+    for (int i = 0; i < size; i++) {
+      if (members[parents[i]] == 1 && graph.start[i] < graph.start[i + 1]) {
+        int best = graph.start[i];
+        for (int a = best + 1; a < graph.start[i + 1]; a++) {
+          if (isHeavier(graph, a, graph.adjacency[a], best)) {
+            best = a;
+          }
+        }
+        int parent = parents[graph.adjacency[best]];
+        if (members[parent] > 1) {
+          members[parents[i]] = 0;
+          parents[i] = parent;
+          members[parent]++;
+        }
+      }
+    }
+
+    // renumber the groups left
+    int[] joined = new int[coarseSize];
+    int count = 0;
+    for (int c = 0; c < coarseSize; c++) {
+      joined[c] = members[c] > 0 ? count++ : -1;
+    }
+    for (int i = 0; i < size; i++) {
+      parents[i] = joined[parents[i]];
+    }
+    return count;
+  }
+
+  private static boolean isHeavier(LayoutGraph graph, int a, int j, int best) {
+    int weight = graph.edgeWeights[a];
+    int bestWeight = graph.edgeWeights[best];
+    return weight > bestWeight || weight == bestWeight && graph.weights[j] < graph.weights[graph.adjacency[best]];
+  }
+
+  /**
+   * The graph of the groups, joined by the sum of the edges between their
+   * members. Every coarse body gathers, sorts and merges the edges of its
+   * members on its own, so bodies are contracted in parallel.
+   */
+  private LayoutGraph contract(LayoutGraph graph, int[] parents, int coarseSize) {
+    int[] memberStart = new int[coarseSize + 1];
+    for (int i = 0; i < graph.size; i++) {
+      memberStart[parents[i] + 1]++;
+    }
+    for (int c = 0; c < coarseSize; c++) {
+      memberStart[c + 1] += memberStart[c];
+    }
+    int[] members = new int[graph.size];
+    int[] fill = Arrays.copyOf(memberStart, coarseSize);
+    int[] weights = new int[coarseSize];
+    // room for all the edges of the members, before merging
+    int[] bound = new int[coarseSize + 1];
+    for (int i = 0; i < graph.size; i++) {
+      int c = parents[i];
+      members[fill[c]++] = i;
+      weights[c] += graph.weights[i];
+      bound[c + 1] += graph.start[i + 1] - graph.start[i];
+    }
+    for (int c = 0; c < coarseSize; c++) {
+      bound[c + 1] += bound[c];
+    }
+
+    long[] merged = new long[bound[coarseSize]];
+    int[] degrees = new int[coarseSize];
+    forceLayout.getPool().invoke(new ContractTask(graph, parents, members, memberStart, bound, merged, degrees, 0,
+        coarseSize));
+
+    int[] start = new int[coarseSize + 1];
+    for (int c = 0; c < coarseSize; c++) {
+      start[c + 1] = start[c] + degrees[c];
+    }
+    int[] adjacency = new int[start[coarseSize]];
+    int[] edgeWeights = new int[start[coarseSize]];
+    for (int c = 0; c < coarseSize; c++) {
+      for (int e = 0; e < degrees[c]; e++) {
+        long edge = merged[bound[c] + e];
+        adjacency[start[c] + e] = (int) (edge >>> 32);
+        edgeWeights[start[c] + e] = (int) edge;
+      }
+    }
+    return new LayoutGraph(coarseSize, start, adjacency, edgeWeights, weights);
+  }
+
+  /**
+   * The centers of the nodes averaged into every body of the coarsest level,
+   * so a graph already laid out keeps its overall shape.
+   */
+  private static double[][] centroids(List<Node> nodes, List<Level> levels) {
+    double[] x = new double[nodes.size()];
+    double[] y = new double[nodes.size()];
+    for (int i = 0; i < nodes.size(); i++) {
+      Node node = nodes.get(i);
+      x[i] = node.getX() + node.getSize() / 2;
+      y[i] = node.getY() + node.getSize() / 2;
+    }
+    for (int l = 1; l < levels.size(); l++) {
+      Level level = levels.get(l);
+      LayoutGraph fine = levels.get(l - 1).graph;
+      double[] coarseX = new double[level.graph.size];
+      double[] coarseY = new double[level.graph.size];
+      for (int i = 0; i < fine.size; i++) {
+        int parent = level.parents[i];
+        coarseX[parent] += x[i] * fine.weights[i] / level.graph.weights[parent];
+        coarseY[parent] += y[i] * fine.weights[i] / level.graph.weights[parent];
+      }
+      x = coarseX;
+      y = coarseY;
+    }
+    return new double[][] { x, y };
+  }
+
+  /**
+   * The bodies of the finer level placed at their group, spread around it on
+   * a small circle so the forces can tell them apart.
+   */
+  private static double[][] interpolate(Level coarse, Level fine, double[] coarseX, double[] coarseY,
+      double radius) {
+    int size = fine.graph.size;
+    double[] x = new double[size];
+    double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      int parent = coarse.parents[i];
+      double angle = i * 2.399963229728653;
+      x[i] = coarseX[parent] + Math.cos(angle) * radius;
+      y[i] = coarseY[parent] + Math.sin(angle) * radius;
+    }
+    return new double[][] { x, y };
+  }
+
+  /**
+   * Moves the nodes to the body of the level they belong to.
+   */
+  private static void place(List<Node> nodes, List<Level> levels, int depth, double[] x, double[] y,
+      Rectangle boundingBox, LayoutAction action) {
+    double[] nodeX = new double[nodes.size()];
+    double[] nodeY = new double[nodes.size()];
+    for (int i = 0; i < nodes.size(); i++) {
+      int body = i;
+      for (int l = 1; l <= depth; l++) {
+        body = levels.get(l).parents[body];
+      }
+      nodeX[i] = x[body];
+      nodeY[i] = y[body];
+    }
+    ForceDirectedLayout.place(nodes, nodeX, nodeY, boundingBox, action);
+  }
+
+  public ForceDirectedLayout getForceLayout() {
+    return forceLayout;
+  }
+
+  /**
+   * Layout refining every level, whose iterations are spent on the coarsest
+   * level and whose edge length is the one of the nodes.
+   */
+  public void setForceLayout(ForceDirectedLayout forceLayout) {
+    this.forceLayout = forceLayout;
+  }
+
+  /**
+   * Coarsening stops once a level has at most this many bodies.
+   */
+  public int getCoarsestSize() {
+    return coarsestSize;
+  }
+
+  public void setCoarsestSize(int coarsestSize) {
+    this.coarsestSize = coarsestSize;
+  }
+
+  /**
+   * Iterations refining every level finer than the coarsest.
+   */
+  public int getRefinementIterations() {
+    return refinementIterations;
+  }
+
+  public void setRefinementIterations(int refinementIterations) {
+    this.refinementIterations = refinementIterations;
+  }
+
+  private static class Level {
+
+    private final LayoutGraph graph;
+    // body of this level every body of the finer level belongs to
+    private final int[] parents;
+
+    Level(LayoutGraph graph, int[] parents) {
+      this.graph = graph;
+      this.parents = parents;
+    }
+
+  }
+
+  /**
+   * Merges the edges of the members of a range of coarse bodies. Edges are
+   * packed in longs, the coarse neighbour in the high half and the weight in
+   * the low one, so sorting them brings the edges to the same neighbour
+   * together.
+   */
+  private static class ContractTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LayoutGraph graph;
+    private final int[] parents;
+    private final int[] members;
+    private final int[] memberStart;
+    private final int[] bound;
+    private final long[] merged;
+    private final int[] degrees;
+    private final int from;
+    private final int to;
+
+    ContractTask(LayoutGraph graph, int[] parents, int[] members, int[] memberStart, int[] bound, long[] merged,
+        int[] degrees, int from, int to) {
+      this.graph = graph;
+      this.parents = parents;
+      this.members = members;
+      this.memberStart = memberStart;
+      this.bound = bound;
+      this.merged = merged;
+      this.degrees = degrees;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (bound[to] - bound[from] <= PARALLEL_THRESHOLD || to - from == 1) {
+        for (int c = from; c < to; c++) {
+          contract(c);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        ContractTask left = new ContractTask(graph, parents, members, memberStart, bound, merged, degrees, from,
+            middle);
+        left.fork();
+        new ContractTask(graph, parents, members, memberStart, bound, merged, degrees, middle, to).compute();
+        left.join();
+      }
+    }
+
+    private void contract(int c) {
+      int end = bound[c];
+      for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+        int i = members[m];
+        for (int a = graph.start[i]; a < graph.start[i + 1]; a++) {
+          int neighbour = parents[graph.adjacency[a]];
+          if (neighbour != c) {
+            merged[end++] = (long) neighbour << 32 | graph.edgeWeights[a];
+          }
+        }
+      }
+      Arrays.sort(merged, bound[c], end);
+
+      int degree = 0;
+      for (int e = bound[c]; e < end; e++) {
+        long edge = merged[e];
+        int last = bound[c] + degree - 1;
+        if (degree > 0 && merged[last] >>> 32 == edge >>> 32) {
+          merged[last] += (int) edge;
+        } else {
+          merged[bound[c] + degree++] = edge;
+        }
+      }
+      degrees[c] = degree;
+    }
+
+  }
+
+}
@@ -69,10 +69,15 @@ public class GraphVizLayout extends AbstractHistoryEnabledLayout {
       int left = (int) boundingBox.getMinX();
       int middle = (int) (boundingBox.getMinY() + boundingBox.height / 2);
 
-      for (Graph subGraph : subGraphs) {
+      for (int index = 0; index < subGraphs.size() && !action.isCancelled(); index++) {
+        Graph subGraph = subGraphs.get(index);
         writer.write(subGraph);
         boundingBox = reader.read(process.getInputStream(), subGraph, left, middle, action);
         left += boundingBox.width + DEFAULT_SUB_GRAPH_GAP;
+        action.progress((index + 1d) / subGraphs.size());
+        if (action.isFrameDue()) {
+          action.frame();
+        }
       }
 
       process.destroy();
@@ -4,7 +4,6 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 
-import org.kharon.Graph;
 import org.kharon.GraphShape;
 import org.kharon.Node;
 
@@ -17,8 +16,7 @@ public abstract class BaseNodeRenderer implements NodeRenderer {
 
     Color color = node.getColor();
     if (color == null) {
-      Graph graph = renderContext.getGraph();
-      color = graph.getSettings().getDefaultNodeColor();
+      color = renderContext.getSettings().getDefaultNodeColor();
     }
     graphShape.setFillPaint(color);
 
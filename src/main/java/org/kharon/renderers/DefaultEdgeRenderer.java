@@ -6,14 +6,12 @@ import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 import java.awt.Shape;
-import java.awt.font.GlyphVector;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 
 import org.kharon.Edge;
-import org.kharon.Graph;
 import org.kharon.GraphShape;
+import org.kharon.LevelOfDetail;
 import org.kharon.Node;
 import org.kharon.OverlappedEdges;
 
@@ -21,6 +19,8 @@ public class DefaultEdgeRenderer implements EdgeRenderer {
 
   private boolean renderLabels = true;
 
+  private GlyphOutlineCache outlineCache = GlyphOutlineCache.getShared();
+
   public DefaultEdgeRenderer() {
     this(true);
   }
@@ -30,13 +30,21 @@ public class DefaultEdgeRenderer implements EdgeRenderer {
     this.renderLabels = renderLabels;
   }
 
+  public GlyphOutlineCache getOutlineCache() {
+    return outlineCache;
+  }
+
+  public void setOutlineCache(GlyphOutlineCache outlineCache) {
+    this.outlineCache = outlineCache;
+  }
+
   @Override
   public GraphShape render(Graphics g, Edge edge, RenderContext renderContext) {
     // TODO Create a EdgeHolder to hold a direct reference to the node.
     String sourceId = edge.getSource();
     String targetId = edge.getTarget();
-    Node source = renderContext.getGraph().getNode(sourceId);
-    Node target = renderContext.getGraph().getNode(targetId);
+    Node source = renderContext.getNode(sourceId);
+    Node target = renderContext.getNode(targetId);
 
     int offset1 = (int) (source.getSize() / 2);
 
@@ -68,6 +76,10 @@ public class DefaultEdgeRenderer implements EdgeRenderer {
     shape.lineTo(x1 + ticknessOffsetX, y1 + ticknessOffsetY);
     shape.closePath();
 
+    if (renderContext.getLevelOfDetail() != LevelOfDetail.FULL) {
+      return colored(new GraphShape(shape), edge, renderContext);
+    }
+
     Font font = g.getFont();
     FontMetrics fontMetrics = g.getFontMetrics(font);
 
@@ -75,6 +87,8 @@ public class DefaultEdgeRenderer implements EdgeRenderer {
     double distance = Point2D.distance(x1, y1, x2, y2);
 
     int labelWidth = label != null ? fontMetrics.stringWidth(label) : 0;
+    Shape labelShape = null;
+    GraphShape.Text labelText = null;
     if (renderLabels && label != null && !label.trim().isEmpty() && distance > labelWidth) {
 
       if (slope < 0d) {
@@ -101,14 +115,9 @@ public class DefaultEdgeRenderer implements EdgeRenderer {
       int labelX = (int) (x1 + incX);
       int labelY = (int) (y1 + incY);
 
-      GlyphVector vector = font.createGlyphVector(fontMetrics.getFontRenderContext(), label);
-      for (int index = 0; index < vector.getNumGlyphs(); index++) {
-        vector.setGlyphTransform(index, AffineTransform.getRotateInstance(labelSlope));
-      }
-
-      Shape labelShape = vector.getOutline(labelX, labelY);
-
-      shape.append(labelShape, false);
+      labelShape = outlineCache.getOutline(font, fontMetrics.getFontRenderContext(), label, labelSlope, labelX,
+          labelY);
+      labelText = new GraphShape.Text(label, font, labelX, labelY, labelSlope);
     }
     
     if(!isOverlapped || !((OverlappedEdges)edge).isDoubleDirection()) {
@@ -144,13 +153,21 @@ public class DefaultEdgeRenderer implements EdgeRenderer {
         shape.append(arrow, false);
 
     }
-        
-    GraphShape graphShape = new GraphShape(shape);
 
+    if (labelShape == null) {
+      return colored(new GraphShape(shape), edge, renderContext);
+    }
+    GeneralPath shapeWithLabel = new GeneralPath(shape);
+    shapeWithLabel.append(labelShape, false);
+    GraphShape graphShape = new GraphShape(shapeWithLabel);
+    graphShape.addText(labelText, shape);
+    return colored(graphShape, edge, renderContext);
+  }
+
+  private static GraphShape colored(GraphShape graphShape, Edge edge, RenderContext renderContext) {
     Color color = edge.getColor();
     if (color == null) {
-      Graph graph = renderContext.getGraph();
-      color = graph.getSettings().getDefaultEdgeColor();
+      color = renderContext.getSettings().getDefaultEdgeColor();
     }
     graphShape.setStrokePaint(color);
     graphShape.setFillPaint(color);
@@ -5,16 +5,17 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Shape;
-import java.awt.font.GlyphVector;
 
-import org.kharon.Graph;
 import org.kharon.GraphShape;
+import org.kharon.LevelOfDetail;
 import org.kharon.Node;
 
 public class DefaultLabelRenderer implements LabelRenderer {
 
   private int maxLength = 30;
 
+  private GlyphOutlineCache outlineCache = GlyphOutlineCache.getShared();
+
   public DefaultLabelRenderer(int maxLength) {
     super();
     this.maxLength = maxLength;
@@ -24,11 +25,19 @@ public class DefaultLabelRenderer implements LabelRenderer {
     super();
   }
 
+  public GlyphOutlineCache getOutlineCache() {
+    return outlineCache;
+  }
+
+  public void setOutlineCache(GlyphOutlineCache outlineCache) {
+    this.outlineCache = outlineCache;
+  }
+
   @Override
   public GraphShape render(Graphics g, Node node, RenderContext renderContext) {
     String label = node.getLabel();
 
-    if (label != null) {
+    if (label != null && renderContext.getLevelOfDetail() == LevelOfDetail.FULL) {
       label = node.getShortenedLabel(maxLength);
       Font font = g.getFont();
       FontMetrics fontMetrics = g.getFontMetrics(font);
@@ -42,14 +51,13 @@ public class DefaultLabelRenderer implements LabelRenderer {
       int labelX = nodeX + (size / 2) - (labelWidth / 2);
       int labelY = nodeY + (size / 2) + labelHeight + (size / 2);
 
-      GlyphVector vector = font.createGlyphVector(fontMetrics.getFontRenderContext(), label);
-      Shape shape = vector.getOutline(labelX, labelY);
+      Shape shape = outlineCache.getOutline(font, fontMetrics.getFontRenderContext(), label, 0d, labelX, labelY);
       GraphShape graphShape = new GraphShape(shape);
+      graphShape.addText(new GraphShape.Text(label, font, labelX, labelY, 0d), null);
 
       Color color = node.getColor();
       if (color == null) {
-        Graph graph = renderContext.getGraph();
-        color = graph.getSettings().getDefaultLabelColor();
+        color = renderContext.getSettings().getDefaultLabelColor();
       }
       graphShape.setFillPaint(color);
 
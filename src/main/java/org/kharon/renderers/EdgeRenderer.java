@@ -5,6 +5,10 @@ import java.awt.Graphics;
 import org.kharon.Edge;
 import org.kharon.GraphShape;
 
+/**
+ * Builds the stage space shape of an edge. Same thread safety contract as
+ * {@link NodeRenderer}.
+ */
 public interface EdgeRenderer {
 
   GraphShape render(Graphics g, Edge edge, RenderContext renderContext);
@@ -0,0 +1,147 @@
+package org.kharon.renderers;
+
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Outlines of laid out strings, keyed by font, render context, text and the
+ * rotation applied to every glyph. Outlines are kept at the origin and
+ * translated to where they are drawn. The least recently used outlines are
+ * evicted once the cache holds more than its maximum size.
+ */
+public class GlyphOutlineCache {
+
+  public static final int DEFAULT_MAX_SIZE = 8192;
+
+  private static final GlyphOutlineCache SHARED = new GlyphOutlineCache(DEFAULT_MAX_SIZE);
+
+  private final LinkedHashMap<OutlineKey, Shape> outlines = new LinkedHashMap<OutlineKey, Shape>(256, 0.75f, true) {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<OutlineKey, Shape> eldest) {
+      return size() > maxSize;
+    }
+  };
+
+  private int maxSize;
+
+  private long hitCount;
+  private long missCount;
+
+  public GlyphOutlineCache(int maxSize) {
+    super();
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Cache used by the default renderers.
+   */
+  public static GlyphOutlineCache getShared() {
+    return SHARED;
+  }
+
+  /**
+   * Outline of the text with its baseline starting at {@code (x, y)}, each glyph
+   * rotated by {@code rotation} radians around its own origin.
+   */
+  public Shape getOutline(Font font, FontRenderContext fontRenderContext, String text, double rotation, float x,
+      float y) {
+    Shape outline = getOutline(font, fontRenderContext, text, rotation);
+    return AffineTransform.getTranslateInstance(x, y).createTransformedShape(outline);
+  }
+
+  /**
+   * Outline of the text with its baseline starting at the origin. The returned
+   * shape is shared and must not be modified.
+   */
+  public synchronized Shape getOutline(Font font, FontRenderContext fontRenderContext, String text, double rotation) {
+    OutlineKey key = new OutlineKey(font, fontRenderContext, text, rotation);
+    Shape outline = this.outlines.get(key);
+    if (outline != null) {
+      this.hitCount++;
+      return outline;
+    }
+
+    GlyphVector vector = font.createGlyphVector(fontRenderContext, text);
+    if (rotation != 0d) {
+      AffineTransform rotate = AffineTransform.getRotateInstance(rotation);
+      for (int index = 0; index < vector.getNumGlyphs(); index++) {
+        vector.setGlyphTransform(index, rotate);
+      }
+    }
+    outline = vector.getOutline();
+    this.outlines.put(key, outline);
+    this.missCount++;
+    return outline;
+  }
+
+  public synchronized int getMaxSize() {
+    return maxSize;
+  }
+
+  public synchronized void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    while (this.outlines.size() > maxSize) {
+      this.outlines.remove(this.outlines.keySet().iterator().next());
+    }
+  }
+
+  public synchronized int size() {
+    return this.outlines.size();
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized void clear() {
+    this.outlines.clear();
+  }
+
+  private static final class OutlineKey {
+
+    private final Font font;
+    private final FontRenderContext fontRenderContext;
+    private final String text;
+    private final double rotation;
+    private final int hash;
+
+    OutlineKey(Font font, FontRenderContext fontRenderContext, String text, double rotation) {
+      this.font = font;
+      this.fontRenderContext = fontRenderContext;
+      this.text = text;
+      this.rotation = rotation;
+      this.hash = Objects.hash(font, fontRenderContext, text, rotation);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (!(obj instanceof OutlineKey))
+        return false;
+      OutlineKey other = (OutlineKey) obj;
+      return hash == other.hash && Double.compare(rotation, other.rotation) == 0 && text.equals(other.text)
+          && font.equals(other.font) && fontRenderContext.equals(other.fontRenderContext);
+    }
+
+  }
+
+}
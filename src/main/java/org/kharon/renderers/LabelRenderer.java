@@ -5,6 +5,10 @@ import java.awt.Graphics;
 import org.kharon.GraphShape;
 import org.kharon.Node;
 
+/**
+ * Builds the stage space shape of the label of a node, or null for no label.
+ * Same thread safety contract as {@link NodeRenderer}.
+ */
 public interface LabelRenderer {
 
   GraphShape render(Graphics g, Node node, RenderContext renderContext);
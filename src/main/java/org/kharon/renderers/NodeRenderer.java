@@ -5,6 +5,13 @@ import java.awt.Graphics2D;
 import org.kharon.GraphShape;
 import org.kharon.Node;
 
+/**
+ * Builds the stage space shape of a node. With asynchronous rendering on, a
+ * renderer is called from the event dispatch thread and the frame renderer
+ * thread at the same time, so implementations must be thread safe: the
+ * default ones keep no mutable state. The returned shape may be cached and
+ * reused across paints, so it must not be modified afterwards.
+ */
 public interface NodeRenderer {
 
   GraphShape render(Graphics2D g, Node node, RenderContext renderContext);
@@ -2,11 +2,17 @@ package org.kharon.renderers;
 
 import org.kharon.Graph;
 import org.kharon.GraphPane;
+import org.kharon.GraphSettings;
+import org.kharon.GraphSnapshot;
+import org.kharon.LevelOfDetail;
+import org.kharon.Node;
 
 public class RenderContext {
 
   private GraphPane graphPanel;
   private Graph graph;
+  private GraphSnapshot snapshot;
+  private LevelOfDetail levelOfDetail = LevelOfDetail.FULL;
 
   public RenderContext(GraphPane graphPanel, Graph graph) {
     super();
@@ -14,12 +20,52 @@ public class RenderContext {
     this.graph = graph;
   }
 
+  /**
+   * Context for rendering a snapshot of the graph, possibly away from the
+   * event dispatch thread.
+   */
+  public RenderContext(GraphPane graphPanel, Graph graph, GraphSnapshot snapshot) {
+    this(graphPanel, graph);
+    this.snapshot = snapshot;
+  }
+
   public Graph getGraph() {
     return graph;
   }
 
+  /**
+   * Snapshot being rendered, or null when rendering the live graph.
+   */
+  public GraphSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Node with the given id in the snapshot being rendered, if any, or in the
+   * graph otherwise.
+   */
+  public Node getNode(String id) {
+    return snapshot != null ? snapshot.getNode(id) : graph.getNode(id);
+  }
+
+  public GraphSettings getSettings() {
+    return snapshot != null ? snapshot.getSettings() : graph.getSettings();
+  }
+
   public GraphPane getGraphPanel() {
     return graphPanel;
   }
 
+  /**
+   * Renderers may leave out details, like labels, below
+   * {@link LevelOfDetail#FULL}.
+   */
+  public LevelOfDetail getLevelOfDetail() {
+    return levelOfDetail;
+  }
+
+  public void setLevelOfDetail(LevelOfDetail levelOfDetail) {
+    this.levelOfDetail = levelOfDetail;
+  }
+
 }
@@ -0,0 +1,105 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class AdjacencyStoreTest {
+
+  @Test
+  public void testNeighboursThroughGraph() {
+    Graph graph = new Graph();
+
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    Node node3 = new Node("3");
+    graph.addNodes(Arrays.asList(node0, node1, node2, node3));
+
+    graph.addEdges(Arrays.asList(new Edge("0", node0, node1), new Edge("1", node0, node2),
+        new Edge("2", node3, node0)));
+
+    Set<Node> neighbours = graph.getNeighbours(node0);
+    assertEquals(3, neighbours.size());
+    assertTrue(neighbours.containsAll(Arrays.asList(node1, node2, node3)));
+
+    Set<Node> outcoming = graph.getOutcomingNeighbours(node0);
+    assertEquals(2, outcoming.size());
+    assertFalse(outcoming.contains(node3));
+
+    assertEquals(3, graph.getEdges(node0).size());
+    assertEquals(1, graph.getIncomingEdges(node0).size());
+    assertEquals(2, node0.getOutcomingDegree());
+    assertEquals(1, node0.getIncomingDegree());
+  }
+
+  @Test
+  public void testRemoveNodeRemovesEdgesAndRecyclesSlots() {
+    Graph graph = new Graph();
+
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    graph.addNodes(Arrays.asList(node0, node1, node2));
+    graph.addEdges(Arrays.asList(new Edge("0", node0, node1), new Edge("1", node1, node2)));
+
+    graph.removeNode(node1);
+
+    assertEquals(2, graph.getSize());
+    assertTrue(graph.getEdges().isEmpty());
+    assertFalse(graph.containsNode("1"));
+    assertNull(graph.getNode("1"));
+    assertTrue(graph.getNeighbours(node0).isEmpty());
+    assertEquals(0, node0.getDegree());
+
+    Node node3 = new Node("3");
+    graph.addNode(node3);
+    graph.addEdge(new Edge("2", node3, node0));
+
+    assertSame(node3, graph.getNode("3"));
+    assertEquals(3, graph.getNodeIds().size());
+    assertTrue(graph.getNodeIds().contains("3"));
+    assertEquals(1, graph.getNeighbours(node0).size());
+  }
+
+  @Test
+  public void testManyIdsSurviveRemovals() {
+    AdjacencyStore store = new AdjacencyStore();
+    for (int i = 0; i < 10000; i++) {
+      store.addNode(new Node("n" + i));
+    }
+    for (int i = 0; i < 10000; i += 3) {
+      store.removeNode("n" + i);
+    }
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(i % 3 != 0, store.containsNode("n" + i));
+    }
+    assertEquals(10000 - 3334, store.getNodeCount());
+  }
+
+  @Test
+  public void testReplacedNodeKeepsTheDegrees() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    graph.addNodes(Arrays.asList(node0, node1));
+    graph.addEdges(Arrays.asList(new Edge("0", node0, node1), new Edge("1", node0, node1),
+        new Edge("2", node1, node0)));
+
+    Node replacement = new Node("0");
+    graph.addNode(replacement);
+
+    assertSame(replacement, graph.getNode("0"));
+    assertEquals(2, replacement.getOutcomingDegree());
+    assertEquals(1, replacement.getIncomingDegree());
+    assertEquals(3, graph.getEdges(replacement).size());
+  }
+
+}
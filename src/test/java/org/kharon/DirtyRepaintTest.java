@@ -0,0 +1,167 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DirtyRepaintTest {
+
+  @Test
+  public void testHoverRepaintsOnlyTheChangedArea() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 100, 100);
+    Node node1 = new Node("1", 1500, 1000);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    RecordingGraphPane graphPane = new RecordingGraphPane(graph);
+    graphPane.setSize(400, 300);
+    paint(graphPane);
+
+    Point center = toScreen(graphPane, node0);
+    graphPane.repaints.clear();
+    graphPane.mouseMoved(mouseEvent(graphPane, center));
+    assertEquals(1, graphPane.repaints.size());
+    Rectangle dirty = graphPane.repaints.get(0);
+    assertTrue(dirty.contains(center));
+    assertTrue(dirty.width < graphPane.getWidth() / 2);
+
+    // still over the same node
+    graphPane.repaints.clear();
+    graphPane.mouseMoved(mouseEvent(graphPane, new Point(center.x + 1, center.y)));
+    assertTrue(graphPane.repaints.isEmpty());
+
+    graphPane.mouseMoved(mouseEvent(graphPane, new Point(390, 10)));
+    assertEquals(1, graphPane.repaints.size());
+    assertTrue(graphPane.repaints.get(0).contains(center));
+
+    // nothing under the mouse before or after
+    graphPane.repaints.clear();
+    graphPane.mouseMoved(mouseEvent(graphPane, new Point(385, 15)));
+    assertTrue(graphPane.repaints.isEmpty());
+  }
+
+  @Test
+  public void testEdgeHoverRepaintsTheEdgeAndItsEnds() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 100, 100);
+    Node node1 = new Node("1", 400, 100);
+    Node node2 = new Node("2", 1500, 1000);
+    graph.addNodes(Arrays.asList(node0, node1, node2));
+    graph.addEdge(new Edge("e", node0, node1));
+    RecordingGraphPane graphPane = new RecordingGraphPane(graph);
+    graphPane.setSize(400, 300);
+    paint(graphPane);
+
+    Point source = toScreen(graphPane, node0);
+    Point target = toScreen(graphPane, node1);
+    Point middle = new Point((source.x + target.x) / 2, (source.y + target.y) / 2);
+    graphPane.repaints.clear();
+    graphPane.mouseMoved(mouseEvent(graphPane, middle));
+    assertEquals(1, graphPane.repaints.size());
+    Rectangle dirty = graphPane.repaints.get(0);
+    assertTrue(dirty.contains(source));
+    assertTrue(dirty.contains(target));
+    assertTrue(dirty.contains(middle));
+    assertFalse(dirty.contains(toScreen(graphPane, node2)));
+    assertTrue(dirty.height < graphPane.getHeight() / 2);
+  }
+
+  @Test
+  public void testEdgeSelectionRepaintsOnlyTheChangedEdges() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 100, 100);
+    Node node1 = new Node("1", 200, 100);
+    Node node2 = new Node("2", 1500, 1000);
+    Node node3 = new Node("3", 1600, 1000);
+    graph.addNodes(Arrays.asList(node0, node1, node2, node3));
+    graph.addEdge(new Edge("e0", node0, node1));
+    graph.addEdge(new Edge("e1", node2, node3));
+    RecordingGraphPane graphPane = new RecordingGraphPane(graph);
+    graphPane.setSize(400, 300);
+    paint(graphPane);
+
+    graphPane.repaints.clear();
+    graphPane.selectEdge("e0", true);
+    assertEquals(1, graphPane.repaints.size());
+    Rectangle dirty = graphPane.repaints.get(0);
+    assertTrue(dirty.contains(toScreen(graphPane, node0)));
+    assertTrue(dirty.contains(toScreen(graphPane, node1)));
+    assertTrue(dirty.width < graphPane.getWidth() / 2);
+
+    graphPane.repaints.clear();
+    graphPane.selectEdge("e0", true);
+    assertTrue(graphPane.repaints.isEmpty());
+
+    graphPane.deselectEdge("e0");
+    assertEquals(1, graphPane.repaints.size());
+    assertTrue(graphPane.repaints.get(0).contains(toScreen(graphPane, node0)));
+    assertFalse(graphPane.repaints.get(0).contains(toScreen(graphPane, node2)));
+  }
+
+  @Test
+  public void testSelectionRepaintsOnlyTheChangedNodes() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 100, 100);
+    Node node1 = new Node("1", 1500, 1000);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    RecordingGraphPane graphPane = new RecordingGraphPane(graph);
+    graphPane.setSize(400, 300);
+    paint(graphPane);
+
+    graphPane.repaints.clear();
+    graphPane.selectNode("0", true);
+    assertEquals(1, graphPane.repaints.size());
+    assertTrue(graphPane.repaints.get(0).contains(toScreen(graphPane, node0)));
+    assertTrue(graphPane.repaints.get(0).width < graphPane.getWidth() / 2);
+
+    graphPane.repaints.clear();
+    graphPane.selectNode("0", true);
+    assertTrue(graphPane.repaints.isEmpty());
+
+    graphPane.deselectNode("1");
+    assertTrue(graphPane.repaints.isEmpty());
+  }
+
+  private static Point toScreen(GraphPane graphPane, Node node) {
+    Point2D point = graphPane.transform.transform(
+        new Point2D.Double(node.getX() + node.getSize() / 2d, node.getY() + node.getSize() / 2d), null);
+    return new Point((int) point.getX(), (int) point.getY());
+  }
+
+  private static MouseEvent mouseEvent(GraphPane graphPane, Point point) {
+    return new MouseEvent(graphPane, MouseEvent.MOUSE_MOVED, System.currentTimeMillis(), 0, point.x, point.y, 0,
+        false);
+  }
+
+  private static class RecordingGraphPane extends GraphPane {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Rectangle> repaints = new ArrayList<>();
+
+    RecordingGraphPane(Graph graph) {
+      super(graph);
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+      if (repaints != null) {
+        repaints.add(new Rectangle(x, y, width, height));
+      }
+    }
+
+  }
+
+}
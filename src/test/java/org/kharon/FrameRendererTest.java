@@ -0,0 +1,89 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paintOnEventThread;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+public class FrameRendererTest {
+
+  @Test
+  public void testFramesAreRenderedInTheBackground() throws Exception {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 100, 100);
+    Node node1 = new Node("1", 300, 200);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addEdge(new Edge("0", node0, node1));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+    graphPane.setAsyncRendering(true);
+
+    paintOnEventThread(graphPane);
+    FrameRenderer frameRenderer = graphPane.getFrameRenderer();
+    awaitFrames(frameRenderer, 1);
+
+    BufferedImage image = paintOnEventThread(graphPane);
+    assertEquals(Color.BLUE.getRGB(), image.getRGB(110, 110));
+
+    graphPane.setAsyncRendering(false);
+  }
+
+  @Test
+  public void testStaleFramesAreDropped() throws Exception {
+    Graph graph = TestGraphs.grid(2000, 50, 30, 30);
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+    graphPane.setAsyncRendering(true);
+
+    int requests = 20;
+    for (int i = 0; i < requests; i++) {
+      graphPane.translateStage(5, 5);
+      paintOnEventThread(graphPane);
+    }
+    FrameRenderer frameRenderer = graphPane.getFrameRenderer();
+    frameRenderer.awaitRequests();
+    assertEquals(requests, frameRenderer.getRenderedCount() + frameRenderer.getDroppedCount());
+    assertTrue(frameRenderer.getRenderedCount() >= 1);
+
+    // nothing changed, so no frame is requested
+    paintOnEventThread(graphPane);
+    frameRenderer.awaitRequests();
+    assertEquals(requests, frameRenderer.getRenderedCount() + frameRenderer.getDroppedCount());
+
+    graphPane.setAsyncRendering(false);
+  }
+
+  @Test
+  public void testFramesOnlyRenderWhatIsInView() throws Exception {
+    Graph graph = TestGraphs.grid(2500, 50, 100, 100);
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+    graphPane.setAsyncRendering(true);
+
+    paintOnEventThread(graphPane);
+    FrameRenderer frameRenderer = graphPane.getFrameRenderer();
+    awaitFrames(frameRenderer, 1);
+
+    // a node shape and a label shape for every node near the view
+    int shapes = frameRenderer.getShapeCache().size();
+    assertTrue("shapes " + shapes, shapes > 0 && shapes < 200);
+
+    graphPane.setAsyncRendering(false);
+  }
+
+  private static void awaitFrames(FrameRenderer frameRenderer, long count) throws Exception {
+    frameRenderer.awaitRequests();
+    assertTrue(frameRenderer.getRenderedCount() >= count);
+    // lets the frame reach the pane
+    SwingUtilities.invokeAndWait(() -> {
+    });
+  }
+
+}
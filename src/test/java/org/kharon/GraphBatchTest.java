@@ -0,0 +1,116 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.kharon.history.GraphHistory;
+
+public class GraphBatchTest {
+
+  @Test
+  public void testCommitFiresOneMergedEvent() {
+    Graph graph = new Graph();
+    RecordingListener listener = new RecordingListener();
+    graph.addListener(listener);
+
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    Edge edge0 = new Edge("0", node0, node1);
+
+    graph.beginBatch();
+    graph.addNodes(Arrays.asList(node0, node1));
+    graph.addNode(node2);
+    graph.addEdge(edge0);
+    graph.removeNode(node2);
+    assertTrue(listener.added.isEmpty());
+    assertEquals(1, graph.getNodesOverlappedEdges(graph.getNodeIds()).size());
+    graph.commit();
+
+    assertEquals(1, listener.added.size());
+    assertTrue(listener.removed.isEmpty());
+    GraphEvent event = listener.added.get(0);
+    assertNotNull(event.getBatch());
+    assertEquals(2, event.getNodes().size());
+    assertFalse(event.getNodes().contains(node2));
+    assertEquals(1, event.getEdges().size());
+  }
+
+  @Test
+  public void testNestedBatchesNotifyOnOutermostCommit() {
+    Graph graph = new Graph();
+    RecordingListener listener = new RecordingListener();
+    graph.addListener(listener);
+
+    graph.mutate(g -> {
+      g.addNode(new Node("0"));
+      g.mutate(inner -> inner.addNode(new Node("1")));
+      assertTrue(listener.added.isEmpty());
+    });
+
+    assertFalse(graph.isBatchInProgress());
+    assertEquals(1, listener.added.size());
+    assertEquals(2, listener.added.get(0).getNodes().size());
+  }
+
+  @Test
+  public void testBatchIsOneUndoStep() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    graph.addNodes(Arrays.asList(node0, node1));
+
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setHistoryEnabled(true);
+    GraphHistory history = graphPane.getHistory();
+
+    Node node2 = new Node("2");
+    Edge edge0 = new Edge("0", node0, node2);
+    graph.mutate(g -> {
+      g.removeNode(node1);
+      g.addNode(node2);
+      g.addEdge(edge0);
+    });
+
+    assertEquals(0, history.getPosition());
+    assertTrue(history.isUndoPossible());
+
+    history.undo();
+    assertTrue(graph.containsNode("1"));
+    assertFalse(graph.containsNode("2"));
+    assertFalse(graph.containsEdge("0"));
+    assertFalse(history.isUndoPossible());
+
+    history.redo();
+    assertFalse(graph.containsNode("1"));
+    assertSame(node2, graph.getNode("2"));
+    assertTrue(graph.containsEdge("0"));
+    assertEquals(0, history.getPosition());
+  }
+
+  private static class RecordingListener implements GraphListener {
+
+    private List<GraphEvent> added = new ArrayList<>();
+    private List<GraphEvent> removed = new ArrayList<>();
+
+    @Override
+    public void elementsAdded(GraphEvent e) {
+      added.add(e);
+    }
+
+    @Override
+    public void elementsRemoved(GraphEvent e) {
+      removed.add(e);
+    }
+
+  }
+
+}
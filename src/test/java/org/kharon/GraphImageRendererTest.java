@@ -0,0 +1,96 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class GraphImageRendererTest {
+
+  @Test
+  public void testRendersWithoutComponent() {
+    Graph graph = createGraph(0);
+    GraphImageRenderer renderer = new GraphImageRenderer();
+    renderer.setBackground(Color.WHITE);
+
+    BufferedImage image = renderer.render(graph, new AffineTransform(), 400, 300);
+    assertEquals(Color.BLUE.getRGB(), image.getRGB(110, 110));
+    assertEquals(Color.WHITE.getRGB(), image.getRGB(390, 10));
+
+    AffineTransform moved = AffineTransform.getTranslateInstance(50, 20);
+    image = renderer.render(graph, moved, 400, 300);
+    assertEquals(Color.BLUE.getRGB(), image.getRGB(160, 130));
+    assertEquals(Color.WHITE.getRGB(), image.getRGB(105, 105));
+  }
+
+  @Test
+  public void testFitShowsTheWholeGraph() {
+    Graph graph = createGraph(0);
+    graph.addNode(new Node("far", 5000, 3000));
+    AffineTransform fit = GraphImageRenderer.fit(graph, 200, 150, 10);
+    BufferedImage image = new GraphImageRenderer().render(graph, fit, 200, 150);
+
+    for (Node node : graph.getNodes()) {
+      Point2D center = fit.transform(
+          new Point2D.Double(node.getX() + node.getSize() / 2d, node.getY() + node.getSize() / 2d), null);
+      assertTrue(center.getX() >= 10 && center.getX() <= 190 && center.getY() >= 10 && center.getY() <= 140);
+      assertNotEquals(0, image.getRGB((int) center.getX(), (int) center.getY()));
+    }
+  }
+
+  @Test
+  public void testRendersGraphsConcurrently() throws Exception {
+    GraphImageRenderer renderer = new GraphImageRenderer();
+    int count = 8;
+    List<BufferedImage> expected = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      expected.add(renderer.render(createGraph(i), new AffineTransform(), 400, 300));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<BufferedImage>> futures = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        Graph graph = createGraph(i);
+        futures.add(executor.submit(() -> renderer.render(graph, new AffineTransform(), 400, 300)));
+      }
+      for (int i = 0; i < count; i++) {
+        BufferedImage actual = futures.get(i).get();
+        for (int y = 0; y < actual.getHeight(); y++) {
+          for (int x = 0; x < actual.getWidth(); x++) {
+            assertEquals("pixel " + x + ", " + y, expected.get(i).getRGB(x, y), actual.getRGB(x, y));
+          }
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Graph createGraph(int seed) {
+    Graph graph = new Graph();
+    Node previous = new Node("0", 100, 100);
+    previous.setLabel("Node 0");
+    graph.addNode(previous);
+    for (int i = 1; i < 20; i++) {
+      Node node = new Node(String.valueOf(i), 100 + (i * 37 + seed * 11) % 280, 100 + (i * 53 + seed * 7) % 180);
+      node.setLabel("Node " + i);
+      graph.addNode(node);
+      graph.addEdge(new Edge(String.valueOf(i), previous, node));
+      previous = node;
+    }
+    return graph;
+  }
+
+}
@@ -0,0 +1,128 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class GraphSnapshotTest {
+
+  @Test
+  public void testSnapshotIgnoresLaterMutations() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    Edge edge0 = new Edge("0", node0, node1);
+    Edge edge1 = new Edge("1", node1, node0);
+    graph.addNodes(Arrays.asList(node0, node1, node2));
+    graph.addEdges(Arrays.asList(edge0, edge1));
+
+    GraphSnapshot snapshot = graph.snapshot();
+    assertEquals(graph.getVersion(), snapshot.getVersion());
+
+    graph.removeNode(node1);
+    graph.addNode(new Node("3"));
+    graph.addEdge(new Edge("2", node0, node2));
+
+    assertEquals(3, snapshot.getSize());
+    assertTrue(snapshot.containsNode("1"));
+    assertFalse(snapshot.containsNode("3"));
+    assertEquals(2, snapshot.getEdges().size());
+    assertFalse(snapshot.containsEdge("2"));
+    assertEquals(Collections.singleton(node1), snapshot.getNeighbours(node0));
+
+    Collection<OverlappedEdges> pairs = snapshot.getNodesOverlappedEdges(Collections.singleton("0"));
+    assertEquals(1, pairs.size());
+    OverlappedEdges pair = pairs.iterator().next();
+    assertTrue(pair.isDoubleDirection());
+    assertSame(pair, snapshot.getNodesOverlappedEdges(snapshot.getNodeIds()).iterator().next());
+
+    assertFalse(graph.containsNode("1"));
+    assertEquals(1, graph.getEdges().size());
+    assertNull(graph.snapshot().getNode("1"));
+  }
+
+  @Test
+  public void testCloneIsIndependentOfOriginal() {
+    Graph graph = newChain(5000);
+    Graph clone = graph.cloneGraph();
+
+    graph.removeNode(graph.getNode("10"));
+    clone.addNode(new Node("new"));
+
+    assertTrue(clone.containsNode("10"));
+    assertEquals(2, clone.getNeighbours(clone.getNode("10")).size());
+    assertFalse(graph.containsNode("new"));
+    assertEquals(4999, graph.getSize());
+    assertEquals(5001, clone.getSize());
+  }
+
+  @Test
+  public void testReadersSeeFrozenStructureWhileGraphChanges() throws Exception {
+    int size = 5000;
+    Graph graph = newChain(size);
+    GraphSnapshot snapshot = graph.snapshot();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<Boolean>> readers = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        readers.add(executor.submit(() -> {
+          for (int round = 0; round < 20; round++) {
+            if (snapshot.getSize() != size || snapshot.getEdges().size() != size - 1) {
+              return false;
+            }
+            for (int id = 1; id < size - 1; id++) {
+              Node node = snapshot.getNode(Integer.toString(id));
+              if (node == null || snapshot.getNeighbours(node).size() != 2) {
+                return false;
+              }
+            }
+          }
+          return true;
+        }));
+      }
+
+      for (int id = 0; id < size; id += 2) {
+        graph.removeNode(graph.getNode(Integer.toString(id)));
+        graph.addNode(new Node("extra" + id));
+      }
+
+      for (Future<Boolean> reader : readers) {
+        assertTrue(reader.get(30, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(0, graph.getEdges().size());
+  }
+
+  private static Graph newChain(int size) {
+    Graph graph = new Graph();
+    List<Node> nodes = new ArrayList<>(size);
+    List<Edge> edges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      nodes.add(new Node(Integer.toString(i)));
+      if (i > 0) {
+        edges.add(new Edge("e" + i, nodes.get(i - 1), nodes.get(i)));
+      }
+    }
+    graph.addElements(nodes, edges);
+    return graph;
+  }
+
+}
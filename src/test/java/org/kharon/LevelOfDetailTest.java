@@ -0,0 +1,110 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+import org.kharon.renderers.DefaultLabelRenderer;
+import org.kharon.renderers.EdgeRenderer;
+import org.kharon.renderers.NodeRenderer;
+import org.kharon.renderers.RenderContext;
+import org.kharon.renderers.Renderers;
+
+public class LevelOfDetailTest {
+
+  @Test
+  public void testTiersFollowNodeScreenSize() {
+    GraphSettings settings = new GraphSettings();
+    assertEquals(LevelOfDetail.FULL, settings.getLevelOfDetail(20));
+    assertEquals(LevelOfDetail.SHAPES, settings.getLevelOfDetail(5));
+    assertEquals(LevelOfDetail.DOTS, settings.getLevelOfDetail(1));
+    assertEquals(LevelOfDetail.DENSITY, settings.getLevelOfDetail(0.1));
+
+    settings.setLabelsMinNodeSize(30);
+    assertEquals(LevelOfDetail.SHAPES, settings.getLevelOfDetail(20));
+  }
+
+  @Test
+  public void testLabelsAreLeftOutBelowFullDetail() {
+    Graph graph = new Graph();
+    Node node = new Node("0", 10, 10);
+    node.setLabel("label");
+    graph.addNode(node);
+    RenderContext renderContext = new RenderContext(null, graph);
+    renderContext.setLevelOfDetail(LevelOfDetail.SHAPES);
+
+    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = image.createGraphics();
+    assertNull(new DefaultLabelRenderer().render(g2d, node, renderContext));
+    g2d.dispose();
+  }
+
+  @Test
+  public void testZoomingOutLowersDetail() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 0, 0);
+    Node node1 = new Node("1", 2000, 2000);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addEdge(new Edge("0", node0, node1));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+
+    paint(graphPane);
+    assertEquals(LevelOfDetail.FULL, graphPane.getLevelOfDetail());
+
+    graphPane.setZoom(0.25d);
+    paint(graphPane);
+    assertEquals(LevelOfDetail.SHAPES, graphPane.getLevelOfDetail());
+
+    graph.getSettings().setShapesMinNodeSize(10);
+    paint(graphPane);
+    assertEquals(LevelOfDetail.DOTS, graphPane.getLevelOfDetail());
+
+    graph.getSettings().setDotsMinNodeSize(10);
+    paint(graphPane);
+    assertEquals(LevelOfDetail.DENSITY, graphPane.getLevelOfDetail());
+  }
+
+  @Test
+  public void testDotsAndDensityRenderNoShapes() {
+    Graph graph = TestGraphs.chain(TestGraphs.grid(400, 20, 50, 50));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+    int[] calls = new int[1];
+    Renderers renderers = graphPane.getRenderers();
+    NodeRenderer nodeRenderer = renderers.getNodeRenderer("square");
+    renderers.registerNodeRenderer("square", (g, node, renderContext) -> {
+      calls[0]++;
+      return nodeRenderer.render(g, node, renderContext);
+    });
+    EdgeRenderer edgeRenderer = renderers.getEdgeRenderer(Renderers.DEFAULT);
+    renderers.registerEdgeRenderer(Renderers.DEFAULT, (g, edge, renderContext) -> {
+      calls[0]++;
+      return edgeRenderer.render(g, edge, renderContext);
+    });
+
+    graphPane.setZoom(0.25d);
+    graph.getSettings().setShapesMinNodeSize(10);
+    paint(graphPane);
+    assertEquals(LevelOfDetail.DOTS, graphPane.getLevelOfDetail());
+    assertEquals(0, calls[0]);
+
+    graph.getSettings().setDotsMinNodeSize(10);
+    paint(graphPane);
+    assertEquals(LevelOfDetail.DENSITY, graphPane.getLevelOfDetail());
+    assertEquals(0, calls[0]);
+
+    graph.getSettings().setShapesMinNodeSize(1);
+    graph.getSettings().setDotsMinNodeSize(1);
+    paint(graphPane);
+    assertEquals(LevelOfDetail.SHAPES, graphPane.getLevelOfDetail());
+    assertTrue(calls[0] > 0);
+  }
+
+}
@@ -0,0 +1,89 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class OverlappedEdgesTest {
+
+  @Test
+  public void testParallelEdgesShareOnePair() {
+    Graph graph = new Graph();
+
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    graph.addNodes(Arrays.asList(node0, node1, node2));
+
+    Edge edge0 = new Edge("0", node0, node1);
+    Edge edge1 = new Edge("1", node1, node0);
+    Edge edge2 = new Edge("2", node0, node1);
+    Edge edge3 = new Edge("3", node1, node2);
+    graph.addEdges(Arrays.asList(edge0, edge1, edge2, edge3));
+
+    Collection<OverlappedEdges> all = graph.getNodesOverlappedEdges(graph.getNodeIds());
+    assertEquals(2, all.size());
+
+    Collection<OverlappedEdges> pairs = graph.getNodesOverlappedEdges(Collections.singleton("0"));
+    assertEquals(1, pairs.size());
+    OverlappedEdges pair = pairs.iterator().next();
+    assertEquals(3, pair.getEdgeCount());
+    assertTrue(pair.isDoubleDirection());
+
+    graph.removeEdges(Arrays.asList(edge0, edge2));
+
+    OverlappedEdges same = graph.getNodesOverlappedEdges(Collections.singleton("1")).stream()
+        .filter(p -> p.getEdges().contains(edge1)).findFirst().get();
+    assertSame(pair, same);
+    assertEquals(1, pair.getEdgeCount());
+    assertFalse(pair.isDoubleDirection());
+    assertTrue(pair.isReverseDirection());
+
+    graph.removeEdge(edge1);
+    assertTrue(graph.getNodesOverlappedEdges(Collections.singleton("0")).isEmpty());
+    assertEquals(1, graph.getNodesOverlappedEdges(graph.getNodeIds()).size());
+  }
+
+  @Test
+  public void testPairsAreFoundByEdgeOrPairId() {
+    Graph graph = new Graph();
+
+    Node node0 = new Node("a-b");
+    Node node1 = new Node("c");
+    graph.addNodes(Arrays.asList(node0, node1));
+    Edge edge = new Edge("e", node1, node0);
+    graph.addEdge(edge);
+
+    OverlappedEdges pair = graph.getOverlappedEdges("e");
+    assertEquals("a-b-c", pair.getId());
+    assertSame(pair, graph.getOverlappedEdges("a-b-c"));
+    assertNull(graph.getOverlappedEdges("a-b"));
+    assertNull(graph.getOverlappedEdges("c-a-b"));
+
+    graph.removeEdge(edge);
+    assertNull(graph.getOverlappedEdges("e"));
+    assertNull(graph.getOverlappedEdges("a-b-c"));
+  }
+
+  @Test
+  public void testSelfLoopIsReportedOnce() {
+    Graph graph = new Graph();
+
+    Node node0 = new Node("0");
+    graph.addNode(node0);
+    graph.addEdge(new Edge("0", node0, node0));
+
+    Collection<OverlappedEdges> pairs = graph.getNodesOverlappedEdges(graph.getNodeIds());
+    assertEquals(1, pairs.size());
+    assertEquals(1, pairs.iterator().next().getEdgeCount());
+  }
+
+}
@@ -0,0 +1,148 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class PaintBufferTest {
+
+  @Test
+  public void testBuffersAreReusedUntilResized() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 10, 10);
+    Node node1 = new Node("1", 200, 100);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addEdge(new Edge("0", node0, node1));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+
+    paint(graphPane);
+    long allocations = graphPane.getPaintBufferAllocationCount();
+    for (int i = 0; i < 10; i++) {
+      node1.setX(200 + i);
+      paint(graphPane);
+    }
+    assertEquals(allocations, graphPane.getPaintBufferAllocationCount());
+
+    graphPane.setSize(300, 250);
+    paint(graphPane);
+    assertEquals(allocations, graphPane.getPaintBufferAllocationCount());
+
+    graphPane.setSize(800, 600);
+    paint(graphPane);
+    assertEquals(allocations + 1, graphPane.getPaintBufferAllocationCount());
+    assertEquals(4L * 400 * 300 + 4L * 800 * 600, graphPane.getPaintBufferAllocatedBytes());
+  }
+
+  @Test
+  public void testBufferIsClearedBetweenFrames() {
+    PaintBuffer buffer = new PaintBuffer();
+    Graphics2D g2d = buffer.begin(null, 10, 10, null);
+    g2d.setColor(Color.RED);
+    g2d.fillRect(0, 0, 10, 10);
+    g2d.dispose();
+
+    buffer.begin(null, 5, 5, null).dispose();
+    BufferedImage target = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D targetGraphics = target.createGraphics();
+    buffer.drawTo(targetGraphics, 0, 0);
+    targetGraphics.dispose();
+
+    assertEquals(0, target.getRGB(2, 2));
+    assertEquals(0, target.getRGB(8, 8));
+    assertEquals(1, buffer.getAllocationCount());
+  }
+
+  @Test
+  public void testExposedStrips() {
+    assertEquals(Arrays.asList(new Rectangle(0, 0, 10, 100), new Rectangle(10, 90, 190, 10)),
+        PaintBuffer.getExposedStrips(200, 100, 10, -10));
+    assertEquals(Arrays.asList(new Rectangle(0, 0, 200, 5)), PaintBuffer.getExposedStrips(200, 100, 0, 5));
+    assertEquals(Arrays.asList(new Rectangle(0, 0, 200, 100)), PaintBuffer.getExposedStrips(200, 100, -300, 5));
+    assertEquals(Collections.emptyList(), PaintBuffer.getExposedStrips(200, 100, 0, 0));
+  }
+
+  @Test
+  public void testPanShiftsIdleBuffer() {
+    Graph graph = TestGraphs.label(TestGraphs.chain(TestGraphs.grid(30, 6, 70, 60)));
+    GraphPane panned = new GraphPane(graph);
+    panned.setTileCacheMemoryBudget(0);
+    panned.setSize(300, 200);
+    paint(panned);
+    long misses = panned.getShapeCache().getMissCount();
+    panned.translateStage(-37, 23);
+    BufferedImage shifted = paint(panned);
+    panned.translateStage(-12, -41);
+    shifted = paint(panned);
+    // nodes shown for the first time are rendered, the rest are moved
+    assertTrue(panned.getShapeCache().getMissCount() - misses < 2 * graph.getSize());
+
+    GraphPane fresh = new GraphPane(graph);
+    fresh.setTileCacheMemoryBudget(0);
+    fresh.setSize(300, 200);
+    fresh.translateStage(-49, -18);
+    BufferedImage expected = paint(fresh);
+
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals("pixel " + x + ", " + y, expected.getRGB(x, y), shifted.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testDragRendersOnlyMovedElements() {
+    Graph graph = TestGraphs.label(TestGraphs.chain(TestGraphs.grid(30, 6, 70, 60)));
+    GraphPane dragged = new GraphPane(graph);
+    dragged.setTileCacheMemoryBudget(0);
+    dragged.setSize(300, 200);
+    paint(dragged);
+
+    Node node = graph.getNode("14");
+    Point2D start = dragged.transform.transform(new Point2D.Double(node.getX() + 5, node.getY() + 5), null);
+    int x = (int) start.getX();
+    int y = (int) start.getY();
+    dragged.mouseDragged(mouseEvent(dragged, MouseEvent.MOUSE_DRAGGED, x, y));
+    paint(dragged);
+    long misses = dragged.getShapeCache().getMissCount();
+    int frames = 5;
+    for (int frame = 1; frame <= frames; frame++) {
+      dragged.mouseDragged(mouseEvent(dragged, MouseEvent.MOUSE_DRAGGED, x + 7 * frame, y + 3 * frame));
+      paint(dragged);
+    }
+    // the node, its label and its two edges, nothing from the idle layer
+    assertEquals(frames * 4, dragged.getShapeCache().getMissCount() - misses);
+    dragged.mouseReleased(mouseEvent(dragged, MouseEvent.MOUSE_RELEASED, x + 7 * frames, y + 3 * frames));
+    dragged.mouseMoved(mouseEvent(dragged, MouseEvent.MOUSE_MOVED, -100, -100));
+    BufferedImage actual = paint(dragged);
+
+    GraphPane fresh = new GraphPane(graph);
+    fresh.setTileCacheMemoryBudget(0);
+    fresh.setSize(300, 200);
+    BufferedImage expected = paint(fresh);
+
+    for (int py = 0; py < expected.getHeight(); py++) {
+      for (int px = 0; px < expected.getWidth(); px++) {
+        assertEquals("pixel " + px + ", " + py, expected.getRGB(px, py), actual.getRGB(px, py));
+      }
+    }
+  }
+
+  private static MouseEvent mouseEvent(GraphPane graphPane, int id, int x, int y) {
+    return new MouseEvent(graphPane, id, System.currentTimeMillis(), MouseEvent.BUTTON1_DOWN_MASK, x, y, 1, false,
+        MouseEvent.BUTTON1);
+  }
+
+}
@@ -0,0 +1,57 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ParallelPaintTest {
+
+  @Test
+  public void testTilesAndBandsMatchSequentialPaint() {
+    Graph graph = new Graph();
+    Random random = new Random(42);
+    for (int i = 0; i < 300; i++) {
+      Node node = new Node(String.valueOf(i), random.nextInt(600), random.nextInt(400));
+      node.setLabel("Node " + i);
+      graph.addNode(node);
+      if (i > 0) {
+        graph.addEdge(new Edge(String.valueOf(i), graph.getNode(String.valueOf(random.nextInt(i))), node));
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      // tiles by default, bands without the tile cache
+      for (long budget : new long[] { TileCache.DEFAULT_MEMORY_BUDGET, 0 }) {
+        for (Color background : new Color[] { null, Color.WHITE }) {
+          GraphPane graphPane = new GraphPane(graph);
+          graphPane.setTileCacheMemoryBudget(budget);
+          graphPane.setBackground(background);
+          graphPane.setSize(500, 350);
+          graphPane.setZoom(0.8d);
+          BufferedImage expected = paint(graphPane);
+
+          graphPane.setPaintPool(pool);
+          graphPane.resetBuffer();
+          BufferedImage parallel = paint(graphPane);
+
+          for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+              assertEquals("budget " + budget + " pixel " + x + ", " + y, expected.getRGB(x, y),
+                  parallel.getRGB(x, y));
+            }
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+}
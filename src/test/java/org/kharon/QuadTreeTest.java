@@ -0,0 +1,133 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.kharon.history.MoveNodeAction;
+
+public class QuadTreeTest {
+
+  @Test
+  public void testQueriesMatchLinearScan() {
+    Random random = new Random(7);
+    QuadTree<Integer> tree = new QuadTree<>();
+    Map<Integer, Rectangle2D> bounds = new HashMap<>();
+
+    for (int i = 0; i < 3000; i++) {
+      Rectangle2D rect = randomRect(random);
+      tree.put(i, rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+      bounds.put(i, rect);
+    }
+    for (int i = 0; i < 3000; i += 2) {
+      if (i % 4 == 0) {
+        tree.remove(i);
+        bounds.remove(i);
+      } else {
+        Rectangle2D rect = randomRect(random);
+        tree.put(i, rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+        bounds.put(i, rect);
+      }
+    }
+    assertEquals(bounds.size(), tree.size());
+
+    for (int round = 0; round < 100; round++) {
+      Rectangle2D area = randomRect(random);
+      List<Integer> expected = new ArrayList<>();
+      for (Map.Entry<Integer, Rectangle2D> entry : bounds.entrySet()) {
+        Rectangle2D rect = entry.getValue();
+        if (rect.getMinX() <= area.getMaxX() && area.getMinX() <= rect.getMaxX() && rect.getMinY() <= area.getMaxY()
+            && area.getMinY() <= rect.getMaxY()) {
+          expected.add(entry.getKey());
+        }
+      }
+      assertEquals(new HashSet<>(expected), new HashSet<>(tree.query(area)));
+
+      double x = area.getCenterX();
+      double y = area.getCenterY();
+      List<Integer> nearest = tree.nearest(x, y, 5);
+      List<Integer> sorted = new ArrayList<>(bounds.keySet());
+      sorted.sort(Comparator.comparingDouble(id -> distance(bounds.get(id), x, y)));
+      assertEquals(5, nearest.size());
+      for (int i = 0; i < 5; i++) {
+        assertEquals(distance(bounds.get(sorted.get(i)), x, y), distance(bounds.get(nearest.get(i)), x, y), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testGraphIndexFollowsMovesAndRemovals() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 0, 0);
+    Node node1 = new Node("1", 100, 100);
+    graph.addNodes(Arrays.asList(node0, node1));
+
+    assertEquals(Arrays.asList(node0), graph.getNodesAt(10, 10));
+
+    node0.setX(500);
+    assertTrue(graph.getNodesAt(10, 10).isEmpty());
+    assertEquals(Arrays.asList(node0), graph.getNodesAt(510, 10));
+    assertEquals(Arrays.asList(node1, node0), graph.getNearestNodes(90, 90, 2));
+
+    GraphPane graphPane = new GraphPane(graph);
+    MoveNodeAction action = new MoveNodeAction("0", 0, 0, 500, 0);
+    action.undo(graphPane);
+    assertEquals(Arrays.asList(node0), graph.getNodesAt(10, 10));
+
+    graph.removeNode(node0);
+    assertTrue(graph.getNodesIn(new Rectangle2D.Double(-1000, -1000, 2000, 2000)).contains(node1));
+    assertFalse(graph.getNodesIn(new Rectangle2D.Double(-1000, -1000, 2000, 2000)).contains(node0));
+
+    Node replacement = new Node("1", -300, -300);
+    graph.addNode(replacement);
+    node1.setX(0);
+    assertEquals(Arrays.asList(replacement), graph.getNodesAt(-290, -290));
+    assertTrue(graph.getNodesAt(10, 110).isEmpty());
+  }
+
+  @Test
+  public void testGraphIndexDefersMovesToTheNextQuery() {
+    Graph graph = new Graph();
+    Node node = new Node("0", 0, 0);
+    graph.addNode(node);
+    assertEquals(Arrays.asList(node), graph.getNodesAt(10, 10));
+
+    graph.beginBatch();
+    for (int i = 1; i <= 100; i++) {
+      node.setX(i * 10);
+      node.setY(i * 10);
+    }
+    assertEquals(Arrays.asList(node), graph.getNodesAt(1010, 1010));
+    node.setX(-500);
+    graph.commit();
+    assertTrue(graph.getNodesAt(1010, 1010).isEmpty());
+    assertEquals(Arrays.asList(node), graph.getNodesAt(-490, 1010));
+
+    graph.removeNode(node);
+    node.setX(0);
+    assertTrue(graph.getNodesIn(new Rectangle2D.Double(-1000, -1000, 3000, 3000)).isEmpty());
+  }
+
+  private static Rectangle2D randomRect(Random random) {
+    return new Rectangle2D.Double(random.nextDouble() * 20000 - 10000, random.nextDouble() * 20000 - 10000,
+        random.nextDouble() * 300, random.nextDouble() * 300);
+  }
+
+  private static double distance(Rectangle2D rect, double x, double y) {
+    double dx = Math.max(Math.max(rect.getMinX() - x, x - rect.getMaxX()), 0d);
+    double dy = Math.max(Math.max(rect.getMinY() - y, y - rect.getMaxY()), 0d);
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+}
@@ -0,0 +1,73 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class RenderStatisticsTest {
+
+  @Test
+  public void testPercentilesCoverTheLatestFrames() {
+    RenderStatistics statistics = new RenderStatistics(4);
+    assertEquals(0L, statistics.getFrameTime(50));
+
+    for (long time = 1; time <= 6; time++) {
+      statistics.frameStarted();
+      statistics.phaseCompleted(RenderPhase.LIVE_NODES, time);
+      statistics.phaseCompleted(RenderPhase.LIVE_NODES, time);
+      statistics.frameCompleted(time * 10);
+    }
+    // frames 3 to 6 are in the window
+    assertEquals(6, statistics.getFrameCount());
+    assertEquals(30L, statistics.getFrameTime(0));
+    assertEquals(40L, statistics.getFrameTime(50));
+    assertEquals(60L, statistics.getFrameTime(95));
+    assertEquals(12L, statistics.getPhaseTime(RenderPhase.LIVE_NODES, 100));
+    assertEquals(0L, statistics.getPhaseTime(RenderPhase.BLIT, 100));
+  }
+
+  @Test
+  public void testGraphPaneReportsFrames() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 100, 100);
+    Node node1 = new Node("1", 5000, 5000);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addEdge(new Edge("0", node0, node1));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setTileCacheMemoryBudget(0);
+    graphPane.setSize(400, 300);
+    RenderStatistics statistics = new RenderStatistics();
+    graphPane.setRenderMetrics(statistics);
+
+    paint(graphPane);
+    // the idle buffer is reused, nothing is rendered again
+    paint(graphPane);
+    assertEquals(2, statistics.getFrameCount());
+    assertEquals(2, statistics.getCount(RenderCounter.RENDERED));
+    assertEquals(0, statistics.getCount(RenderCounter.CULLED));
+    assertTrue(statistics.getCount(RenderCounter.BUFFER_ALLOCATIONS) >= 2);
+    assertTrue(statistics.getFrameTime(100) >= statistics.getPhaseTime(RenderPhase.IDLE_LAYER, 100));
+
+    long repaints = statistics.getCount(RenderCounter.REPAINT_REQUESTS);
+    graphPane.repaint();
+    assertEquals(repaints + 1, statistics.getCount(RenderCounter.REPAINT_REQUESTS));
+  }
+
+  @Test
+  public void testOverlayCollectsStatistics() {
+    GraphPane graphPane = new GraphPane(new Graph());
+    graphPane.setSize(400, 300);
+    graphPane.setRenderMetricsOverlay(true);
+    assertTrue(graphPane.getRenderMetrics() instanceof RenderStatistics);
+
+    BufferedImage image = paint(graphPane);
+    assertNotEquals(0, image.getRGB(2, 2));
+  }
+
+}
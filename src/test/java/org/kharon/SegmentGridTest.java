@@ -0,0 +1,95 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SegmentGridTest {
+
+  @Test
+  public void testQueriesMatchLinearScan() {
+    Random random = new Random(7);
+    SegmentGrid<Integer> grid = new SegmentGrid<>(50d);
+    Map<Integer, Line2D> lines = new HashMap<>();
+
+    for (int i = 0; i < 2000; i++) {
+      Line2D line = new Line2D.Double(random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000,
+          random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000);
+      lines.put(i, line);
+      grid.put(i, line.getX1(), line.getY1(), line.getX2(), line.getY2());
+    }
+    for (int i = 0; i < 2000; i += 3) {
+      grid.remove(i);
+      lines.remove(i);
+    }
+    for (int i = 1; i < 2000; i += 3) {
+      Line2D line = new Line2D.Double(random.nextDouble() * 500, random.nextDouble() * 500, random.nextDouble() * 500,
+          random.nextDouble() * 500);
+      lines.put(i, line);
+      grid.put(i, line.getX1(), line.getY1(), line.getX2(), line.getY2());
+    }
+    assertEquals(lines.size(), grid.size());
+
+    for (int q = 0; q < 200; q++) {
+      Rectangle2D area = new Rectangle2D.Double(random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000,
+          random.nextDouble() * 300, random.nextDouble() * 300);
+      Set<Integer> expected = new HashSet<>();
+      for (Map.Entry<Integer, Line2D> entry : lines.entrySet()) {
+        if (area.intersectsLine(entry.getValue())) {
+          expected.add(entry.getKey());
+        }
+      }
+      List<Integer> found = grid.query(area);
+      assertEquals(expected.size(), found.size());
+      assertEquals(expected, new HashSet<>(found));
+    }
+  }
+
+  @Test
+  public void testGraphEdgeIndexFollowsNodes() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    node0.setX(0);
+    node1.setX(100);
+    node2.setX(0);
+    node2.setY(500);
+    graph.addNodes(Arrays.asList(node0, node1, node2));
+    Edge edge0 = new Edge("0", node0, node1);
+    graph.addEdge(edge0);
+
+    Rectangle2D middle = new Rectangle2D.Double(40, 0, 20, 20);
+    assertEquals(1, graph.getOverlappedEdgesIn(middle).size());
+
+    node1.setY(1000);
+    assertTrue(graph.getOverlappedEdgesIn(middle).isEmpty());
+
+    graph.addEdge(new Edge("1", node2, node1));
+    Rectangle2D lower = new Rectangle2D.Double(0, 490, 30, 40);
+    List<OverlappedEdges> pairs = graph.getOverlappedEdgesIn(lower);
+    assertEquals(1, pairs.size());
+    assertTrue(pairs.get(0).getEdges().stream().anyMatch(edge -> edge.getId().equals("1")));
+
+    graph.removeNode(node2);
+    assertTrue(graph.getOverlappedEdgesIn(lower).isEmpty());
+
+    graph.removeEdge(edge0);
+    assertFalse(graph.getOverlappedEdgesIn(new Rectangle2D.Double(-10, -10, 2000, 2000)).stream()
+        .anyMatch(pair -> pair.getEdgeCount() == 0));
+    assertTrue(graph.getOverlappedEdgesIn(new Rectangle2D.Double(-10, -10, 2000, 2000)).isEmpty());
+  }
+
+}
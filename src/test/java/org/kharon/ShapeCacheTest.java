@@ -0,0 +1,90 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ShapeCacheTest {
+
+  @Test
+  public void testPanAndZoomReuseShapes() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 10, 10);
+    node0.setLabel("Node 0");
+    Node node1 = new Node("1", 200, 100);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addEdge(new Edge("0", node0, node1));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setTileCacheMemoryBudget(0);
+    graphPane.setSize(400, 300);
+
+    paint(graphPane);
+    ShapeCache shapeCache = graphPane.getShapeCache();
+    long misses = shapeCache.getMissCount();
+    assertTrue(misses > 0);
+
+    graphPane.translateStage(30, 20);
+    paint(graphPane);
+    graphPane.setZoom(2d);
+    paint(graphPane);
+    assertEquals(misses, shapeCache.getMissCount());
+
+    node0.setColor(Color.GREEN);
+    graphPane.resetBuffer();
+    paint(graphPane);
+    // the shape and the label of the node and the edge reaching it
+    assertEquals(misses + 3, shapeCache.getMissCount());
+  }
+
+  @Test
+  public void testRemovedElementsAreDropped() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 10, 10);
+    Node node1 = new Node("1", 200, 100);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    Edge edge = new Edge("0", node0, node1);
+    graph.addEdge(edge);
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+
+    paint(graphPane);
+    assertEquals(5, graphPane.getShapeCache().size());
+
+    graph.removeNode(node1);
+    paint(graphPane);
+    assertEquals(2, graphPane.getShapeCache().size());
+  }
+
+  @Test
+  public void testSelectedEdgesAreHighlightedWithoutChangingThem() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0", 10, 10);
+    Node node1 = new Node("1", 200, 100);
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addEdge(new Edge("0", node0, node1));
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(400, 300);
+    Edge pair = graph.getNodesOverlappedEdges(Arrays.asList("0")).iterator().next();
+    graphPane.selectEdge(pair.getId());
+
+    paint(graphPane);
+    int version = pair.getVersion();
+    long misses = graphPane.getShapeCache().getMissCount();
+    paint(graphPane);
+    paint(graphPane);
+
+    assertNull(pair.getColor());
+    assertEquals(version, pair.getVersion());
+    assertEquals(misses, graphPane.getShapeCache().getMissCount());
+  }
+
+}
@@ -0,0 +1,69 @@
+package org.kharon;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Graphs and paints shared by the rendering tests.
+ */
+final class TestGraphs {
+
+  private TestGraphs() {
+  }
+
+  /**
+   * Nodes with ids from 0, laid out in rows of the given number of columns.
+   */
+  static Graph grid(int count, int columns, int spacingX, int spacingY) {
+    Graph graph = new Graph();
+    for (int i = 0; i < count; i++) {
+      graph.addNode(new Node(String.valueOf(i), (i % columns) * spacingX, (i / columns) * spacingY));
+    }
+    return graph;
+  }
+
+  /**
+   * Joins every node of a grid to the one before it.
+   */
+  static Graph chain(Graph graph) {
+    for (int i = 1; i < graph.getSize(); i++) {
+      graph.addEdge(new Edge("e" + i, graph.getNode(String.valueOf(i - 1)), graph.getNode(String.valueOf(i))));
+    }
+    return graph;
+  }
+
+  static Graph label(Graph graph) {
+    for (Node node : graph.getNodes()) {
+      node.setLabel("Node " + node.getId());
+    }
+    return graph;
+  }
+
+  /**
+   * Paints the whole pane, on the calling thread, into a new image.
+   */
+  static BufferedImage paint(GraphPane graphPane) {
+    BufferedImage image = new BufferedImage(graphPane.getWidth(), graphPane.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = image.createGraphics();
+    g2d.setClip(0, 0, graphPane.getWidth(), graphPane.getHeight());
+    graphPane.paintComponent(g2d);
+    g2d.dispose();
+    return image;
+  }
+
+  /**
+   * Same as {@link #paint(GraphPane)}, on the event dispatch thread, for panes
+   * that receive frames rendered on other threads.
+   */
+  static BufferedImage paintOnEventThread(GraphPane graphPane)
+      throws InterruptedException, InvocationTargetException {
+    AtomicReference<BufferedImage> image = new AtomicReference<>();
+    SwingUtilities.invokeAndWait(() -> image.set(paint(graphPane)));
+    return image.get();
+  }
+
+}
@@ -0,0 +1,202 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kharon.TestGraphs.paint;
+
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+import org.kharon.history.MoveNodeAction;
+
+public class TileCacheTest {
+
+  private static final int WIDTH = 600;
+  private static final int HEIGHT = 400;
+
+  @Test
+  public void testPanOnlyRendersExposedTiles() {
+    GraphPane graphPane = newGraphPane();
+    TileCache tileCache = graphPane.getTileCache();
+
+    paint(graphPane);
+    assertEquals(6, tileCache.getMissCount());
+
+    paint(graphPane);
+    assertEquals(6, tileCache.getMissCount());
+    assertEquals(6, tileCache.getHitCount());
+
+    graphPane.translateStage(TileCache.TILE_SIZE, 0);
+    paint(graphPane);
+    assertEquals(8, tileCache.getMissCount());
+    assertEquals(8, tileCache.getTileCount());
+  }
+
+  @Test
+  public void testPanWithinTilesOnlyMovesThem() {
+    GraphPane graphPane = newGraphPane();
+    TileCache tileCache = graphPane.getTileCache();
+    graphPane.moveStageTo(0, 0);
+    BufferedImage before = paint(graphPane);
+    long misses = tileCache.getMissCount();
+
+    graphPane.translateStage(-3, -2);
+    BufferedImage after = paint(graphPane);
+    assertEquals(misses, tileCache.getMissCount());
+    // past the marker of the device origin
+    for (int y = 2; y < HEIGHT - 2; y++) {
+      for (int x = 2; x < WIDTH - 3; x++) {
+        assertEquals("pixel " + x + ", " + y, before.getRGB(x + 3, y + 2), after.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testZoomLevelsAreCachedSeparately() {
+    GraphPane graphPane = newGraphPane();
+    TileCache tileCache = graphPane.getTileCache();
+
+    paint(graphPane);
+    graphPane.setZoom(2d);
+    paint(graphPane);
+    long misses = tileCache.getMissCount();
+
+    graphPane.setZoom(1d);
+    graphPane.moveStageTo(0, 0);
+    paint(graphPane);
+    assertEquals(misses, tileCache.getMissCount());
+  }
+
+  @Test
+  public void testTilesMatchTheUntiledPaint() {
+    for (double zoom : new double[] { 1.4d, 0.8d }) {
+      GraphPane tiled = newGraphPane();
+      GraphPane untiled = newGraphPane();
+      untiled.setTileCacheMemoryBudget(0);
+      // learns how far labels reach past their nodes
+      paint(untiled);
+      for (GraphPane graphPane : new GraphPane[] { tiled, untiled }) {
+        graphPane.setZoom(zoom);
+        graphPane.moveStageTo(0, 0);
+      }
+
+      BufferedImage expected = paint(untiled);
+      BufferedImage actual = paint(tiled);
+      assertTrue(tiled.getTileCache().getTileCount() > 0);
+      int differences = 0;
+      for (int y = 0; y < HEIGHT; y++) {
+        for (int x = 0; x < WIDTH; x++) {
+          if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+            differences++;
+          }
+        }
+      }
+      assertEquals("pixels differing at zoom " + zoom, 0, differences);
+    }
+  }
+
+  @Test
+  public void testGraphChangesAndBudgetEvictTiles() {
+    GraphPane graphPane = newGraphPane();
+    TileCache tileCache = graphPane.getTileCache();
+
+    paint(graphPane);
+    graphPane.getGraph().addNode(new Node("new"));
+    assertEquals(0, tileCache.getTileCount());
+
+    long tileBytes = 4L * TileCache.TILE_SIZE * TileCache.TILE_SIZE;
+    graphPane.setTileCacheMemoryBudget(2 * tileBytes);
+    paint(graphPane);
+    assertEquals(2, tileCache.getTileCount());
+    assertTrue(tileCache.getUsedBytes() <= graphPane.getTileCacheMemoryBudget());
+  }
+
+  @Test
+  public void testPreviewOnlyMovesWithTheMainPane() {
+    GraphPane graphPane = newGraphPane();
+    GraphPreviewPane preview = new GraphPreviewPane(graphPane);
+    preview.setSize(200, 150);
+    graphPane.translateStage(0, 0);
+    paint(preview);
+    TileCache tileCache = preview.getTileCache();
+    ShapeCache shapeCache = preview.getShapeCache();
+    int tiles = tileCache.getTileCount();
+    long shapes = shapeCache.getHitCount() + shapeCache.getMissCount();
+
+    for (int step = 0; step < 5; step++) {
+      graphPane.translateStage(-10, -5);
+      paint(preview);
+    }
+    // no idle shape was rendered again, and no tile thrown away
+    assertEquals(shapes, shapeCache.getHitCount() + shapeCache.getMissCount());
+    assertTrue(tileCache.getTileCount() >= tiles);
+
+    graphPane.getHistory().add(new MoveNodeAction());
+    assertEquals(0, tileCache.getTileCount());
+  }
+
+  @Test
+  public void testNodeDragOnlyDiscardsTheTilesItCrosses() {
+    Graph graph = TestGraphs.label(TestGraphs.chain(TestGraphs.grid(40, 8, 100, 90)));
+    GraphPane dragged = new GraphPane(graph);
+    dragged.setSize(WIDTH, HEIGHT);
+    dragged.moveStageTo(0, 0);
+    paint(dragged);
+    TileCache tileCache = dragged.getTileCache();
+    int tiles = tileCache.getTileCount();
+
+    Node node = graph.getNode("0");
+    int x = node.getX() + 5;
+    int y = node.getY() + 5;
+    dragged.mouseDragged(mouseEvent(dragged, MouseEvent.MOUSE_DRAGGED, x, y));
+    assertEquals(tiles - 1, tileCache.getTileCount());
+    paint(dragged);
+    dragged.mouseDragged(mouseEvent(dragged, MouseEvent.MOUSE_DRAGGED, x + 7, y + 3));
+    paint(dragged);
+    ShapeCache shapeCache = dragged.getShapeCache();
+    long shapes = shapeCache.getHitCount() + shapeCache.getMissCount();
+
+    dragged.mouseReleased(mouseEvent(dragged, MouseEvent.MOUSE_RELEASED, x + 7, y + 3));
+    dragged.mouseMoved(mouseEvent(dragged, MouseEvent.MOUSE_MOVED, -100, -100));
+    assertEquals(tiles - 1, tileCache.getTileCount());
+    BufferedImage actual = paint(dragged);
+    // the node, its label and its edge, nothing else from the idle layer
+    assertEquals(3, shapeCache.getHitCount() + shapeCache.getMissCount() - shapes);
+
+    GraphPane fresh = new GraphPane(graph);
+    fresh.setSize(WIDTH, HEIGHT);
+    fresh.moveStageTo(0, 0);
+    BufferedImage expected = paint(fresh);
+    for (int py = 0; py < HEIGHT; py++) {
+      for (int px = 0; px < WIDTH; px++) {
+        assertEquals("pixel " + px + ", " + py, expected.getRGB(px, py), actual.getRGB(px, py));
+      }
+    }
+  }
+
+  private static MouseEvent mouseEvent(GraphPane graphPane, int id, int x, int y) {
+    return new MouseEvent(graphPane, id, System.currentTimeMillis(), MouseEvent.BUTTON1_DOWN_MASK, x, y, 1, false,
+        MouseEvent.BUTTON1);
+  }
+
+  private static GraphPane newGraphPane() {
+    Graph graph = new Graph();
+    Node previous = null;
+    for (int i = 0; i < 20; i++) {
+      Node node = new Node(Integer.toString(i));
+      node.setX(i * 40);
+      node.setY(i * 20);
+      node.setLabel("Node " + i);
+      graph.addNode(node);
+      if (previous != null) {
+        graph.addEdge(new Edge("e" + i, previous, node));
+      }
+      previous = node;
+    }
+    GraphPane graphPane = new GraphPane(graph);
+    graphPane.setSize(WIDTH, HEIGHT);
+    return graphPane;
+  }
+
+}
@@ -0,0 +1,89 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TiledImageExporterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testPngMatchesSingleImage() throws Exception {
+    Graph graph = createGraph();
+    TiledImageExporter exporter = new TiledImageExporter();
+    exporter.setTileSize(64);
+    exporter.setParallelism(3);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exporter.exportPng(graph, 1d, out);
+    BufferedImage actual = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+    AffineTransform transform = exporter.getImageTransform(graph, 1d);
+    BufferedImage expected = exporter.getRenderer().render(graph, transform, actual.getWidth(), actual.getHeight());
+    assertImagesEqual(expected, actual, 0, 0);
+  }
+
+  @Test
+  public void testWebTilesSkipEmptyTiles() throws Exception {
+    Graph graph = createGraph();
+    graph.addNode(new Node("far", 2000, 100));
+    GraphImageRenderer renderer = new GraphImageRenderer();
+    renderer.setBackground(Color.WHITE);
+    TiledImageExporter exporter = new TiledImageExporter(renderer);
+    exporter.setParallelism(2);
+
+    File directory = folder.newFolder("tiles");
+    exporter.exportTiles(graph, 1d, 2, directory);
+
+    AffineTransform transform = exporter.getImageTransform(graph, 1d);
+    BufferedImage expected = renderer.render(graph, transform, 768, 512);
+    File tile = new File(directory, "1" + File.separator + "1" + File.separator + "0.png");
+    assertTrue(tile.isFile());
+    assertImagesEqual(expected, ImageIO.read(tile), 256, 0);
+
+    // between the graph and the far node
+    assertFalse(new File(directory, "1" + File.separator + "4" + File.separator + "0.png").exists());
+    assertTrue(new File(directory, "0" + File.separator + "0" + File.separator + "0.png").isFile());
+    assertTrue(Files.list(new File(directory, "0").toPath()).count() <= 5);
+  }
+
+  private static void assertImagesEqual(BufferedImage expected, BufferedImage actual, int offsetX, int offsetY) {
+    for (int y = 0; y < actual.getHeight(); y++) {
+      for (int x = 0; x < actual.getWidth(); x++) {
+        assertEquals("pixel " + x + ", " + y, expected.getRGB(offsetX + x, offsetY + y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  private static Graph createGraph() {
+    Graph graph = new Graph();
+    Node previous = null;
+    for (int i = 0; i < 40; i++) {
+      Node node = new Node(String.valueOf(i), (i % 8) * 70, (i / 8) * 60);
+      node.setLabel("Node " + i);
+      graph.addNode(node);
+      if (previous != null) {
+        graph.addEdge(new Edge(String.valueOf(i), previous, node));
+      }
+      previous = node;
+    }
+    return graph;
+  }
+
+}
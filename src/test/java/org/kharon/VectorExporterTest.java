@@ -0,0 +1,107 @@
+package org.kharon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.InflaterInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class VectorExporterTest {
+
+  @Test
+  public void testSvgWritesLabelsAsText() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new SvgExporter().export(createGraph(), out);
+
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+        .parse(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals("svg", document.getDocumentElement().getTagName());
+
+    // node labels and edge counts
+    NodeList texts = document.getElementsByTagName("text");
+    assertEquals(10 + 9, texts.getLength());
+    boolean escaped = false;
+    int rotated = 0;
+    for (int i = 0; i < texts.getLength(); i++) {
+      Element text = (Element) texts.item(i);
+      escaped |= "<0> & \"0\"".equals(text.getTextContent());
+      if (text.hasAttribute("rotate")) {
+        // every glyph rotated in place, as in the raster outlines
+        assertEquals(text.getTextContent().length(), text.getAttribute("x").split(" ").length);
+        rotated++;
+      }
+    }
+    assertTrue(escaped);
+    assertTrue(rotated > 0);
+
+    // edges and nodes, labels being only text
+    NodeList paths = document.getElementsByTagName("path");
+    assertEquals(9 + 10, paths.getLength());
+    int groups = document.getElementsByTagName("g").getLength();
+    assertTrue(groups > 1 && groups < paths.getLength());
+  }
+
+  @Test
+  public void testPdfIsWellFormed() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new PdfExporter().export(createGraph(), out);
+    byte[] bytes = out.toByteArray();
+    String pdf = new String(bytes, StandardCharsets.ISO_8859_1);
+
+    assertTrue(pdf.startsWith("%PDF-1.4\n"));
+    assertTrue(pdf.endsWith("%%EOF\n"));
+    int startxref = Integer.parseInt(pdf.substring(pdf.lastIndexOf("startxref\n") + 10, pdf.lastIndexOf("\n%%EOF")));
+    assertTrue(pdf.startsWith("xref\n0 8\n", startxref));
+
+    // every object is where the table says
+    String[] entries = pdf.substring(startxref).split("\n");
+    for (int object = 1; object <= 7; object++) {
+      int offset = Integer.parseInt(entries[2 + object].substring(0, 10));
+      assertTrue(pdf.startsWith(object + " 0 obj\n", offset));
+    }
+
+    int length = Integer.parseInt(pdf.substring(pdf.indexOf("5 0 obj\n") + 8, pdf.indexOf("\nendobj", pdf.indexOf("5 0 obj\n"))));
+    int start = pdf.indexOf("stream\n") + 7;
+    assertTrue(pdf.startsWith("\nendstream", start + length));
+
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes, start, length))) {
+      byte[] buffer = new byte[4096];
+      for (int read; (read = in.read(buffer)) > 0;) {
+        content.write(buffer, 0, read);
+      }
+    }
+    String operators = new String(content.toByteArray(), StandardCharsets.ISO_8859_1);
+    assertTrue(operators.contains("(Node 3) Tj"));
+    assertTrue(operators.contains("(\\(0\\)) Tj"));
+    // sloped edge labels glyph by glyph
+    assertTrue(operators.contains("([) Tj"));
+    assertTrue(operators.contains("(1) Tj"));
+  }
+
+  private static Graph createGraph() {
+    Graph graph = new Graph();
+    Node previous = null;
+    for (int i = 0; i < 10; i++) {
+      Node node = new Node(String.valueOf(i), i * 150, (i % 3) * 120);
+      node.setLabel(i == 0 ? "<0> & \"0\"" : i == 1 ? "(0)" : "Node " + i);
+      graph.addNode(node);
+      if (previous != null) {
+        graph.addEdge(new Edge(String.valueOf(i), previous, node));
+      }
+      previous = node;
+    }
+    return graph;
+  }
+
+}
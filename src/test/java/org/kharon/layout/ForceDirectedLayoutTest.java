@@ -0,0 +1,122 @@
+package org.kharon.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+import org.kharon.Node;
+import org.kharon.layout.AbstractHistoryEnabledLayout.LayoutAction;
+import org.kharon.history.GraphAction;
+
+public class ForceDirectedLayoutTest {
+
+  @Test
+  public void testGridKeepsNeighboursClose() {
+    int side = 12;
+    Graph graph = new Graph();
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < side * side; i++) {
+      nodes.add(new Node(Integer.toString(i)));
+    }
+    graph.addNodes(nodes);
+    List<Edge> edges = new ArrayList<>();
+    for (int row = 0; row < side; row++) {
+      for (int col = 0; col < side; col++) {
+        int i = row * side + col;
+        if (col + 1 < side) {
+          edges.add(new Edge("h" + i, nodes.get(i), nodes.get(i + 1)));
+        }
+        if (row + 1 < side) {
+          edges.add(new Edge("v" + i, nodes.get(i), nodes.get(i + side)));
+        }
+      }
+    }
+    graph.addEdges(edges);
+
+    new ForceDirectedLayout().performLayout(graph);
+
+    Set<String> positions = new HashSet<>();
+    for (Node node : nodes) {
+      positions.add(node.getX() + "," + node.getY());
+    }
+    assertEquals(nodes.size(), positions.size());
+
+    double edgeLength = 0;
+    for (Edge edge : edges) {
+      edgeLength += distance(graph.getNode(edge.getSource()), graph.getNode(edge.getTarget()));
+    }
+    edgeLength /= edges.size();
+    double diagonal = distance(nodes.get(0), nodes.get(nodes.size() - 1));
+
+    assertTrue("mean edge " + edgeLength, edgeLength > ForceDirectedLayout.DEFAULT_EDGE_LENGTH / 4);
+    assertTrue("mean edge " + edgeLength + " diagonal " + diagonal, diagonal > edgeLength * side / 2);
+  }
+
+  @Test
+  public void testLayoutIsOneUndoableAction() {
+    Graph graph = new Graph();
+    Node node0 = new Node("0");
+    Node node1 = new Node("1");
+    Node node2 = new Node("2");
+    graph.addNode(node0);
+    graph.addNode(node1);
+    graph.addNode(node2);
+    graph.addEdge(new Edge("0", node0, node1));
+
+    GraphPane graphPane = new GraphPane(graph);
+    List<GraphAction> actions = new ForceDirectedLayout().performLayout(graphPane, null);
+    assertEquals(1, actions.size());
+    assertTrue(node0.getX() != node1.getX() || node0.getY() != node1.getY());
+
+    actions.get(0).undo(graphPane);
+    assertEquals(0, node0.getX());
+    assertEquals(0, node1.getY());
+  }
+
+  @Test
+  public void testWeightsSetTheDistanceBetweenBodies() {
+    double single = pairDistance(1, 1);
+    double heavyEdge = pairDistance(1, 8);
+    double heavyBodies = pairDistance(8, 1);
+    double k = ForceDirectedLayout.DEFAULT_EDGE_LENGTH;
+
+    assertTrue("distance " + single, single > k * 0.8 && single < k * 1.2);
+    assertTrue("distance " + heavyEdge, heavyEdge < single * 0.7);
+    assertTrue("distance " + heavyBodies, heavyBodies > single * 2);
+  }
+
+  /**
+   * Distance two bodies of the weight, joined by an edge of the weight, settle
+   * at.
+   */
+  private static double pairDistance(int weight, int edgeWeight) {
+    LayoutGraph graph = new LayoutGraph(2, new int[] { 0, 1, 2 }, new int[] { 1, 0 },
+        new int[] { edgeWeight, edgeWeight }, new int[] { weight, weight });
+    double[] x = { 0, 300 };
+    double[] y = { 0, 10 };
+    ForceDirectedLayout layout = new ForceDirectedLayout();
+    layout.setConvergenceThreshold(0);
+    layout.simulate(graph, x, y, ForceDirectedLayout.DEFAULT_EDGE_LENGTH, 500, new LayoutAction() {
+
+      @Override
+      public void move(Node node, int oldX, int oldY, int x, int y) {
+      }
+
+    }, 0d, 1d, () -> {
+    });
+    return Math.hypot(x[1] - x[0], y[1] - y[0]);
+  }
+
+  private static double distance(Node a, Node b) {
+    return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+  }
+
+}
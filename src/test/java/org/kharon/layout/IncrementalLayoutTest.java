@@ -0,0 +1,104 @@
+package org.kharon.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+import org.kharon.Node;
+import org.kharon.history.GraphAction;
+
+public class IncrementalLayoutTest {
+
+  @Test
+  public void testPlacesOnlyNewNodesAroundTheirNeighbours() {
+    Graph graph = new Graph();
+    int side = 10;
+    List<Node> existing = new ArrayList<>();
+    for (int i = 0; i < side * side; i++) {
+      existing.add(new Node("n" + i, (i % side) * 100, (i / side) * 100));
+    }
+    graph.addNodes(existing);
+    Map<String, String> positions = new HashMap<>();
+    for (Node node : existing) {
+      positions.put(node.getId(), node.getX() + "," + node.getY());
+    }
+
+    Node expanded = existing.get(55);
+    List<Node> added = new ArrayList<>();
+    List<Edge> edges = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Node node = new Node("new" + i);
+      added.add(node);
+      edges.add(new Edge("e" + i, expanded, node));
+      if (i % 10 == 9) {
+        // a neighbour of a new node
+        Node leaf = new Node("leaf" + i);
+        added.add(leaf);
+        edges.add(new Edge("l" + i, node, leaf));
+      }
+    }
+    graph.addElements(added, edges);
+
+    GraphPane graphPane = new GraphPane(graph);
+    List<GraphAction> actions = new IncrementalLayout(added).performLayout(graphPane, null);
+    assertEquals(1, actions.size());
+
+    for (Node node : existing) {
+      assertEquals(positions.get(node.getId()), node.getX() + "," + node.getY());
+    }
+    Set<String> placed = new HashSet<>();
+    for (Node node : added) {
+      placed.add(node.getX() + "," + node.getY());
+      double distance = Math.hypot(node.getX() - expanded.getX(), node.getY() - expanded.getY());
+      assertTrue(node.getId() + " at " + distance, distance < 2000);
+    }
+    assertEquals(added.size(), placed.size());
+    Node neighbour = graph.getNode("new9");
+    Node leaf = graph.getNode("leaf9");
+    assertTrue(Math.hypot(neighbour.getX() - leaf.getX(), neighbour.getY() - leaf.getY()) < 600);
+
+    actions.get(0).undo(graphPane);
+    for (Node node : added) {
+      assertEquals(0, node.getX());
+      assertEquals(0, node.getY());
+    }
+  }
+
+  @Test
+  public void testDisconnectedNodesStayWhereTheyWereCreated() {
+    Graph graph = new Graph();
+    Node existing = new Node("existing", 0, 0);
+    graph.addNode(existing);
+    List<Node> added = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      added.add(new Node("new" + i, 5000, 5000));
+    }
+    List<Edge> edges = new ArrayList<>();
+    for (int i = 1; i < 5; i++) {
+      edges.add(new Edge("e" + i, added.get(0), added.get(i)));
+    }
+    graph.addElements(added, edges);
+
+    new IncrementalLayout(added).performLayout(graph);
+
+    assertEquals(0, existing.getX());
+    assertEquals(0, existing.getY());
+    Set<String> placed = new HashSet<>();
+    for (Node node : added) {
+      placed.add(node.getX() + "," + node.getY());
+      assertTrue(Math.hypot(node.getX() - 5000, node.getY() - 5000) < 1000);
+    }
+    assertEquals(added.size(), placed.size());
+  }
+
+}
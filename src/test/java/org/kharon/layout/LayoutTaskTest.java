@@ -0,0 +1,143 @@
+package org.kharon.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.FontMetrics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+import org.kharon.Node;
+import org.kharon.history.GraphHistory;
+import org.kharon.history.MoveNodeAction;
+
+public class LayoutTaskTest {
+
+  @Test
+  public void testFinalPositionsAreOneHistoryAction() throws Exception {
+    Graph graph = new Graph();
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      nodes.add(new Node(Integer.toString(i)));
+    }
+    graph.addNodes(nodes);
+    for (int i = 1; i < 20; i++) {
+      graph.addEdge(new Edge("e" + i, nodes.get(i), nodes.get(i / 2)));
+    }
+    GraphPane graphPane = new GraphPane(graph);
+    GraphHistory history = graphPane.getHistory();
+
+    List<Double> progress = new ArrayList<>();
+    AtomicReference<LayoutTask> task = new AtomicReference<>();
+    SwingUtilities.invokeAndWait(() -> task.set(graphPane.applyLayoutAsync(new ForceDirectedLayout(), new LayoutAdapter() {
+
+      @Override
+      public void layoutProgress(LayoutTask task, double value) {
+        progress.add(value);
+      }
+
+    })));
+
+    MoveNodeAction action = task.get().get(30, TimeUnit.SECONDS);
+    SwingUtilities.invokeAndWait(() -> { });
+
+    assertTrue(task.get().isDone());
+    assertEquals(1d, task.get().getProgress(), 0d);
+    assertEquals(1d, progress.get(progress.size() - 1), 0d);
+    assertEquals(0, history.getPosition());
+    assertSame(action, history.getPrevious());
+    assertTrue(nodes.stream().anyMatch(node -> node.getX() != 0 || node.getY() != 0));
+
+    SwingUtilities.invokeAndWait(history::undo);
+    assertTrue(nodes.stream().allMatch(node -> node.getX() == 0 && node.getY() == 0));
+  }
+
+  @Test
+  public void testCancelRestoresPositionsOfIntermediateFrames() throws Exception {
+    Graph graph = new Graph();
+    Node node = new Node("0", 10, 10);
+    graph.addNode(node);
+    GraphPane graphPane = new GraphPane(graph);
+
+    SteppedLayout layout = new SteppedLayout();
+    AtomicReference<LayoutTask> task = new AtomicReference<>();
+    SwingUtilities.invokeAndWait(() -> task.set(graphPane.applyLayoutAsync(layout)));
+
+    assertTrue(layout.framed.await(10, TimeUnit.SECONDS));
+    // lets the frame reach the pane
+    AtomicInteger x = new AtomicInteger();
+    SwingUtilities.invokeAndWait(() -> x.set(node.getX()));
+    assertEquals(11, x.get());
+
+    task.get().cancel();
+    layout.resume.countDown();
+    try {
+      task.get().get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (CancellationException e) {
+      // expected
+    }
+    SwingUtilities.invokeAndWait(() -> { });
+
+    assertEquals(10, node.getX());
+    assertEquals(10, node.getY());
+    assertFalse(graphPane.getHistory().isUndoPossible());
+  }
+
+  @Test
+  public void testLayoutsNeedingAPaneAreRejected() throws Exception {
+    Graph graph = new Graph();
+    graph.addNode(new Node("0", 10, 10));
+    GraphPane graphPane = new GraphPane(graph);
+
+    AtomicReference<Exception> error = new AtomicReference<>();
+    SwingUtilities.invokeAndWait(() -> {
+      try {
+        graphPane.applyLayoutAsync((pane, fontMetrics) -> Collections.emptyList());
+      } catch (IllegalArgumentException e) {
+        error.set(e);
+      }
+    });
+    assertNotNull(error.get());
+  }
+
+  /**
+   * Moves the node and publishes a frame, then waits to be resumed.
+   */
+  private static class SteppedLayout extends AbstractHistoryEnabledLayout {
+
+    private final CountDownLatch framed = new CountDownLatch(1);
+    private final CountDownLatch resume = new CountDownLatch(1);
+
+    @Override
+    protected void performLayout(Graph graph, LayoutAction action, FontMetrics fontMetrics) {
+      Node node = graph.getNode("0");
+      action.move(node, node.getX() + 1, node.getY());
+      action.frame();
+      framed.countDown();
+      try {
+        resume.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,117 @@
+package org.kharon.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kharon.Edge;
+import org.kharon.Graph;
+import org.kharon.GraphPane;
+import org.kharon.Node;
+import org.kharon.history.GraphAction;
+
+public class MultilevelLayoutTest {
+
+  @Test
+  public void testGridUnfolds() {
+    int side = 40;
+    Graph graph = new Graph();
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < side * side; i++) {
+      nodes.add(new Node(Integer.toString(i)));
+    }
+    graph.addNodes(nodes);
+    List<Edge> edges = new ArrayList<>();
+    for (int row = 0; row < side; row++) {
+      for (int col = 0; col < side; col++) {
+        int i = row * side + col;
+        if (col + 1 < side) {
+          edges.add(new Edge("h" + i, nodes.get(i), nodes.get(i + 1)));
+        }
+        if (row + 1 < side) {
+          edges.add(new Edge("v" + i, nodes.get(i), nodes.get(i + side)));
+        }
+      }
+    }
+    graph.addEdges(edges);
+
+    new MultilevelLayout().performLayout(graph);
+
+    Set<String> positions = new HashSet<>();
+    for (Node node : nodes) {
+      positions.add(node.getX() + "," + node.getY());
+    }
+    assertEquals(nodes.size(), positions.size());
+
+    double edgeLength = 0;
+    for (Edge edge : edges) {
+      edgeLength += distance(graph.getNode(edge.getSource()), graph.getNode(edge.getTarget()));
+    }
+    edgeLength /= edges.size();
+    // opposite corners far apart, the grid is not folded on itself
+    double diagonal = distance(nodes.get(0), nodes.get(nodes.size() - 1));
+    double antiDiagonal = distance(nodes.get(side - 1), nodes.get(nodes.size() - side));
+
+    assertTrue("mean edge " + edgeLength, edgeLength > ForceDirectedLayout.DEFAULT_EDGE_LENGTH / 4);
+    assertTrue("mean edge " + edgeLength + " diagonal " + diagonal, diagonal > edgeLength * side / 2);
+    assertTrue("mean edge " + edgeLength + " diagonal " + antiDiagonal, antiDiagonal > edgeLength * side / 2);
+  }
+
+  @Test
+  public void testStarAndIsolatedNodes() {
+    Graph graph = new Graph();
+    Node center = new Node("center");
+    graph.addNode(center);
+    for (int i = 0; i < 300; i++) {
+      Node leaf = new Node("leaf" + i);
+      graph.addNode(leaf);
+      graph.addEdge(new Edge("e" + i, center, leaf));
+    }
+    for (int i = 0; i < 100; i++) {
+      graph.addNode(new Node("isolated" + i));
+    }
+
+    new MultilevelLayout().performLayout(graph);
+
+    Set<String> positions = new HashSet<>();
+    for (Node node : graph.getNodes()) {
+      positions.add(node.getX() + "," + node.getY());
+    }
+    assertEquals(graph.getNodes().size(), positions.size());
+  }
+
+  @Test
+  public void testLayoutIsOneUndoableAction() {
+    Graph graph = new Graph();
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Node node = new Node(Integer.toString(i));
+      nodes.add(node);
+      graph.addNode(node);
+      if (i > 0) {
+        graph.addEdge(new Edge("e" + i, nodes.get(i / 2), node));
+      }
+    }
+
+    GraphPane graphPane = new GraphPane(graph);
+    List<GraphAction> actions = new MultilevelLayout().performLayout(graphPane, null);
+    assertEquals(1, actions.size());
+    assertTrue(nodes.get(0).getX() != nodes.get(1).getX() || nodes.get(0).getY() != nodes.get(1).getY());
+
+    actions.get(0).undo(graphPane);
+    for (Node node : nodes) {
+      assertEquals(0, node.getX());
+      assertEquals(0, node.getY());
+    }
+  }
+
+  private static double distance(Node a, Node b) {
+    return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+  }
+
+}
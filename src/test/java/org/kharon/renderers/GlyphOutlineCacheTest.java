@@ -0,0 +1,52 @@
+package org.kharon.renderers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
+
+import org.junit.Test;
+
+public class GlyphOutlineCacheTest {
+
+  private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+  private static final FontRenderContext CONTEXT = new FontRenderContext(null, true, true);
+
+  @Test
+  public void testOutlinesAreTranslated() {
+    GlyphOutlineCache cache = new GlyphOutlineCache(10);
+    Shape origin = cache.getOutline(FONT, CONTEXT, "label", 0d);
+    Shape moved = cache.getOutline(FONT, CONTEXT, "label", 0d, 100f, 50f);
+
+    Rectangle2D originBounds = origin.getBounds2D();
+    Rectangle2D movedBounds = moved.getBounds2D();
+    assertEquals(originBounds.getX() + 100d, movedBounds.getX(), 1e-6);
+    assertEquals(originBounds.getY() + 50d, movedBounds.getY(), 1e-6);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedOutlinesAreEvicted() {
+    GlyphOutlineCache cache = new GlyphOutlineCache(2);
+    cache.getOutline(FONT, CONTEXT, "a", 0d);
+    cache.getOutline(FONT, CONTEXT, "b", 0d);
+    cache.getOutline(FONT, CONTEXT, "a", 0d);
+    cache.getOutline(FONT, CONTEXT, "b", Math.PI / 2);
+    assertEquals(2, cache.size());
+    assertEquals(3, cache.getMissCount());
+
+    // "b" was the least recently used outline
+    cache.getOutline(FONT, CONTEXT, "a", 0d);
+    Shape b = cache.getOutline(FONT, CONTEXT, "b", 0d);
+    assertEquals(4, cache.getMissCount());
+
+    cache.setMaxSize(1);
+    assertEquals(1, cache.size());
+    assertSame(b, cache.getOutline(FONT, CONTEXT, "b", 0d));
+  }
+
+}